@@ -0,0 +1,78 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DENCLUEBPlusTree} keyed by cube keys, at several branching factors:
+ * filling a tree with all keys in random order, as rows populate the grid,
+ * and searching the keys of a filled tree.
+ *
+ * @author Benjamin Laney
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DENCLUEBPlusTreeBenchmark {
+
+	@Param({ "4", "16", "128", "512" })
+	public int branchingFactor;
+
+	@Param({ "1000", "100000" })
+	public int numKeys;
+
+	@Param({ "3", "10" })
+	public int numDimensions;
+
+	private DENCLUEIndexKey[] m_keys;
+
+	private DENCLUEBPlusTree<DENCLUEIndexKey, Integer> m_tree;
+
+	private int m_nextSearch = 0;
+
+	@Setup
+	public void setUp() {
+		// few enough cube indices per dimension that some keys repeat, as cubes do
+		m_keys = DENCLUEBenchmarkData.createKeys(numKeys, numDimensions, 16, DENCLUEBenchmarkData.SEED);
+		m_tree = insertAll();
+	}
+
+	private DENCLUEBPlusTree<DENCLUEIndexKey, Integer> insertAll() {
+		DENCLUEBPlusTree<DENCLUEIndexKey, Integer> tree = new DENCLUEBPlusTree<DENCLUEIndexKey, Integer>(
+				branchingFactor);
+		for (int i = 0; i < m_keys.length; i++) {
+			tree.insert(m_keys[i], i);
+		}
+		return tree;
+	}
+
+	/**
+	 * Time per filled tree, not per key.
+	 */
+	@Benchmark
+	public DENCLUEBPlusTree<DENCLUEIndexKey, Integer> insert() {
+		return insertAll();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Integer search() {
+		DENCLUEIndexKey key = m_keys[m_nextSearch];
+		m_nextSearch = m_nextSearch + 1 == m_keys.length ? 0 : m_nextSearch + 1;
+		return m_tree.search(key);
+	}
+}
@@ -0,0 +1,111 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic inputs of the benchmarks: rows drawn from Gaussian blobs around
+ * random centers, and the grid the node would lay over them. The same seed
+ * always gives the same rows, so results stay comparable across runs.
+ *
+ * @author Benjamin Laney
+ */
+final class DENCLUEBenchmarkData {
+
+	static final long SEED = 42;
+
+	static final int NUM_BLOBS = 3;
+
+	// the centers lie in [-CENTER_RANGE, CENTER_RANGE] in every dimension
+	static final double CENTER_RANGE = 4;
+
+	static final double BLOB_STDDEV = .3;
+
+	private DENCLUEBenchmarkData() {
+	}
+
+	/**
+	 * @return the rows of the given number of blobs of equal size, without row
+	 *         keys
+	 */
+	static DENCLUEHeapFeatureStore createBlobs(final int numRows, final int numDimensions, final int numBlobs,
+			final long seed) {
+		Random random = new Random(seed);
+		double[][] centers = new double[numBlobs][numDimensions];
+		for (double[] center : centers) {
+			for (int i = 0; i < numDimensions; i++) {
+				center[i] = (2 * random.nextDouble() - 1) * CENTER_RANGE;
+			}
+		}
+		DENCLUEHeapFeatureStore featureStore = new DENCLUEHeapFeatureStore(numDimensions, numRows);
+		for (int row = 0; row < numRows; row++) {
+			double[] center = centers[row % numBlobs];
+			for (int i = 0; i < numDimensions; i++) {
+				featureStore.setValue(row, i, center[i] + random.nextGaussian() * BLOB_STDDEV);
+			}
+		}
+		return featureStore;
+	}
+
+	/**
+	 * @return a sigma that keeps a blob in a few cubes: the typical distance of
+	 *         its rows from their center grows with the root of the dimensions
+	 */
+	static double getSigma(final int numDimensions) {
+		return BLOB_STDDEV * Math.sqrt(numDimensions);
+	}
+
+	/**
+	 * @return the grid over the domain of the stored rows, with cubes of the
+	 *         given width, as the node creates it from the column domains
+	 */
+	static DENCLUEGridAssigner createGridAssigner(final DENCLUEFeatureStore featureStore, final double cellWidth,
+			final double xi, final DENCLUECubeIndex cubeIndex) {
+		Map<Integer, double[][]> hyperCubeBoundaries = new LinkedHashMap<Integer, double[][]>();
+		for (int i = 0; i < featureStore.getNumDimensions(); i++) {
+			double lowerBound = Double.MAX_VALUE;
+			double upperBound = -Double.MAX_VALUE;
+			for (int row = 0; row < featureStore.getNumRows(); row++) {
+				lowerBound = Math.min(lowerBound, featureStore.getValue(row, i));
+				upperBound = Math.max(upperBound, featureStore.getValue(row, i));
+			}
+			hyperCubeBoundaries.put(i, DENCLUEGridAssigner.createColumnBoundaries(lowerBound, upperBound, cellWidth));
+		}
+		return new DENCLUEGridAssigner(hyperCubeBoundaries, cellWidth, xi, cubeIndex);
+	}
+
+	/**
+	 * @return the cube holding all given rows, ready for density evaluations
+	 */
+	static DENCLUEHyperCube createCube(final DENCLUEFeatureStore featureStore, final DENCLUEIndexKey cubeKey,
+			final double sigma) {
+		DENCLUECubeBuilder builder = new DENCLUECubeBuilder(cubeKey, 0, featureStore.getNumDimensions());
+		double[] featureVector = new double[featureStore.getNumDimensions()];
+		for (int row = 0; row < featureStore.getNumRows(); row++) {
+			featureStore.getRow(row, featureVector);
+			builder.addMember(featureVector);
+		}
+		DENCLUEHyperCube cube = builder.build();
+		cube.setMemberRange(featureStore, 0);
+		cube.createNearXSet(sigma);
+		return cube;
+	}
+
+	/**
+	 * @return keys of the given number of dimensions with uniform cube indices
+	 *         below the given bound
+	 */
+	static DENCLUEIndexKey[] createKeys(final int numKeys, final int numDimensions, final int bound,
+			final long seed) {
+		Random random = new Random(seed);
+		DENCLUEIndexKey[] keys = new DENCLUEIndexKey[numKeys];
+		for (int i = 0; i < numKeys; i++) {
+			keys[i] = new DENCLUEIndexKey(numDimensions);
+			for (int j = 0; j < numDimensions; j++) {
+				keys[i].setValue(j, random.nextInt(bound));
+			}
+		}
+		return keys;
+	}
+}
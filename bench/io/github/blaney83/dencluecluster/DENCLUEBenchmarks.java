@@ -0,0 +1,36 @@
+package io.github.blaney83.dencluecluster;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks outside of KNIME, taking the usual JMH command line
+ * options. Unless told otherwise, the results are written as JSON to a file
+ * named after the start time, so runs can be kept and compared over time.
+ *
+ * @author Benjamin Laney
+ */
+public final class DENCLUEBenchmarks {
+
+	private DENCLUEBenchmarks() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.result("denclue-benchmarks-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+					+ ".json");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,87 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.ExecutionMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Clusters Gaussian blobs from start to end with the default settings of the
+ * node, as an in-memory execution does once the rows are read: assigns the
+ * rows to the grid, connects and merges the cubes and clusters the super
+ * cubes. Only the counts of the clustering are kept, as in a parameter sweep.
+ * The largest tables need a heap of several GB; a single shot per iteration
+ * keeps their runs short.
+ *
+ * @author Benjamin Laney
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DENCLUEClusteringBenchmark {
+
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	public int numRows;
+
+	@Param({ "2", "10", "50" })
+	public int numDimensions;
+
+	@Param({ "1", "4" })
+	public int numThreads;
+
+	@Param({ DENCLUECubeIndex.INDEX_HASH, DENCLUECubeIndex.INDEX_BPLUS_TREE })
+	public String cubeIndex;
+
+	private DENCLUEHeapFeatureStore m_rows;
+
+	private String[] m_columnNames;
+
+	private double m_sigma;
+
+	@Setup
+	public void setUp() {
+		m_rows = DENCLUEBenchmarkData.createBlobs(numRows, numDimensions, DENCLUEBenchmarkData.NUM_BLOBS,
+				DENCLUEBenchmarkData.SEED);
+		m_columnNames = new String[numDimensions];
+		for (int i = 0; i < numDimensions; i++) {
+			m_columnNames[i] = "Column " + i;
+		}
+		m_sigma = DENCLUEBenchmarkData.getSigma(numDimensions);
+	}
+
+	/**
+	 * @return the number of cluster rows
+	 */
+	@Benchmark
+	public int cluster() throws Exception {
+		double xi = DENCLUEClusterNodeModel.DEFAULT_XI_VALUE;
+		DENCLUECubeIndex index = DENCLUECubeIndex.INDEX_BPLUS_TREE.equals(cubeIndex)
+				? new DENCLUETreeCubeIndex(DENCLUEClusterNodeModel.CUBE_TREE_BRANCHING_FACTOR)
+				: new DENCLUEHashCubeIndex();
+		DENCLUEGridAssigner gridAssigner = DENCLUEBenchmarkData.createGridAssigner(m_rows, 2 * m_sigma, xi, index);
+		// the rows are only read, so every invocation starts from the same store
+		gridAssigner.assignStored(m_rows, new ExecutionMonitor());
+		DENCLUEClusterRun clusterRun = new DENCLUEClusterRun(m_sigma, xi, false,
+				DENCLUEClusterNodeModel.DEFAULT_ATTRACTOR_SEARCH, DENCLUEClusterNodeModel.DEFAULT_STEP_SIZE,
+				DENCLUEClusterNodeModel.DEFAULT_MAX_ITERATIONS, DENCLUEClusterNodeModel.DEFAULT_SHARE_ATTRACTORS,
+				DENCLUEClusterNodeModel.DEFAULT_DENSITY_CUTOFF, m_columnNames, false, numThreads);
+		clusterRun.connectCubes(gridAssigner);
+		clusterRun.buildSuperCubes(gridAssigner, null, null);
+		clusterRun.clusterSuperCubes(gridAssigner, true, new ExecutionMonitor());
+		clusterRun.close();
+		return clusterRun.getNumClusterRows();
+	}
+}
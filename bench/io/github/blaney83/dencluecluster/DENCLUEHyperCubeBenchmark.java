@@ -0,0 +1,83 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The per-cube work of the clustering: the neighbor and connection checks of
+ * two cubes, and the density of a point from the near(x) members of a cube of
+ * one blob.
+ *
+ * @author Benjamin Laney
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DENCLUEHyperCubeBenchmark {
+
+	@Param({ "2", "10", "50" })
+	public int numDimensions;
+
+	@Param({ "100", "10000" })
+	public int numMembers;
+
+	private DENCLUEHyperCube m_cube;
+
+	// a neighbor in the last dimension, so every dimension is checked
+	private DENCLUEHyperCube m_neighborCube;
+
+	private double m_sigma;
+
+	private double[] m_featureVector;
+
+	private double[] m_nearXDistances;
+
+	@Setup
+	public void setUp() {
+		m_sigma = DENCLUEBenchmarkData.getSigma(numDimensions);
+		DENCLUEIndexKey cubeKey = new DENCLUEIndexKey(numDimensions);
+		DENCLUEIndexKey neighborKey = new DENCLUEIndexKey(numDimensions);
+		neighborKey.setValue(numDimensions - 1, 1);
+		// one blob, so most members are near(x) members as in a dense cube
+		DENCLUEHeapFeatureStore members = DENCLUEBenchmarkData.createBlobs(numMembers, numDimensions, 1,
+				DENCLUEBenchmarkData.SEED);
+		m_cube = DENCLUEBenchmarkData.createCube(members, cubeKey, m_sigma);
+		m_neighborCube = DENCLUEBenchmarkData.createCube(
+				DENCLUEBenchmarkData.createBlobs(numMembers, numDimensions, 1, DENCLUEBenchmarkData.SEED + 1),
+				neighborKey, m_sigma);
+		m_featureVector = new double[numDimensions];
+		members.getRow(0, m_featureVector);
+		// at least as long as near(x)
+		m_nearXDistances = new double[numMembers];
+	}
+
+	@Benchmark
+	public boolean isNeighbor() {
+		return m_cube.isNeighbor(m_neighborCube);
+	}
+
+	@Benchmark
+	public boolean isConnected() {
+		return m_cube.isConnected(m_neighborCube, m_sigma);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public double localDensityFunction() {
+		return m_cube.localDensityFunction(m_featureVector, m_nearXDistances);
+	}
+}
@@ -0,0 +1,58 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DENCLUEIndexKey#compareTo} as the b+ tree calls it: keys that are
+ * equal, so every dimension is compared, and keys that only differ in the
+ * last dimension.
+ *
+ * @author Benjamin Laney
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DENCLUEIndexKeyBenchmark {
+
+	@Param({ "2", "10", "50" })
+	public int numDimensions;
+
+	private DENCLUEIndexKey m_key;
+
+	private DENCLUEIndexKey m_equalKey;
+
+	private DENCLUEIndexKey m_lastDifferentKey;
+
+	@Setup
+	public void setUp() {
+		m_key = DENCLUEBenchmarkData.createKeys(1, numDimensions, 100, DENCLUEBenchmarkData.SEED)[0];
+		m_equalKey = new DENCLUEIndexKey(m_key);
+		m_lastDifferentKey = new DENCLUEIndexKey(m_key);
+		m_lastDifferentKey.setValue(numDimensions - 1, m_key.getValue(numDimensions - 1) + 1);
+	}
+
+	@Benchmark
+	public int compareEqual() {
+		return m_key.compareTo(m_equalKey);
+	}
+
+	@Benchmark
+	public int compareLastDifferent() {
+		return m_key.compareTo(m_lastDifferentKey);
+	}
+}
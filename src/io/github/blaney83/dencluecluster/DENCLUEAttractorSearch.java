@@ -0,0 +1,39 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Hill climbing from a point to its density attractor, the local maximum of
+ * the Gaussian density of a super cube's members that the point climbs to.
+ * Instances hold scratch space and are bound to one super cube, so they must
+ * not be shared between threads.
+ *
+ * @author Benjamin Laney
+ */
+public interface DENCLUEAttractorSearch {
+
+	static final String SEARCH_MEMBER_WALK = "Member walk";
+
+	static final String SEARCH_GRADIENT = "Gradient hill climbing";
+
+	static final String SEARCH_MEAN_SHIFT = "Mean shift (DENCLUE 2.0)";
+
+	/**
+	 * Climbs from the start point and writes the density attractor into the
+	 * attractor array (which may be the start array). If a path is given, the
+	 * members near every visited point are recorded in it.
+	 *
+	 * @param path the path to record, may be {@code null}
+	 * @return the density at the attractor
+	 */
+	double climb(double[] start, double[] attractor, DENCLUEClimbPath path);
+
+	/**
+	 * @return the steps taken by all climbs of this search so far
+	 */
+	long getNumIterations();
+
+	/**
+	 * @return the density (and gradient) evaluations of all climbs of this search
+	 *         so far
+	 */
+	long getNumDensityEvaluations();
+}
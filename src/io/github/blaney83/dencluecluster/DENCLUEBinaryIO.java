@@ -0,0 +1,79 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for the binary internals of the DENCLUECluster node. Arrays are
+ * written length-prefixed with a {@link DataOutputStream} and read back from a
+ * read-only memory mapping of the file, so loading copies the arrays out of
+ * the page cache in bulk instead of parsing them value by value. Both sides
+ * use the big-endian byte order of {@code DataOutputStream}.
+ *
+ * @author Benjamin Laney
+ */
+final class DENCLUEBinaryIO {
+
+	private DENCLUEBinaryIO() {
+	}
+
+	/**
+	 * Maps the whole file read-only; the mapping stays valid after the file is
+	 * closed.
+	 */
+	static ByteBuffer map(final File file) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			long length = randomAccessFile.length();
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("The file " + file.getName() + " is too large to be mapped.");
+			}
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+	}
+
+	static void writeInts(final DataOutputStream out, final int[] values, final int count) throws IOException {
+		out.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	static void writeDoubles(final DataOutputStream out, final double[] values, final int count)
+			throws IOException {
+		out.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			out.writeDouble(values[i]);
+		}
+	}
+
+	static void writeString(final DataOutputStream out, final String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static int[] readInts(final ByteBuffer in) {
+		int[] values = new int[in.getInt()];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + values.length * Integer.BYTES);
+		return values;
+	}
+
+	static double[] readDoubles(final ByteBuffer in) {
+		double[] values = new double[in.getInt()];
+		in.asDoubleBuffer().get(values);
+		in.position(in.position() + values.length * Double.BYTES);
+		return values;
+	}
+
+	static String readString(final ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,100 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEBinaryIOTest {
+
+	private static void writeValues(final DataOutputStream out) throws Exception {
+		DENCLUEBinaryIO.writeString(out, "Cluster \u00e4");
+		// only the first count values are written
+		DENCLUEBinaryIO.writeInts(out, new int[] { 3, -1, Integer.MAX_VALUE, 7 }, 3);
+		DENCLUEBinaryIO.writeDoubles(out, new double[] { 0.5, -2.25, Double.NaN }, 3);
+		DENCLUEBinaryIO.writeInts(out, new int[0], 0);
+		out.writeInt(42);
+	}
+
+	private static void assertValues(final ByteBuffer in) {
+		assertEquals("Cluster \u00e4", DENCLUEBinaryIO.readString(in));
+		assertArrayEquals(new int[] { 3, -1, Integer.MAX_VALUE }, DENCLUEBinaryIO.readInts(in));
+		assertArrayEquals(new double[] { 0.5, -2.25, Double.NaN }, DENCLUEBinaryIO.readDoubles(in));
+		assertArrayEquals(new int[0], DENCLUEBinaryIO.readInts(in));
+		// every read advances the buffer past its values
+		assertEquals(42, in.getInt());
+		assertFalse(in.hasRemaining());
+	}
+
+	@Test
+	void readsWrittenValues() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			writeValues(out);
+		}
+		assertValues(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+
+	@Test
+	void readsWrittenValuesFromMappedFile() throws Exception {
+		File file = File.createTempFile("denclue_test_", ".bin");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+				writeValues(out);
+			}
+			assertValues(DENCLUEBinaryIO.map(file));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	void readsWrittenClusterIdColumn() throws Exception {
+		DENCLUEClusterIdColumn column = DENCLUEClusterIdColumn.createHeap(1000);
+		for (int row = 0; row < 1000; row += 3) {
+			column.setClusterId(row, row % 7);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			column.write(out);
+			out.writeInt(42);
+		}
+		DENCLUEClusterIdColumn readColumn = DENCLUEClusterIdColumn.createMapped(1000);
+		ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+		readColumn.read(in);
+		for (int row = 0; row < 1000; row++) {
+			assertEquals(column.getClusterId(row), readColumn.getClusterId(row));
+		}
+		assertEquals(DENCLUEClusterIdColumn.NOISE, readColumn.getClusterId(1));
+		assertEquals(42, in.getInt());
+		readColumn.close();
+	}
+
+	@Test
+	void readsWrittenModel() throws Exception {
+		double[][] boundaries = new double[5][];
+		for (int i = 0; i < boundaries.length; i++) {
+			boundaries[i] = new double[] { i, i + 1 };
+		}
+		DENCLUEClusterModel model = new DENCLUEClusterModel(new String[] { "x", "y" },
+				new double[][][] { boundaries, boundaries }, 0.5, 1);
+		model.addSuperCube(0);
+		model.addAttractor(new double[] { 1.5, 1.5 }, 10, 2);
+		DENCLUEIndexKey key = new DENCLUEIndexKey(2);
+		key.setValue(0, 1);
+		key.setValue(1, 1);
+		model.addCube(key, 0);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			model.write(out);
+		}
+		ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+		DENCLUEClusterModelTest.assertModelsEqual(model, DENCLUEClusterModel.read(in));
+		assertFalse(in.hasRemaining());
+	}
+}
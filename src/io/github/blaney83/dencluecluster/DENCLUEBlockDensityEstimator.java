@@ -0,0 +1,97 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * {@link DENCLUEDensityEstimator} summing the influence of every member of the
+ * block, without any spatial pruning. Members held outside of the heap are
+ * read from their store in windows of {@code WINDOW_SIZE} members per
+ * evaluation, so only one window is on the heap at a time.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEBlockDensityEstimator implements DENCLUEDensityEstimator {
+
+	static final int WINDOW_SIZE = 4096;
+
+	private final DENCLUEGaussianKernel m_kernel;
+
+	// the members, or the window the store is read into
+	private final double[][] m_block;
+
+	// the store holding the members from m_offset on, null for members on the
+	// heap
+	private final DENCLUEFeatureStore m_featureStore;
+
+	private final int m_offset;
+
+	private final int m_count;
+
+	private final double[] m_scratch;
+
+	private final double[] m_windowGradient;
+
+	public DENCLUEBlockDensityEstimator(final DENCLUEGaussianKernel kernel, final double[][] block, final int count) {
+		m_kernel = kernel;
+		m_block = block;
+		m_featureStore = null;
+		m_offset = 0;
+		m_count = count;
+		m_scratch = new double[count];
+		m_windowGradient = null;
+	}
+
+	/**
+	 * An estimator over the members {@code [offset, offset + count)} of the
+	 * store, read window by window.
+	 */
+	public DENCLUEBlockDensityEstimator(final DENCLUEGaussianKernel kernel, final DENCLUEFeatureStore featureStore,
+			final int offset, final int count) {
+		m_kernel = kernel;
+		int windowSize = Math.min(count, WINDOW_SIZE);
+		m_block = new double[featureStore.getNumDimensions()][windowSize];
+		m_featureStore = featureStore;
+		m_offset = offset;
+		m_count = count;
+		m_scratch = new double[windowSize];
+		m_windowGradient = new double[featureStore.getNumDimensions()];
+	}
+
+	@Override
+	public double densityGradient(final double[] point, final double[] gradient, final DENCLUEClimbPath path) {
+		if (m_featureStore == null) {
+			double density = m_kernel.densityGradient(m_block, m_count, point, m_scratch, gradient);
+			if (path != null) {
+				path.recordNear(m_scratch, m_count);
+			}
+			return density;
+		}
+		double density = 0.0;
+		for (int dimension = 0; dimension < gradient.length; dimension++) {
+			gradient[dimension] = 0.0;
+		}
+		for (int start = 0; start < m_count; start += WINDOW_SIZE) {
+			int count = Math.min(WINDOW_SIZE, m_count - start);
+			m_featureStore.readBlock(m_offset + start, count, m_block);
+			density += m_kernel.densityGradient(m_block, count, point, m_scratch, m_windowGradient);
+			for (int dimension = 0; dimension < gradient.length; dimension++) {
+				gradient[dimension] += m_windowGradient[dimension];
+			}
+			if (path != null) {
+				path.recordNear(m_scratch, start, count);
+			}
+		}
+		return density;
+	}
+
+	@Override
+	public DENCLUEDensityEstimator duplicate() {
+		if (m_featureStore == null) {
+			return new DENCLUEBlockDensityEstimator(m_kernel, m_block, m_count);
+		}
+		return new DENCLUEBlockDensityEstimator(m_kernel, m_featureStore, m_offset, m_count);
+	}
+
+	@Override
+	public void close() {
+		// the members belong to the cube
+	}
+}
@@ -1,40 +1,57 @@
 package io.github.blaney83.dencluecluster;
 
-import java.util.ArrayList;
-import java.util.Set;
-
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
-import org.knime.core.data.RowKey;
 import org.knime.core.data.container.SingleCellFactory;
 import org.knime.core.data.def.StringCell;
 
+/**
+ * Labels every row with the cluster id stored at its position in the table.
+ * The rows must be handed in sequentially, in table order, so the factory must
+ * not be used concurrently or with parallel processing enabled.
+ */
 public class DENCLUECellFactory extends SingleCellFactory{
 	
-	private ArrayList<Set<RowKey>> m_clusterSets;
-	private Set<RowKey> m_noiseSet;
+	static final DataCell NOISE_CELL = new StringCell("Noise");
+
+	// cluster id of every row, by its position in the table
+	private DENCLUEClusterIdColumn m_rowClusterIds;
+	// number of rows the factory is expected to label
+	private final int m_numRows;
+	// position of the next row
+	private int m_rowIndex = 0;
+	// one shared label cell per cluster id
+	private DataCell[] m_clusterCells;
 
-	public DENCLUECellFactory(DataColumnSpec newColSpec, final ArrayList<Set<RowKey>> clusterSets, final Set<RowKey> noiseSet) {
+	public DENCLUECellFactory(DataColumnSpec newColSpec, final DENCLUEClusterIdColumn rowClusterIds, final int numClusters,
+			final int numRows) {
 		super(newColSpec);
-		m_clusterSets = clusterSets;
-		m_noiseSet = noiseSet;
+		m_rowClusterIds = rowClusterIds;
+		m_numRows = numRows;
+		m_clusterCells = new DataCell[numClusters];
+		for (int i = 0; i < numClusters; i++) {
+			m_clusterCells[i] = new StringCell("Cluster_" + i);
+		}
 	}
 
 	@Override
 	public DataCell getCell(DataRow row) {
-		if(m_noiseSet.contains(row.getKey())) {
-			return new StringCell("Noise");
-		}else {
-			int i = 0;
-			for(Set<RowKey> clusterSet : m_clusterSets) {
-				if(clusterSet.contains(row.getKey())) {
-					return new StringCell("Cluster_" + i);
-				}
-				i++;
-			}
+		if (m_rowIndex >= m_numRows) {
+			throw new IllegalStateException("More rows than the " + m_numRows + " rows clustered, at row " + row.getKey());
+		}
+		int clusterId = m_rowClusterIds.getClusterId(m_rowIndex++);
+		if (clusterId == DENCLUEClusterIdColumn.NOISE) {
+			return NOISE_CELL;
+		}
+		return m_clusterCells[clusterId];
+	}
+
+	@Override
+	public void afterProcessing() {
+		if (m_rowIndex != m_numRows) {
+			throw new IllegalStateException("Labeled " + m_rowIndex + " rows, expected the " + m_numRows + " rows clustered");
 		}
-		return new StringCell("Noise");
 	}
 
 }
@@ -0,0 +1,81 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+
+class DENCLUECellFactoryTest {
+
+	private static final int NUM_ROWS = 10;
+
+	private static DataRow createRow(final int row) {
+		return new DefaultRow(new RowKey("Row" + row), new DoubleCell(row));
+	}
+
+	/**
+	 * Rows 2 and 3 in cluster 0, row 5 in cluster 1, all others noise.
+	 */
+	private static DENCLUECellFactory createFactory(final DENCLUEClusterIdColumn rowClusterIds) {
+		rowClusterIds.setClusterId(2, 0);
+		rowClusterIds.setClusterId(3, 0);
+		rowClusterIds.setClusterId(5, 1);
+		return new DENCLUECellFactory(new DataColumnSpecCreator("Cluster", StringCell.TYPE).createSpec(),
+				rowClusterIds, 2, NUM_ROWS);
+	}
+
+	private static void assertLabelsByPosition(final DENCLUEClusterIdColumn rowClusterIds) {
+		DENCLUECellFactory cellFactory = createFactory(rowClusterIds);
+		String[] expected = { "Noise", "Noise", "Cluster_0", "Cluster_0", "Noise", "Cluster_1", "Noise", "Noise",
+				"Noise", "Noise" };
+		for (int row = 0; row < NUM_ROWS; row++) {
+			assertEquals(expected[row], cellFactory.getCell(createRow(row)).toString());
+		}
+		cellFactory.afterProcessing();
+		rowClusterIds.close();
+	}
+
+	@Test
+	void labelsRowsByPosition() throws Exception {
+		assertLabelsByPosition(DENCLUEClusterIdColumn.createHeap(NUM_ROWS));
+		assertLabelsByPosition(DENCLUEClusterIdColumn.createMapped(NUM_ROWS));
+	}
+
+	@Test
+	void sharesOneCellPerLabel() {
+		DENCLUECellFactory cellFactory = createFactory(DENCLUEClusterIdColumn.createHeap(NUM_ROWS));
+		assertSame(cellFactory.getCell(createRow(0)), cellFactory.getCell(createRow(1)));
+		assertSame(cellFactory.getCell(createRow(2)), cellFactory.getCell(createRow(3)));
+	}
+
+	@Test
+	void rejectsMoreRowsThanClustered() {
+		DENCLUECellFactory cellFactory = createFactory(DENCLUEClusterIdColumn.createHeap(NUM_ROWS));
+		for (int row = 0; row < NUM_ROWS; row++) {
+			cellFactory.getCell(createRow(row));
+		}
+		try {
+			cellFactory.getCell(createRow(NUM_ROWS));
+			fail("a row past the clustered rows was labeled");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	void rejectsFewerRowsThanClustered() {
+		DENCLUECellFactory cellFactory = createFactory(DENCLUEClusterIdColumn.createHeap(NUM_ROWS));
+		cellFactory.getCell(createRow(0));
+		try {
+			cellFactory.afterProcessing();
+			fail("labeling stopped before the last clustered row");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Members of a super cube that lay within sigma/2 of any point of one hill
+ * climb. They share the attractor of the climb, so they don't need to climb
+ * themselves. Each member is recorded once per climb. A path can be limited to
+ * a range of the members, for climbs run in parallel over disjoint ranges.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEClimbPath {
+
+	private final int[] m_members;
+
+	// first member of the range, the arrays are relative to it
+	private final int m_from;
+
+	private final int m_to;
+
+	// climb in which a member was last recorded, avoids clearing per climb
+	private final int[] m_recordedIn;
+
+	private int m_size = 0;
+
+	private int m_climb = 1;
+
+	private final double m_minInfluence;
+
+	/**
+	 * @param minInfluence the influence of a member at distance sigma/2
+	 */
+	public DENCLUEClimbPath(final int numMembers, final double minInfluence) {
+		this(0, numMembers, minInfluence);
+	}
+
+	/**
+	 * A path that only records the members {@code [from, to)}.
+	 */
+	public DENCLUEClimbPath(final int from, final int to, final double minInfluence) {
+		m_members = new int[to - from];
+		m_recordedIn = new int[to - from];
+		m_from = from;
+		m_to = to;
+		m_minInfluence = minInfluence;
+	}
+
+	/**
+	 * Records all members whose influence on the current point of the climb is at
+	 * least that of a member at distance sigma/2.
+	 */
+	public void recordNear(final double[] influences, final int count) {
+		int to = Math.min(count, m_to);
+		for (int i = m_from; i < to; i++) {
+			if (influences[i] >= m_minInfluence && m_recordedIn[i - m_from] != m_climb) {
+				m_recordedIn[i - m_from] = m_climb;
+				m_members[m_size++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #recordNear(double[], int)}, for influences of the members
+	 * {@code [firstMember, firstMember + count)}.
+	 */
+	public void recordNear(final double[] influences, final int firstMember, final int count) {
+		int from = Math.max(m_from, firstMember);
+		int to = Math.min(firstMember + count, m_to);
+		for (int member = from; member < to; member++) {
+			if (influences[member - firstMember] >= m_minInfluence && m_recordedIn[member - m_from] != m_climb) {
+				m_recordedIn[member - m_from] = m_climb;
+				m_members[m_size++] = member;
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #recordNear(double[], int)}, for influences of the members
+	 * {@code members[offset..offset + count)}.
+	 */
+	public void recordNear(final double[] influences, final int[] members, final int offset, final int count) {
+		for (int i = 0; i < count; i++) {
+			int member = members[offset + i];
+			if (member >= m_from && member < m_to && influences[i] >= m_minInfluence
+					&& m_recordedIn[member - m_from] != m_climb) {
+				m_recordedIn[member - m_from] = m_climb;
+				m_members[m_size++] = member;
+			}
+		}
+	}
+
+	/**
+	 * Starts the next climb.
+	 */
+	public void clear() {
+		m_size = 0;
+		m_climb++;
+	}
+
+	public int size() {
+		return m_size;
+	}
+
+	public int getMember(final int index) {
+		return m_members[index];
+	}
+}
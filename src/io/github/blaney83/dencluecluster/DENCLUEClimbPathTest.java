@@ -0,0 +1,26 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEClimbPathTest {
+
+	@Test
+	void recordsNearMembersOncePerClimb() {
+		DENCLUEClimbPath path = new DENCLUEClimbPath(5, 0.5);
+		path.recordNear(new double[] { 0.9, 0.1, 0.5, 0.2, 1 }, 5);
+		// a later step of the same climb passes the first members again
+		path.recordNear(new double[] { 0.6, 0.7, 0.9, 0.1, 0 }, 4);
+		assertEquals(4, path.size());
+		assertEquals(0, path.getMember(0));
+		assertEquals(2, path.getMember(1));
+		assertEquals(4, path.getMember(2));
+		assertEquals(1, path.getMember(3));
+		path.clear();
+		assertEquals(0, path.size());
+		path.recordNear(new double[] { 0.6, 0, 0, 0, 0 }, 5);
+		assertEquals(1, path.size());
+		assertEquals(0, path.getMember(0));
+	}
+}
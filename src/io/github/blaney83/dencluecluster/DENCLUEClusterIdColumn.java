@@ -0,0 +1,77 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The cluster id of every row of the input table, addressed by the position of
+ * the row in the table: four bytes per row instead of a map entry per cluster
+ * row. Like the feature stores, it lives on the heap or in a memory-mapped temp
+ * file. A row holds its cluster id plus one, so the zeroed column starts out as
+ * all noise.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUEClusterIdColumn {
+
+	static final int NOISE = -1;
+
+	private final DENCLUEIntColumn m_ids;
+
+	private DENCLUEClusterIdColumn(final DENCLUEIntColumn ids) {
+		m_ids = ids;
+	}
+
+	/**
+	 * @return a column of all noise rows on the heap
+	 */
+	static DENCLUEClusterIdColumn createHeap(final int numRows) {
+		return new DENCLUEClusterIdColumn(DENCLUEIntColumn.createHeap(numRows));
+	}
+
+	/**
+	 * @return a column of all noise rows in a memory-mapped temp file in the
+	 *         workflow's temp directory
+	 */
+	static DENCLUEClusterIdColumn createMapped(final int numRows) throws IOException {
+		return new DENCLUEClusterIdColumn(DENCLUEIntColumn.create(numRows, false));
+	}
+
+	void setClusterId(final int row, final int clusterId) {
+		m_ids.set(row, clusterId + 1);
+	}
+
+	/**
+	 * @return the cluster id of the row, {@link #NOISE} for a noise row
+	 */
+	int getClusterId(final int row) {
+		return m_ids.get(row) - 1;
+	}
+
+	int getNumRows() {
+		return m_ids.getNumRows();
+	}
+
+	/**
+	 * Writes the ids of all rows, as read back by {@link #read}.
+	 */
+	void write(final DataOutputStream out) throws IOException {
+		m_ids.write(out);
+	}
+
+	/**
+	 * Copies the ids written by {@link #write} from the buffer into this column,
+	 * advancing the buffer past them.
+	 */
+	void read(final ByteBuffer in) {
+		m_ids.read(in);
+	}
+
+	/**
+	 * Releases the storage held by this column.
+	 */
+	void close() {
+		m_ids.close();
+	}
+}
@@ -0,0 +1,370 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+
+/**
+ * The result of a DENCLUE clustering that new rows can be assigned with: the
+ * grid, the super cube of every populated cube and the distinct density
+ * attractors of every super cube. A row is looked up in the grid; rows outside
+ * of a super cube are noise. Within the super cube the row takes a short mean
+ * shift climb over the attractors, each weighted with the number of members
+ * that climbed to it, and is assigned the cluster of the nearest attractor if
+ * that attractor is significant, noise otherwise.
+ *
+ * The model is filled while the clustering runs ({@link #addSuperCube},
+ * {@link #addAttractor}, {@link #addCube}); super cubes are added in order of
+ * their ids, each followed by its attractors.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEClusterModel {
+
+	static final int NOISE = -1;
+
+	static final int PREDICT_ITERATIONS = 20;
+
+	private static final String CFGKEY_COLUMN_NAMES = "columnNames";
+	private static final String CFGKEY_BOUNDARIES = "boundaries_";
+	private static final String CFGKEY_SIGMA = "sigma";
+	private static final String CFGKEY_XI = "xi";
+	private static final String CFGKEY_CUBE_KEYS = "cubeKeys";
+	private static final String CFGKEY_CUBE_SUPER_IDS = "cubeSuperIds";
+	private static final String CFGKEY_SUPER_CLUSTER_IDS = "superClusterIds";
+	private static final String CFGKEY_SUPER_ATTRACTOR_STARTS = "superAttractorStarts";
+	private static final String CFGKEY_ATTRACTORS = "attractors";
+	private static final String CFGKEY_ATTRACTOR_WEIGHTS = "attractorWeights";
+	private static final String CFGKEY_ATTRACTOR_DENSITIES = "attractorDensities";
+
+	private String[] m_columnNames;
+
+	// columnBoundaries[column][cube] holds the lower and upper bound
+	private double[][][] m_columnBoundaries;
+
+	private double m_sigma;
+
+	private double m_xi;
+
+	private HashMap<DENCLUEIndexKey, Integer> m_cubeSuperIds = new HashMap<DENCLUEIndexKey, Integer>();
+
+	// cluster id of every super cube, NOISE for super cubes without a cluster
+	private int[] m_superClusterIds = new int[16];
+
+	// first attractor of every super cube, followed by the number of attractors
+	private int[] m_superAttractorStarts = new int[17];
+
+	private int m_numSuperCubes = 0;
+
+	// attractor coordinates, m_attractors[attractor * dimensions + dimension]
+	private double[] m_attractors;
+
+	private int[] m_attractorWeights = new int[16];
+
+	private double[] m_attractorDensities = new double[16];
+
+	private int m_numAttractors = 0;
+
+	public DENCLUEClusterModel(final String[] columnNames, final double[][][] columnBoundaries, final double sigma,
+			final double xi) {
+		m_columnNames = columnNames;
+		m_columnBoundaries = columnBoundaries;
+		m_sigma = sigma;
+		m_xi = xi;
+		m_attractors = new double[16 * columnNames.length];
+	}
+
+	private DENCLUEClusterModel() {
+	}
+
+	/**
+	 * Adds the next super cube, {@link #NOISE} as cluster id if none of its
+	 * attractors is significant.
+	 */
+	public void addSuperCube(final int clusterId) {
+		if (m_numSuperCubes == m_superClusterIds.length) {
+			m_superClusterIds = Arrays.copyOf(m_superClusterIds, 2 * m_numSuperCubes);
+			m_superAttractorStarts = Arrays.copyOf(m_superAttractorStarts, 2 * m_numSuperCubes + 1);
+		}
+		m_superClusterIds[m_numSuperCubes] = clusterId;
+		m_superAttractorStarts[m_numSuperCubes] = m_numAttractors;
+		m_numSuperCubes++;
+		m_superAttractorStarts[m_numSuperCubes] = m_numAttractors;
+	}
+
+	/**
+	 * Adds an attractor of the super cube added last.
+	 *
+	 * @param weight the number of members that climbed to the attractor
+	 */
+	public void addAttractor(final double[] attractor, final int weight, final double density) {
+		if (m_numAttractors == m_attractorWeights.length) {
+			m_attractors = Arrays.copyOf(m_attractors, 2 * m_attractors.length);
+			m_attractorWeights = Arrays.copyOf(m_attractorWeights, 2 * m_numAttractors);
+			m_attractorDensities = Arrays.copyOf(m_attractorDensities, 2 * m_numAttractors);
+		}
+		System.arraycopy(attractor, 0, m_attractors, m_numAttractors * m_columnNames.length, m_columnNames.length);
+		m_attractorWeights[m_numAttractors] = weight;
+		m_attractorDensities[m_numAttractors] = density;
+		m_numAttractors++;
+		m_superAttractorStarts[m_numSuperCubes] = m_numAttractors;
+	}
+
+	/**
+	 * Maps a populated cube of the grid to its super cube.
+	 */
+	public void addCube(final DENCLUEIndexKey cubeKey, final int superId) {
+		m_cubeSuperIds.put(cubeKey, Integer.valueOf(superId));
+	}
+
+	/**
+	 * @return the cluster id of the feature vector, {@link #NOISE} for noise and
+	 *         for feature vectors outside of the grid
+	 */
+	public int predict(final double[] featureVector) {
+		DENCLUEIndexKey cubeKey = DENCLUEGridAssigner.computeKey(m_columnBoundaries, featureVector);
+		if (cubeKey == null) {
+			return NOISE;
+		}
+		Integer superId = m_cubeSuperIds.get(cubeKey);
+		if (superId == null || m_superClusterIds[superId] == NOISE) {
+			return NOISE;
+		}
+		int start = m_superAttractorStarts[superId];
+		int end = m_superAttractorStarts[superId + 1];
+		int numDimensions = m_columnNames.length;
+		double negInvTwoSigmaSquared = -1.0 / (2.0 * m_sigma * m_sigma);
+		double toleranceSquared = 1e-6 * m_sigma * m_sigma;
+		double[] point = featureVector.clone();
+		double[] shifted = new double[numDimensions];
+		for (int iteration = 0; iteration < PREDICT_ITERATIONS; iteration++) {
+			Arrays.fill(shifted, 0.0);
+			double sum = 0.0;
+			for (int a = start; a < end; a++) {
+				double weight = m_attractorWeights[a]
+						* Math.exp(squaredDistance(point, a) * negInvTwoSigmaSquared);
+				int offset = a * numDimensions;
+				for (int i = 0; i < numDimensions; i++) {
+					shifted[i] += weight * m_attractors[offset + i];
+				}
+				sum += weight;
+			}
+			if (sum == 0.0) {
+				// too far away from all attractors to be pulled
+				break;
+			}
+			double shiftSquared = 0.0;
+			for (int i = 0; i < numDimensions; i++) {
+				double next = shifted[i] / sum;
+				shiftSquared += (next - point[i]) * (next - point[i]);
+				point[i] = next;
+			}
+			if (shiftSquared <= toleranceSquared) {
+				break;
+			}
+		}
+		int nearest = -1;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int a = start; a < end; a++) {
+			double distance = squaredDistance(point, a);
+			if (distance < nearestDistance) {
+				nearestDistance = distance;
+				nearest = a;
+			}
+		}
+		if (nearest < 0 || m_attractorDensities[nearest] < m_xi) {
+			return NOISE;
+		}
+		return m_superClusterIds[superId];
+	}
+
+	private double squaredDistance(final double[] point, final int attractor) {
+		int offset = attractor * point.length;
+		double sum = 0.0;
+		for (int i = 0; i < point.length; i++) {
+			double diff = m_attractors[offset + i] - point[i];
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	public String[] getColumnNames() {
+		return m_columnNames;
+	}
+
+	public int getNumClusters() {
+		int numClusters = 0;
+		for (int i = 0; i < m_numSuperCubes; i++) {
+			numClusters = Math.max(numClusters, m_superClusterIds[i] + 1);
+		}
+		return numClusters;
+	}
+
+	public int getNumSuperCubes() {
+		return m_numSuperCubes;
+	}
+
+	public int getNumAttractors() {
+		return m_numAttractors;
+	}
+
+	public double getSigma() {
+		return m_sigma;
+	}
+
+	public double getXi() {
+		return m_xi;
+	}
+
+	public void save(final ModelContentWO model) {
+		model.addStringArray(CFGKEY_COLUMN_NAMES, m_columnNames);
+		for (int column = 0; column < m_columnBoundaries.length; column++) {
+			model.addDoubleArray(CFGKEY_BOUNDARIES + column, flattenBoundaries(column));
+		}
+		model.addDouble(CFGKEY_SIGMA, m_sigma);
+		model.addDouble(CFGKEY_XI, m_xi);
+		int[][] cubes = flattenCubes();
+		model.addIntArray(CFGKEY_CUBE_KEYS, cubes[0]);
+		model.addIntArray(CFGKEY_CUBE_SUPER_IDS, cubes[1]);
+		model.addIntArray(CFGKEY_SUPER_CLUSTER_IDS, Arrays.copyOf(m_superClusterIds, m_numSuperCubes));
+		model.addIntArray(CFGKEY_SUPER_ATTRACTOR_STARTS, Arrays.copyOf(m_superAttractorStarts, m_numSuperCubes + 1));
+		model.addDoubleArray(CFGKEY_ATTRACTORS, Arrays.copyOf(m_attractors, m_numAttractors * m_columnNames.length));
+		model.addIntArray(CFGKEY_ATTRACTOR_WEIGHTS, Arrays.copyOf(m_attractorWeights, m_numAttractors));
+		model.addDoubleArray(CFGKEY_ATTRACTOR_DENSITIES, Arrays.copyOf(m_attractorDensities, m_numAttractors));
+	}
+
+	public static DENCLUEClusterModel load(final ModelContentRO model) throws InvalidSettingsException {
+		DENCLUEClusterModel clusterModel = new DENCLUEClusterModel();
+		clusterModel.m_columnNames = model.getStringArray(CFGKEY_COLUMN_NAMES);
+		clusterModel.m_columnBoundaries = new double[clusterModel.m_columnNames.length][][];
+		for (int column = 0; column < clusterModel.m_columnNames.length; column++) {
+			clusterModel.setBoundaries(column, model.getDoubleArray(CFGKEY_BOUNDARIES + column));
+		}
+		clusterModel.m_sigma = model.getDouble(CFGKEY_SIGMA);
+		clusterModel.m_xi = model.getDouble(CFGKEY_XI);
+		clusterModel.setCubes(model.getIntArray(CFGKEY_CUBE_KEYS), model.getIntArray(CFGKEY_CUBE_SUPER_IDS));
+		clusterModel.setSuperCubes(model.getIntArray(CFGKEY_SUPER_CLUSTER_IDS),
+				model.getIntArray(CFGKEY_SUPER_ATTRACTOR_STARTS));
+		clusterModel.setAttractors(model.getDoubleArray(CFGKEY_ATTRACTORS),
+				model.getIntArray(CFGKEY_ATTRACTOR_WEIGHTS), model.getDoubleArray(CFGKEY_ATTRACTOR_DENSITIES));
+		return clusterModel;
+	}
+
+	/**
+	 * Writes the model in the binary layout read by {@link #read(ByteBuffer)}.
+	 */
+	public void write(final DataOutputStream out) throws IOException {
+		out.writeInt(m_columnNames.length);
+		for (String columnName : m_columnNames) {
+			DENCLUEBinaryIO.writeString(out, columnName);
+		}
+		for (int column = 0; column < m_columnBoundaries.length; column++) {
+			double[] flat = flattenBoundaries(column);
+			DENCLUEBinaryIO.writeDoubles(out, flat, flat.length);
+		}
+		out.writeDouble(m_sigma);
+		out.writeDouble(m_xi);
+		int[][] cubes = flattenCubes();
+		DENCLUEBinaryIO.writeInts(out, cubes[0], cubes[0].length);
+		DENCLUEBinaryIO.writeInts(out, cubes[1], cubes[1].length);
+		DENCLUEBinaryIO.writeInts(out, m_superClusterIds, m_numSuperCubes);
+		DENCLUEBinaryIO.writeInts(out, m_superAttractorStarts, m_numSuperCubes + 1);
+		DENCLUEBinaryIO.writeDoubles(out, m_attractors, m_numAttractors * m_columnNames.length);
+		DENCLUEBinaryIO.writeInts(out, m_attractorWeights, m_numAttractors);
+		DENCLUEBinaryIO.writeDoubles(out, m_attractorDensities, m_numAttractors);
+	}
+
+	public static DENCLUEClusterModel read(final ByteBuffer in) throws IOException {
+		DENCLUEClusterModel clusterModel = new DENCLUEClusterModel();
+		clusterModel.m_columnNames = new String[in.getInt()];
+		for (int column = 0; column < clusterModel.m_columnNames.length; column++) {
+			clusterModel.m_columnNames[column] = DENCLUEBinaryIO.readString(in);
+		}
+		clusterModel.m_columnBoundaries = new double[clusterModel.m_columnNames.length][][];
+		for (int column = 0; column < clusterModel.m_columnNames.length; column++) {
+			clusterModel.setBoundaries(column, DENCLUEBinaryIO.readDoubles(in));
+		}
+		clusterModel.m_sigma = in.getDouble();
+		clusterModel.m_xi = in.getDouble();
+		try {
+			clusterModel.setCubes(DENCLUEBinaryIO.readInts(in), DENCLUEBinaryIO.readInts(in));
+		} catch (InvalidSettingsException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		clusterModel.setSuperCubes(DENCLUEBinaryIO.readInts(in), DENCLUEBinaryIO.readInts(in));
+		clusterModel.setAttractors(DENCLUEBinaryIO.readDoubles(in), DENCLUEBinaryIO.readInts(in),
+				DENCLUEBinaryIO.readDoubles(in));
+		return clusterModel;
+	}
+
+	private double[] flattenBoundaries(final int column) {
+		double[][] boundaries = m_columnBoundaries[column];
+		double[] flat = new double[2 * boundaries.length];
+		for (int i = 0; i < boundaries.length; i++) {
+			flat[2 * i] = boundaries[i][0];
+			flat[2 * i + 1] = boundaries[i][1];
+		}
+		return flat;
+	}
+
+	private void setBoundaries(final int column, final double[] flat) {
+		double[][] boundaries = new double[flat.length / 2][];
+		for (int i = 0; i < boundaries.length; i++) {
+			boundaries[i] = new double[] { flat[2 * i], flat[2 * i + 1] };
+		}
+		m_columnBoundaries[column] = boundaries;
+	}
+
+	/**
+	 * @return the keys of all cubes, one after the other, and their super cube
+	 *         ids
+	 */
+	private int[][] flattenCubes() {
+		int numDimensions = m_columnNames.length;
+		int[] cubeKeys = new int[m_cubeSuperIds.size() * numDimensions];
+		int[] cubeSuperIds = new int[m_cubeSuperIds.size()];
+		int cube = 0;
+		for (Map.Entry<DENCLUEIndexKey, Integer> entry : m_cubeSuperIds.entrySet()) {
+			for (int i = 0; i < numDimensions; i++) {
+				cubeKeys[cube * numDimensions + i] = entry.getKey().getValue(i);
+			}
+			cubeSuperIds[cube++] = entry.getValue();
+		}
+		return new int[][] { cubeKeys, cubeSuperIds };
+	}
+
+	private void setCubes(final int[] cubeKeys, final int[] cubeSuperIds) throws InvalidSettingsException {
+		int numDimensions = m_columnNames.length;
+		if (cubeKeys.length != cubeSuperIds.length * numDimensions) {
+			throw new InvalidSettingsException("The cube keys of the DENCLUE cluster model don't match its dimensions.");
+		}
+		m_cubeSuperIds = new HashMap<DENCLUEIndexKey, Integer>(cubeSuperIds.length * 4 / 3 + 1);
+		for (int cube = 0; cube < cubeSuperIds.length; cube++) {
+			DENCLUEIndexKey cubeKey = new DENCLUEIndexKey(numDimensions);
+			for (int i = 0; i < numDimensions; i++) {
+				cubeKey.setValue(i, cubeKeys[cube * numDimensions + i]);
+			}
+			m_cubeSuperIds.put(cubeKey, Integer.valueOf(cubeSuperIds[cube]));
+		}
+	}
+
+	private void setSuperCubes(final int[] superClusterIds, final int[] superAttractorStarts) {
+		m_superClusterIds = superClusterIds;
+		m_superAttractorStarts = superAttractorStarts;
+		m_numSuperCubes = superClusterIds.length;
+	}
+
+	private void setAttractors(final double[] attractors, final int[] weights, final double[] densities) {
+		m_attractors = attractors;
+		m_attractorWeights = weights;
+		m_attractorDensities = densities;
+		m_numAttractors = weights.length;
+	}
+}
@@ -0,0 +1,76 @@
+package io.github.blaney83.dencluecluster;
+
+import javax.swing.JComponent;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.port.AbstractSimplePortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.PortTypeRegistry;
+
+/**
+ * Port object exporting a {@link DENCLUEClusterModel} from the DENCLUECluster
+ * node to the DENCLUE predictor.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEClusterModelPortObject extends AbstractSimplePortObject {
+
+	public static final class Serializer extends AbstractSimplePortObjectSerializer<DENCLUEClusterModelPortObject> {
+	}
+
+	public static final PortType TYPE = PortTypeRegistry.getInstance().getPortType(DENCLUEClusterModelPortObject.class);
+
+	private static final String CFGKEY_MODEL = "model";
+
+	private DENCLUEClusterModel m_model;
+
+	private DENCLUEClusterModelPortObjectSpec m_spec;
+
+	/**
+	 * Framework constructor, the model is restored by {@link #load}.
+	 */
+	public DENCLUEClusterModelPortObject() {
+	}
+
+	public DENCLUEClusterModelPortObject(final DENCLUEClusterModel model) {
+		m_model = model;
+		m_spec = new DENCLUEClusterModelPortObjectSpec(model.getColumnNames());
+	}
+
+	public DENCLUEClusterModel getModel() {
+		return m_model;
+	}
+
+	@Override
+	public String getSummary() {
+		return m_model.getNumClusters() + " clusters, " + m_model.getNumAttractors() + " attractors (sigma "
+				+ m_model.getSigma() + ", xi " + m_model.getXi() + ")";
+	}
+
+	@Override
+	public DENCLUEClusterModelPortObjectSpec getSpec() {
+		return m_spec;
+	}
+
+	@Override
+	public JComponent[] getViews() {
+		return new JComponent[0];
+	}
+
+	@Override
+	protected void save(final ModelContentWO model, final ExecutionMonitor exec) throws CanceledExecutionException {
+		m_model.save(model.addModelContent(CFGKEY_MODEL));
+	}
+
+	@Override
+	protected void load(final ModelContentRO model, final PortObjectSpec spec, final ExecutionMonitor exec)
+			throws InvalidSettingsException, CanceledExecutionException {
+		m_model = DENCLUEClusterModel.load(model.getModelContent(CFGKEY_MODEL));
+		m_spec = (DENCLUEClusterModelPortObjectSpec) spec;
+	}
+}
@@ -0,0 +1,55 @@
+package io.github.blaney83.dencluecluster;
+
+import javax.swing.JComponent;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.port.AbstractSimplePortObjectSpec;
+
+/**
+ * Spec of the {@link DENCLUEClusterModelPortObject}: the numeric columns the
+ * model was built on, in the order of its dimensions.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEClusterModelPortObjectSpec extends AbstractSimplePortObjectSpec {
+
+	public static final class Serializer
+			extends AbstractSimplePortObjectSpecSerializer<DENCLUEClusterModelPortObjectSpec> {
+	}
+
+	private static final String CFGKEY_COLUMN_NAMES = "columnNames";
+
+	private String[] m_columnNames;
+
+	/**
+	 * Framework constructor, the spec is restored by {@link #load}.
+	 */
+	public DENCLUEClusterModelPortObjectSpec() {
+		m_columnNames = new String[0];
+	}
+
+	public DENCLUEClusterModelPortObjectSpec(final String[] columnNames) {
+		m_columnNames = columnNames;
+	}
+
+	public String[] getColumnNames() {
+		return m_columnNames;
+	}
+
+	@Override
+	protected void save(final ModelContentWO model) {
+		model.addStringArray(CFGKEY_COLUMN_NAMES, m_columnNames);
+	}
+
+	@Override
+	protected void load(final ModelContentRO model) throws InvalidSettingsException {
+		m_columnNames = model.getStringArray(CFGKEY_COLUMN_NAMES);
+	}
+
+	@Override
+	public JComponent[] getViews() {
+		return new JComponent[0];
+	}
+}
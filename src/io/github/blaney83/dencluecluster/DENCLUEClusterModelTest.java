@@ -0,0 +1,88 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.node.ModelContent;
+
+class DENCLUEClusterModelTest {
+
+	private static final double SIGMA = 0.5;
+
+	private static final double XI = 1;
+
+	/**
+	 * Two columns of cubes [0, 1) to [4, 5): the cube (1, 1) is a cluster around
+	 * (1.5, 1.5), the cube (3, 3) noise.
+	 */
+	private static DENCLUEClusterModel createModel() {
+		double[][] boundaries = DENCLUEGridAssigner.createColumnBoundaries(0, 4, 1);
+		DENCLUEClusterModel model = new DENCLUEClusterModel(new String[] { "x", "y" },
+				new double[][][] { boundaries, boundaries }, SIGMA, XI);
+		model.addSuperCube(0);
+		model.addAttractor(new double[] { 1.5, 1.5 }, 10, 2 * XI);
+		model.addCube(createKey(1, 1), 0);
+		model.addSuperCube(DENCLUEClusterModel.NOISE);
+		model.addAttractor(new double[] { 3.5, 3.5 }, 2, XI / 2);
+		model.addCube(createKey(3, 3), 1);
+		return model;
+	}
+
+	private static DENCLUEIndexKey createKey(final int x, final int y) {
+		DENCLUEIndexKey key = new DENCLUEIndexKey(2);
+		key.setValue(0, x);
+		key.setValue(1, y);
+		return key;
+	}
+
+	@Test
+	void predictsClusterOfCube() {
+		DENCLUEClusterModel model = createModel();
+		assertEquals(0, model.predict(new double[] { 1.4, 1.6 }));
+		assertEquals(DENCLUEClusterModel.NOISE, model.predict(new double[] { 3.5, 3.2 }));
+		// populated by no cube of the clustering
+		assertEquals(DENCLUEClusterModel.NOISE, model.predict(new double[] { 0.5, 4.5 }));
+	}
+
+	@Test
+	void loadsSavedModel() throws Exception {
+		DENCLUEClusterModel model = createModel();
+		ModelContent content = new ModelContent("model");
+		model.save(content);
+		assertModelsEqual(model, DENCLUEClusterModel.load(content));
+	}
+
+	@Test
+	void predictsNoiseOutsideOfGrid() {
+		DENCLUEClusterModel model = createModel();
+		// the cube (0, 1) would be left of the grid, which used to look up the cube (1, 1)
+		assertEquals(DENCLUEClusterModel.NOISE, model.predict(new double[] { -0.5, 1.5 }));
+		assertEquals(DENCLUEClusterModel.NOISE, model.predict(new double[] { 1.5, 5.5 }));
+		assertEquals(DENCLUEClusterModel.NOISE, model.predict(new double[] { Double.NaN, 1.5 }));
+	}
+
+	@Test
+	void computesNoKeyOutsideOfGrid() {
+		double[][] boundaries = DENCLUEGridAssigner.createColumnBoundaries(0, 4, 1);
+		double[][][] columnBoundaries = new double[][][] { boundaries, boundaries };
+		assertEquals(createKey(0, 4), DENCLUEGridAssigner.computeKey(columnBoundaries, new double[] { 0, 4 }));
+		assertNull(DENCLUEGridAssigner.computeKey(columnBoundaries, new double[] { -0.1, 2 }));
+		assertNull(DENCLUEGridAssigner.computeKey(columnBoundaries, new double[] { 2, 5 }));
+	}
+
+	static void assertModelsEqual(final DENCLUEClusterModel expected, final DENCLUEClusterModel actual) {
+		assertArrayEquals(expected.getColumnNames(), actual.getColumnNames());
+		assertEquals(expected.getSigma(), actual.getSigma(), 0);
+		assertEquals(expected.getXi(), actual.getXi(), 0);
+		assertEquals(expected.getNumClusters(), actual.getNumClusters());
+		assertEquals(expected.getNumSuperCubes(), actual.getNumSuperCubes());
+		assertEquals(expected.getNumAttractors(), actual.getNumAttractors());
+		// the cubes, their super cubes and attractors decide every prediction
+		for (double x = 0.25; x < 5; x += 0.5) {
+			for (double y = 0.25; y < 5; y += 0.5) {
+				double[] featureVector = new double[] { x, y };
+				assertEquals(expected.predict(featureVector), actual.predict(featureVector));
+			}
+		}
+	}
+}
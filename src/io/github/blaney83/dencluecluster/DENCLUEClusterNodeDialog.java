@@ -1,8 +1,14 @@
 package io.github.blaney83.dencluecluster;
 
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.DialogComponentString;
+import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
 
 
 
@@ -36,11 +42,92 @@ public class DENCLUEClusterNodeDialog extends DefaultNodeSettingsPane {
 				new SettingsModelDoubleBounded(DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE, DENCLUEClusterNodeModel.DEFAULT_SIGMA_VALUE, 0, Double.MAX_VALUE), 
 				"Select a sigma; (point influence factor)", .03
 		));
-		
+
+		addDialogComponent(new DialogComponentBoolean(
+				new SettingsModelBoolean(DENCLUEClusterNodeModel.CFGKEY_AUTO_SIGMA, DENCLUEClusterNodeModel.DEFAULT_AUTO_SIGMA),
+				"Estimate sigma from a sample of the rows; (replaces sigma above)"
+		));
+
 		addDialogComponent(new DialogComponentNumber(
 				new SettingsModelDoubleBounded(DENCLUEClusterNodeModel.CFGKEY_XI_VALUE, DENCLUEClusterNodeModel.DEFAULT_XI_VALUE, 0, Double.MAX_VALUE), 
 				"Select a xi; (min density level for density-attractor to be significant)", .03
-		));                    
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelIntegerBounded(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, DENCLUEClusterNodeModel.DEFAULT_NUM_THREADS, 1, Integer.MAX_VALUE), 
+				"Number of threads for the grid assignment and clustering; (1 = sequential)", 1
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelDoubleBounded(DENCLUEClusterNodeModel.CFGKEY_MIN_CUBE_OCCUPANCY, DENCLUEClusterNodeModel.DEFAULT_MIN_CUBE_OCCUPANCY, 0, Double.MAX_VALUE), 
+				"Minimum rows per populated cube, wider cubes if fewer; (0 = cubes 2 sigma wide)", 1
+		));
+
+		addDialogComponent(new DialogComponentStringSelection(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_CUBE_INDEX, DENCLUEClusterNodeModel.DEFAULT_CUBE_INDEX), 
+				"Cube index", DENCLUECubeIndex.INDEX_HASH, DENCLUECubeIndex.INDEX_BPLUS_TREE
+		));
+
+		addDialogComponent(new DialogComponentStringSelection(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_NEIGHBOR_SEARCH, DENCLUEClusterNodeModel.DEFAULT_NEIGHBOR_SEARCH), 
+				"Neighbor search", DENCLUEClusterNodeModel.NEIGHBOR_SEARCH_ENUMERATION, DENCLUEClusterNodeModel.NEIGHBOR_SEARCH_SCAN
+		));
+
+		addDialogComponent(new DialogComponentStringSelection(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_FEATURE_STORAGE, DENCLUEClusterNodeModel.DEFAULT_FEATURE_STORAGE), 
+				"Feature vector storage", DENCLUEFeatureStore.STORAGE_HEAP, DENCLUEFeatureStore.STORAGE_MAPPED
+		));
+
+		addDialogComponent(new DialogComponentStringSelection(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_ATTRACTOR_SEARCH, DENCLUEClusterNodeModel.DEFAULT_ATTRACTOR_SEARCH), 
+				"Density attractor search", DENCLUEAttractorSearch.SEARCH_GRADIENT, DENCLUEAttractorSearch.SEARCH_MEAN_SHIFT,
+				DENCLUEAttractorSearch.SEARCH_MEMBER_WALK
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelDoubleBounded(DENCLUEClusterNodeModel.CFGKEY_STEP_SIZE, DENCLUEClusterNodeModel.DEFAULT_STEP_SIZE, Double.MIN_VALUE, Double.MAX_VALUE), 
+				"Hill-climbing step; (fraction of sigma, gradient hill climbing only)", .05
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelIntegerBounded(DENCLUEClusterNodeModel.CFGKEY_MAX_ITERATIONS, DENCLUEClusterNodeModel.DEFAULT_MAX_ITERATIONS, 1, Integer.MAX_VALUE), 
+				"Maximum hill-climbing iterations per point", 10
+		));
+
+		addDialogComponent(new DialogComponentBoolean(
+				new SettingsModelBoolean(DENCLUEClusterNodeModel.CFGKEY_SHARE_ATTRACTORS, DENCLUEClusterNodeModel.DEFAULT_SHARE_ATTRACTORS), 
+				"Assign points within sigma/2 of a climb to its attractor"
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelDoubleBounded(DENCLUEClusterNodeModel.CFGKEY_DENSITY_CUTOFF, DENCLUEClusterNodeModel.DEFAULT_DENSITY_CUTOFF, 0, Double.MAX_VALUE), 
+				"Density cutoff; (multiple of sigma, 0 = sum over all points of a cluster)", .5
+		));
+
+		addDialogComponent(new DialogComponentStringSelection(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_EXECUTION_MODE, DENCLUEClusterNodeModel.DEFAULT_EXECUTION_MODE), 
+				"Execution", DENCLUEClusterNodeModel.EXECUTION_IN_MEMORY, DENCLUEClusterNodeModel.EXECUTION_TWO_PASS
+		));
+
+		addDialogComponent(new DialogComponentNumber(
+				new SettingsModelIntegerBounded(DENCLUEClusterNodeModel.CFGKEY_BATCH_ROWS, DENCLUEClusterNodeModel.DEFAULT_BATCH_ROWS, 1, Integer.MAX_VALUE), 
+				"Rows held per batch in the second pass; (two passes only)", 100000
+		));
+
+		addDialogComponent(new DialogComponentBoolean(
+				new SettingsModelBoolean(DENCLUEClusterNodeModel.CFGKEY_CACHE_RESULTS, DENCLUEClusterNodeModel.DEFAULT_CACHE_RESULTS), 
+				"Keep grid and attractors for re-runs with a new xi; (in memory only)"
+		));
+
+		addDialogComponent(new DialogComponentString(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_SWEEP_SIGMA_VALUES, DENCLUEClusterNodeModel.DEFAULT_SWEEP_SIGMA_VALUES), 
+				"Sweep sigma values; (comma separated, empty = sigma above)"
+		));
+
+		addDialogComponent(new DialogComponentString(
+				new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_SWEEP_XI_VALUES, DENCLUEClusterNodeModel.DEFAULT_SWEEP_XI_VALUES), 
+				"Sweep xi values; (comma separated, empty = xi above)"
+		));
     }
 }
 
@@ -1,14 +1,19 @@
 package io.github.blaney83.dencluecluster;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.knime.core.data.DataCell;
@@ -28,13 +33,31 @@ import org.knime.core.data.def.StringCell;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.defaultnodesettings.SettingsModel;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.streamable.simple.SimpleStreamableOperatorInternals;
 
 /**
  * This is the model implementation of DENCLUECluster. Clusters data using the
@@ -50,322 +73,637 @@ public class DENCLUEClusterNodeModel extends NodeModel {
 
 	static final int IN_PORT = 0;
 
+	static final int MODEL_OUT_PORT = 2;
+
+	static final int METRICS_OUT_PORT = 3;
+
 	static final String OUTPUT_SUMMARY_TABLE_NAME = "Summary Table";
 
+	static final String OUTPUT_SWEEP_TABLE_NAME = "Parameter Sweep";
+
+	static final String INTERNALS_FILE_NAME = "denclue_internals.bin";
+
+	// "DENC"
+	private static final int INTERNALS_MAGIC = 0x44454e43;
+
+	private static final int INTERNALS_VERSION = 1;
+
 	static final String CFGKEY_SIGMA_VALUE = "sigmaValue";
 	static final String CFGKEY_XI_VALUE = "xiValue";
+	static final String CFGKEY_NUM_THREADS = "numThreads";
+	static final String CFGKEY_CUBE_INDEX = "cubeIndex";
+	static final String CFGKEY_NEIGHBOR_SEARCH = "neighborSearch";
+	static final String CFGKEY_FEATURE_STORAGE = "featureStorage";
+	static final String CFGKEY_ATTRACTOR_SEARCH = "attractorSearch";
+	static final String CFGKEY_STEP_SIZE = "stepSize";
+	static final String CFGKEY_MAX_ITERATIONS = "maxIterations";
+	static final String CFGKEY_SHARE_ATTRACTORS = "shareAttractors";
+	static final String CFGKEY_DENSITY_CUTOFF = "densityCutoff";
+	static final String CFGKEY_EXECUTION_MODE = "executionMode";
+	static final String CFGKEY_BATCH_ROWS = "batchRows";
+	static final String CFGKEY_CACHE_RESULTS = "cacheResults";
+	static final String CFGKEY_SWEEP_SIGMA_VALUES = "sweepSigmaValues";
+	static final String CFGKEY_SWEEP_XI_VALUES = "sweepXiValues";
+	static final String CFGKEY_AUTO_SIGMA = "autoSigma";
+	static final String CFGKEY_MIN_CUBE_OCCUPANCY = "minCubeOccupancy";
+
+	static final String NEIGHBOR_SEARCH_ENUMERATION = "Key enumeration";
+	static final String NEIGHBOR_SEARCH_SCAN = "Full scan";
+
+	static final String EXECUTION_IN_MEMORY = "In memory";
+	static final String EXECUTION_TWO_PASS = "Two passes (streaming)";
 
 	static final double DEFAULT_SIGMA_VALUE = .3;
 	static final double DEFAULT_XI_VALUE = .3;
+	static final int DEFAULT_NUM_THREADS = Runtime.getRuntime().availableProcessors();
+	static final String DEFAULT_CUBE_INDEX = DENCLUECubeIndex.INDEX_HASH;
+	static final String DEFAULT_NEIGHBOR_SEARCH = NEIGHBOR_SEARCH_ENUMERATION;
+	static final String DEFAULT_FEATURE_STORAGE = DENCLUEFeatureStore.STORAGE_HEAP;
+	static final String DEFAULT_ATTRACTOR_SEARCH = DENCLUEAttractorSearch.SEARCH_GRADIENT;
+	// fraction of sigma
+	static final double DEFAULT_STEP_SIZE = .1;
+	static final int DEFAULT_MAX_ITERATIONS = 100;
+	static final boolean DEFAULT_SHARE_ATTRACTORS = true;
+	// multiple of sigma, 0 disables the kd-tree
+	static final double DEFAULT_DENSITY_CUTOFF = 4;
+	static final String DEFAULT_EXECUTION_MODE = EXECUTION_IN_MEMORY;
+	static final int DEFAULT_BATCH_ROWS = 1000000;
+	static final boolean DEFAULT_CACHE_RESULTS = true;
+	// comma separated; empty lists disable the sweep
+	static final String DEFAULT_SWEEP_SIGMA_VALUES = "";
+	static final String DEFAULT_SWEEP_XI_VALUES = "";
+	static final boolean DEFAULT_AUTO_SIGMA = false;
+	// rows per populated cube, 0 keeps the cubes 2 sigma wide
+	static final double DEFAULT_MIN_CUBE_OCCUPANCY = 0;
+
+	static final String FLOW_VARIABLE_SIGMA = "DENCLUE sigma";
+
+	static final int CUBE_TREE_BRANCHING_FACTOR = 128;
 
 	private final SettingsModelDoubleBounded m_sigmaValue = new SettingsModelDoubleBounded(
 			DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE, DENCLUEClusterNodeModel.DEFAULT_SIGMA_VALUE, 0,
 			Double.MAX_VALUE);
 	private final SettingsModelDoubleBounded m_xiValue = new SettingsModelDoubleBounded(
 			DENCLUEClusterNodeModel.CFGKEY_XI_VALUE, DENCLUEClusterNodeModel.DEFAULT_XI_VALUE, 0, Double.MAX_VALUE);
+	private final SettingsModelIntegerBounded m_numThreads = new SettingsModelIntegerBounded(
+			DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, DENCLUEClusterNodeModel.DEFAULT_NUM_THREADS, 1,
+			Integer.MAX_VALUE);
+	private final SettingsModelString m_cubeIndex = new SettingsModelString(DENCLUEClusterNodeModel.CFGKEY_CUBE_INDEX,
+			DENCLUEClusterNodeModel.DEFAULT_CUBE_INDEX);
+	private final SettingsModelString m_neighborSearch = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_NEIGHBOR_SEARCH, DENCLUEClusterNodeModel.DEFAULT_NEIGHBOR_SEARCH);
+	private final SettingsModelString m_featureStorage = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_FEATURE_STORAGE, DENCLUEClusterNodeModel.DEFAULT_FEATURE_STORAGE);
+	private final SettingsModelString m_attractorSearch = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_ATTRACTOR_SEARCH, DENCLUEClusterNodeModel.DEFAULT_ATTRACTOR_SEARCH);
+	private final SettingsModelDoubleBounded m_stepSize = new SettingsModelDoubleBounded(
+			DENCLUEClusterNodeModel.CFGKEY_STEP_SIZE, DENCLUEClusterNodeModel.DEFAULT_STEP_SIZE, Double.MIN_VALUE,
+			Double.MAX_VALUE);
+	private final SettingsModelIntegerBounded m_maxIterations = new SettingsModelIntegerBounded(
+			DENCLUEClusterNodeModel.CFGKEY_MAX_ITERATIONS, DENCLUEClusterNodeModel.DEFAULT_MAX_ITERATIONS, 1,
+			Integer.MAX_VALUE);
+	private final SettingsModelBoolean m_shareAttractors = new SettingsModelBoolean(
+			DENCLUEClusterNodeModel.CFGKEY_SHARE_ATTRACTORS, DENCLUEClusterNodeModel.DEFAULT_SHARE_ATTRACTORS);
+	private final SettingsModelDoubleBounded m_densityCutoff = new SettingsModelDoubleBounded(
+			DENCLUEClusterNodeModel.CFGKEY_DENSITY_CUTOFF, DENCLUEClusterNodeModel.DEFAULT_DENSITY_CUTOFF, 0,
+			Double.MAX_VALUE);
+	private final SettingsModelString m_executionMode = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_EXECUTION_MODE, DENCLUEClusterNodeModel.DEFAULT_EXECUTION_MODE);
+	private final SettingsModelIntegerBounded m_batchRows = new SettingsModelIntegerBounded(
+			DENCLUEClusterNodeModel.CFGKEY_BATCH_ROWS, DENCLUEClusterNodeModel.DEFAULT_BATCH_ROWS, 1, Integer.MAX_VALUE);
+	private final SettingsModelBoolean m_cacheResults = new SettingsModelBoolean(
+			DENCLUEClusterNodeModel.CFGKEY_CACHE_RESULTS, DENCLUEClusterNodeModel.DEFAULT_CACHE_RESULTS);
+	private final SettingsModelString m_sweepSigmaValues = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_SWEEP_SIGMA_VALUES, DENCLUEClusterNodeModel.DEFAULT_SWEEP_SIGMA_VALUES);
+	private final SettingsModelString m_sweepXiValues = new SettingsModelString(
+			DENCLUEClusterNodeModel.CFGKEY_SWEEP_XI_VALUES, DENCLUEClusterNodeModel.DEFAULT_SWEEP_XI_VALUES);
+	private final SettingsModelBoolean m_autoSigma = new SettingsModelBoolean(
+			DENCLUEClusterNodeModel.CFGKEY_AUTO_SIGMA, DENCLUEClusterNodeModel.DEFAULT_AUTO_SIGMA);
+	private final SettingsModelDoubleBounded m_minCubeOccupancy = new SettingsModelDoubleBounded(
+			DENCLUEClusterNodeModel.CFGKEY_MIN_CUBE_OCCUPANCY, DENCLUEClusterNodeModel.DEFAULT_MIN_CUBE_OCCUPANCY, 0,
+			Double.MAX_VALUE);
 
 	private int m_numDimensions = 0;
 	private ArrayList<Integer> m_columnIndices = new ArrayList<Integer>();
 	private LinkedHashMap<Integer, DataColumnDomain> m_columnDomains = new LinkedHashMap<Integer, DataColumnDomain>();
+	private String[] m_columnNames = new String[0];
+
+	// execution state; a streamed execution runs the passes of the two-pass
+	// execution as separate iterations over its input, so the state is kept in
+	// between
+	// sigma of the execution, configured or estimated; NaN until it is known
+	private double m_sigma = Double.NaN;
+	// edge length of the cubes of the streamed grid pass, doubled while the grid is
+	// too sparse
+	private double m_cellWidth = Double.NaN;
+	private DENCLUEGridAssigner m_gridAssigner;
+	private DENCLUEClusterRun m_clusterRun;
+	// first super cube of every batch of the second pass, followed by the number of
+	// super cubes
+	private int[] m_batchStarts;
+	// members copied so far per super cube of the current batch
+	private int[] m_batchFill;
+	private int m_streamedPasses = 0;
+	private int m_firstBatchPass = 0;
+	private long m_numRows = 0;
+	// cluster id of every row of the input table, by its position
+	private DENCLUEClusterIdColumn m_rowClusterIds;
+	private ArrayList<Integer> m_clusterSizes;
+	private DENCLUEClusterModel m_clusterModel;
+	// grid and attractors of the last in-memory execution, survives resets
+	private DENCLUEExecutionCache m_executionCache;
+	// sigma estimated for the last in-memory execution, and the table it was
+	// estimated from
+	private double m_sigmaEstimate = Double.NaN;
+	private int m_sigmaEstimateTableId;
+	// time, allocation and counts of the phases of the current execution
+	private DENCLUEPhaseMetrics m_phaseMetrics = new DENCLUEPhaseMetrics();
 
 	/**
 	 * Constructor for the node model.
 	 */
 	protected DENCLUEClusterNodeModel() {
 
-		super(1, 2);
-
-		// export cluster models at 2nd out-port
+		// export cluster models at 3rd out-port, the metrics of the phases at the 4th
+		super(new PortType[] { BufferedDataTable.TYPE }, new PortType[] { BufferedDataTable.TYPE,
+				BufferedDataTable.TYPE, DENCLUEClusterModelPortObject.TYPE, BufferedDataTable.TYPE });
 	}
 
 	@Override
-	protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
-			throws Exception {
+	protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
 
-		BufferedDataTable dataTable = inData[IN_PORT];
-		// Step 1
+		BufferedDataTable dataTable = (BufferedDataTable) inObjects[IN_PORT];
+		if (dataTable.size() > Integer.MAX_VALUE) {
+			throw new ExecutionException(
+					"Tables with more than " + Integer.MAX_VALUE + " rows are not supported by this node.");
+		}
+		// the two-pass execution only keeps per-cube counts and sums in the first pass
+		// and reads the rows again, a batch of super cubes at a time, to cluster them
+		boolean twoPass = EXECUTION_TWO_PASS.equals(m_executionMode.getStringValue());
+		// a parameter sweep shares the rows read for the node's own sigma with the
+		// grids of all other sigmas
+		boolean sweep = isSweep();
+		// the super cubes of the node's sigma, for the sweep
+		DENCLUEExecutionCache sweepCache = null;
+		m_phaseMetrics = new DENCLUEPhaseMetrics();
+		if (m_autoSigma.getBooleanValue()) {
+			m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_SIGMA);
+		}
+		m_sigma = resolveSigma(dataTable, exec);
+		m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_GRID);
+		long gridStart = System.nanoTime();
+		DENCLUEGridAssigner gridAssigner;
+		if (!twoPass && m_cacheResults.getBooleanValue() && m_executionCache != null
+				&& m_executionCache.hasGrid(dataTable.getBufferedTableId(), createGridSettingsKey())) {
+			// same table and grid as the last execution, only xi may have changed
+			gridAssigner = m_executionCache.getGridAssigner();
+			gridAssigner.setXi(m_xiValue.getDoubleValue());
+		} else {
+			closeExecutionCache();
+			gridAssigner = createGridAssigner(2 * m_sigma, m_xiValue.getDoubleValue());
+			gridAssigner.setMaxCubes(getMaxCubes(dataTable.size()));
+			if (twoPass) {
+				gridAssigner.accumulate(dataTable, exec.createSubProgress(0.5));
+				while (gridAssigner.isOverflowed()) {
+					// without stored rows, the table is read again for wider cubes
+					gridAssigner = createGridAssigner(2 * gridAssigner.getCellWidth(), m_xiValue.getDoubleValue());
+					gridAssigner.setMaxCubes(getMaxCubes(dataTable.size()));
+					gridAssigner.accumulate(dataTable, exec.createSubProgress(0));
+				}
+			} else {
+				gridAssigner.assign(dataTable, createFeatureStore(m_columnDomains.size(), (int) dataTable.size()),
+						m_numThreads.getIntValue(), exec.createSubProgress(0.5));
+				gridAssigner = coarsenGrid(gridAssigner, m_xiValue.getDoubleValue(), exec);
+				if (m_cacheResults.getBooleanValue()) {
+					m_executionCache = new DENCLUEExecutionCache(dataTable.getBufferedTableId(),
+							createGridSettingsKey(), gridAssigner);
+				}
+			}
+		}
+		m_numRows = dataTable.size();
+		endGridPhase(gridAssigner);
+		warnIfCoarsened(gridAssigner);
+		long clusterStart = System.nanoTime();
+		buildSuperCubes(gridAssigner);
+
+		m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_CLIMB);
+		if (twoPass) {
+			// second pass: the table is read once per batch of super cubes
+			planBatches();
+			double[] featureVector = new double[m_columnDomains.size()];
+			for (int batch = 0; batch < m_batchStarts.length - 1; batch++) {
+				DENCLUEFeatureStore batchStore = openBatch(batch);
+				try {
+					int rowIndex = 0;
+					for (DataRow row : dataTable) {
+						addBatchRow(gridAssigner, batch, batchStore, row, rowIndex++, featureVector);
+					}
+					exec.checkCanceled();
+					clusterBatch(batch, exec.createSubProgress(0.5 / (m_batchStarts.length - 1)));
+				} finally {
+					batchStore.close();
+				}
+			}
+			m_clusterRun.close();
+		} else {
+			m_clusterRun.clusterSuperCubes(gridAssigner, m_executionCache != null || sweep, exec.createSubProgress(0.5));
+			if (m_executionCache != null) {
+				m_clusterRun.updateCache(m_executionCache);
+				sweepCache = m_executionCache;
+			} else if (sweep) {
+				// the sweep re-labels the super cubes of the node's sigma for other xis
+				sweepCache = new DENCLUEExecutionCache(0, "", gridAssigner);
+				m_clusterRun.updateCache(sweepCache);
+			}
+			m_clusterRun.close();
+		}
+		endClimbPhase();
+		long clusterEnd = System.nanoTime();
 
-		// Turn all rows into feature vectors (postponed/not needed at this time)
+		// Assign Clusters and return qualified table
+		m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_LABEL);
+		BufferedDataTable bufferedDataTable = exec.createColumnRearrangeTable(dataTable,
+				createClusterColumnRearranger(dataTable.getDataTableSpec()), exec);
+		m_phaseMetrics.end();
+		// Cluster Membership Totals, or one row per configuration of the sweep
+		BufferedDataContainer container;
+		if (sweep) {
+			m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_SWEEP);
+			container = exec.createDataContainer(createSweepTableSpec());
+			for (DataRow sweepRow : executeSweep(gridAssigner, sweepCache, (clusterStart - gridStart) / 1e6,
+					(clusterEnd - clusterStart) / 1e6, exec)) {
+				container.addRowToTable(sweepRow);
+			}
+			if (m_executionCache == null) {
+				if (sweepCache != null) {
+					sweepCache.closeSuperCubes();
+				}
+				// the grids of the other sigmas only borrowed the rows
+				gridAssigner.getFeatureStore().close();
+				gridAssigner.closeRowCubeIds();
+			}
+			m_phaseMetrics.end();
+		} else {
+			container = exec.createDataContainer(createSummaryTableSpec());
+			for (DataRow summaryRow : createSummaryRows()) {
+				container.addRowToTable(summaryRow);
+			}
+		}
 
-		// Create d-dimensional hyper cubes, each with nFeatureVectorMembers- pointers
-		// at feature vectors
-		// n-number of members
-		// nSum- linear sum of feature vectors
-		double[] hyperCubeDimensions = new double[m_columnDomains.size()];
-		double totalHyperCubes = 1;
-		Map<Integer, double[][]> m_hyperCubeBoundaries = new LinkedHashMap<Integer, double[][]>();
+		// finally close the container and get the result table.
+		container.close();
+		BufferedDataTable bufferedSummaryTable = container.getTable();
+		if (m_autoSigma.getBooleanValue()) {
+			pushFlowVariableDouble(FLOW_VARIABLE_SIGMA, m_sigma);
+		}
 
-		int indexCount = 0;
-		// potentially move this index creation to the configure method
-		for (Map.Entry<Integer, DataColumnDomain> entry : m_columnDomains.entrySet()) {
+		BufferedDataContainer metricsContainer = exec.createDataContainer(DENCLUEPhaseMetrics.createTableSpec());
+		for (DataRow metricsRow : m_phaseMetrics.createRows()) {
+			metricsContainer.addRowToTable(metricsRow);
+		}
+		metricsContainer.close();
 
-			double colLowerBound = ((DoubleCell) entry.getValue().getLowerBound()).getDoubleValue();
-			double colUpperBound = ((DoubleCell) entry.getValue().getUpperBound()).getDoubleValue();
+		return new PortObject[] { bufferedDataTable, bufferedSummaryTable,
+				new DENCLUEClusterModelPortObject(m_clusterModel), metricsContainer.getTable() };
+	}
 
-			double columnRange = Math.abs(colUpperBound) + Math.abs(colLowerBound);
-			double hyperCubeColumnNumber = columnRange / (2 * m_sigmaValue.getDoubleValue());
-			totalHyperCubes *= hyperCubeColumnNumber;
-			hyperCubeDimensions[indexCount] = hyperCubeColumnNumber;
+	private void endGridPhase(final DENCLUEGridAssigner gridAssigner) {
+		DENCLUEDiagnostics counts = new DENCLUEDiagnostics();
+		counts.add(DENCLUEDiagnostics.Counter.POPULATED_CUBES, gridAssigner.getAllCubes().size());
+		counts.add(DENCLUEDiagnostics.Counter.DENSE_CUBES, gridAssigner.getDenseCubes().size());
+		m_phaseMetrics.end(counts, DENCLUEDiagnostics.Counter.POPULATED_CUBES,
+				DENCLUEDiagnostics.Counter.DENSE_CUBES);
+	}
 
-			double[][] m_columnBoundaries = new double[(int) Math.ceil(hyperCubeColumnNumber)][2];
+	private void endClimbPhase() {
+		m_phaseMetrics.end(m_clusterRun.getCounts(), DENCLUEDiagnostics.Counter.CLIMBS,
+				DENCLUEDiagnostics.Counter.CLIMB_ITERATIONS, DENCLUEDiagnostics.Counter.DENSITY_EVALUATIONS);
+	}
 
-			double currentLowBound = colLowerBound;
-			for (int i = 0; i < hyperCubeColumnNumber; i++) {
-				if (currentLowBound <= colUpperBound) {
-					double[] colBounds = new double[] { currentLowBound,
-							currentLowBound + (i * (2 * m_sigmaValue.getDoubleValue())) };
-					m_columnBoundaries[i] = colBounds;
-				}
-				currentLowBound += (2 * m_sigmaValue.getDoubleValue());
-			}
-			m_hyperCubeBoundaries.put(entry.getKey(), m_columnBoundaries);
-			indexCount++;
-		}
-		// choosing the "order" of the b+ tree using the total records/ size of key in
-		// Bytes - 1
-		// may need further optimization later on
-		int branchingFactor = (int) ((dataTable.size()) / ((m_hyperCubeBoundaries.size() * 4) - 1));
-		branchingFactor = 4;
-		// STORE CUBES OR KEYS (CHOOSE LATER BASED ON PERFORMANCE)
-		// x subset of allCubes such that x has no set membership with denseCubes; x =
-		// sparsely populated cubes
-		// highly populated cube keys
-		ArrayList<DENCLUEIndexKey> denseCubeKeys = new ArrayList<DENCLUEIndexKey>();
-		// all populated cube keys
-		ArrayList<DENCLUEIndexKey> allCubeKeys = new ArrayList<DENCLUEIndexKey>();
-		// highly populated cubes
-		ArrayList<DENCLUEHyperCube> denseCubes = new ArrayList<DENCLUEHyperCube>();
-		// all populated cubes
-		ArrayList<DENCLUEHyperCube> allCubes = new ArrayList<DENCLUEHyperCube>();
-
-//		DENCLUEBPlusTree<int[], DENCLUEHyperCube> bTree = new DENCLUEBPlusTree<int[], DENCLUEHyperCube>(
-		DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUEHyperCube> bTree = new DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUEHyperCube>(
-				branchingFactor);
-		// potentially expand to multi-threaded index searching for row feature vectors
-		// also, explore bulk loading for HyperCubes into B+ tree
+	/**
+	 * The sigma of the execution: the configured one, or estimated from a sample
+	 * of the table, which is read once more for it unless it was estimated for the
+	 * same table before.
+	 */
+	private double resolveSigma(final BufferedDataTable dataTable, final ExecutionMonitor exec)
+			throws CanceledExecutionException {
+		if (!m_autoSigma.getBooleanValue()) {
+			return m_sigmaValue.getDoubleValue();
+		}
+		if (!Double.isNaN(m_sigmaEstimate) && m_sigmaEstimateTableId == dataTable.getBufferedTableId()) {
+			return m_sigmaEstimate;
+		}
+		DENCLUESigmaEstimator estimator = createSigmaEstimator();
+		long rowIndex = 0;
 		for (DataRow row : dataTable) {
-			DENCLUEIndexKey indexedKey = new DENCLUEIndexKey(m_hyperCubeBoundaries.size());
-			double[] featureVector = new double[m_hyperCubeBoundaries.size()];
-			int count = 0;
-			System.out.print(" " + row.getKey() + "  " + indexedKey.toString() + " COUNT " + count);
-
-			for (Map.Entry<Integer, double[][]> entry : m_hyperCubeBoundaries.entrySet()) {
-				double rowColVal = ((DoubleCell) row.getCell(entry.getKey())).getDoubleValue();
-				System.out.print(rowColVal + " , ");
-				featureVector[count] = rowColVal;
-				// binary search
-				int lowInd = 0;
-				int highInd = entry.getValue().length;
-				while (lowInd < highInd) {
-					int middleInd = (highInd + lowInd) / 2;
-					if (entry.getValue()[middleInd][0] > rowColVal) {
-						highInd = middleInd;
-					} else if (entry.getValue()[middleInd][1] <= rowColVal) {
-						lowInd = middleInd + 1;
-					} else {
-						indexedKey.setValue(count, middleInd);
-						break;
-					}
-				}
-				count++;
+			estimator.addRow(row);
+			if (++rowIndex % DENCLUEGridAssigner.CHUNK_SIZE == 0) {
+				exec.checkCanceled();
 			}
-			DENCLUEHyperCube rowMasterCube = bTree.search(indexedKey);
-			System.out.print(" " + row.getKey() + "  " + indexedKey.toString());
-			System.out.println();
-			if (rowMasterCube != null) {
-				System.out.println("OLD CUBE");
-				boolean isHighlyPopulated = rowMasterCube.addMember(row.getKey(), featureVector);
-				if (isHighlyPopulated) {
-					denseCubeKeys.add(indexedKey);
-					denseCubes.add(rowMasterCube);
-				}
-			} else {
-				System.out.println("NEW CUBE");
-				rowMasterCube = new DENCLUEHyperCube(indexedKey, row.getKey(), featureVector,
-						m_xiValue.getDoubleValue());
-				bTree.insert(indexedKey, rowMasterCube);
-				allCubeKeys.add(indexedKey);
-				allCubes.add(rowMasterCube);
+		}
+		m_sigmaEstimate = estimateSigma(estimator);
+		m_sigmaEstimateTableId = dataTable.getBufferedTableId();
+		return m_sigmaEstimate;
+	}
+
+	private DENCLUESigmaEstimator createSigmaEstimator() {
+		int[] columnIndices = new int[m_columnDomains.size()];
+		int count = 0;
+		for (Integer columnIndex : m_columnDomains.keySet()) {
+			columnIndices[count++] = columnIndex;
+		}
+		return new DENCLUESigmaEstimator(columnIndices);
+	}
+
+	private double estimateSigma(final DENCLUESigmaEstimator estimator) {
+		double sigma = estimator.estimate();
+		if (Double.isNaN(sigma)) {
+			setWarningMessage("Sigma could not be estimated from the rows, the configured sigma "
+					+ m_sigmaValue.getDoubleValue() + " is used.");
+			return m_sigmaValue.getDoubleValue();
+		}
+		return sigma;
+	}
+
+	/**
+	 * The number of populated cubes a grid may reach before it is coarsened: the
+	 * rows divided by the minimum rows per populated cube.
+	 */
+	private int getMaxCubes(final long numRows) {
+		double minOccupancy = m_minCubeOccupancy.getDoubleValue();
+		if (minOccupancy <= 0) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, numRows / minOccupancy));
+	}
+
+	/**
+	 * Reassigns the rows stored by an overflowed grid to grids of doubled cube
+	 * width until one has few enough populated cubes. In high dimensions, cubes 2
+	 * sigma wide hold almost one row each and connecting them is quadratic in
+	 * the rows; a wider cube joins the rows of up to 2^d narrower ones.
+	 */
+	private DENCLUEGridAssigner coarsenGrid(final DENCLUEGridAssigner gridAssigner, final double xi,
+			final ExecutionMonitor exec) throws CanceledExecutionException, IOException {
+		DENCLUEGridAssigner coarseGrid = gridAssigner;
+		while (coarseGrid.isOverflowed()) {
+			DENCLUEFeatureStore featureStore = coarseGrid.getFeatureStore();
+			// the rows move on to the wider cubes
+			coarseGrid.closeRowCubeIds();
+			coarseGrid = createGridAssigner(2 * coarseGrid.getCellWidth(), xi);
+			coarseGrid.setMaxCubes(getMaxCubes(featureStore.getNumRows()));
+			coarseGrid.assignStored(featureStore, exec);
+		}
+		return coarseGrid;
+	}
+
+	private void warnIfCoarsened(final DENCLUEGridAssigner gridAssigner) {
+		if (gridAssigner.getCellWidth() > 2 * m_sigma) {
+			setWarningMessage("The grid was coarsened to cubes " + gridAssigner.getCellWidth() / m_sigma
+					+ " sigma wide, to keep at least " + m_minCubeOccupancy.getDoubleValue()
+					+ " rows per populated cube.");
+		}
+	}
+
+	/**
+	 * Creates the grid over the domains of the numeric columns, with cubes of the
+	 * given edge length (2 sigma unless coarsened), and the assigner placing rows
+	 * into its cubes.
+	 */
+	private DENCLUEGridAssigner createGridAssigner(final double cellWidth, final double xi) {
+		Map<Integer, double[][]> hyperCubeBoundaries = new LinkedHashMap<Integer, double[][]>();
+		for (Map.Entry<Integer, DataColumnDomain> entry : m_columnDomains.entrySet()) {
+			double colLowerBound = ((DoubleValue) entry.getValue().getLowerBound()).getDoubleValue();
+			double colUpperBound = ((DoubleValue) entry.getValue().getUpperBound()).getDoubleValue();
+			hyperCubeBoundaries.put(entry.getKey(),
+					DENCLUEGridAssigner.createColumnBoundaries(colLowerBound, colUpperBound, cellWidth));
+		}
+		// the cube index is either the b+ tree or the open-addressing hash table; a wide
+		// tree keeps the b+ tree shallow (an order of 4 made it very deep on large
+		// tables)
+		// rows are assigned to cubes on m_numThreads threads; a single thread keeps the
+		// original sequential pass
+		DENCLUEGridAssigner gridAssigner = new DENCLUEGridAssigner(hyperCubeBoundaries, cellWidth, xi,
+				createCubeIndex(CUBE_TREE_BRANCHING_FACTOR));
+		// the work of the threads counts towards the phase metrics
+		gridAssigner.setThreadFactory(m_phaseMetrics.getWorkerThreadFactory());
+		return gridAssigner;
+	}
+
+	/**
+	 * Starts the clustering run with the settings of the node on the assigned
+	 * grid: connects its cubes into super cubes and creates the cluster id column
+	 * that clustering the super cubes fills.
+	 */
+	private void buildSuperCubes(final DENCLUEGridAssigner gridAssigner) throws ExecutionException, IOException {
+		if (gridAssigner.getDenseCubes().size() < 1) {
+			if (!isSweep()) {
+				throw new ExecutionException(
+						"The parameters used in your search classified all data as noise. Please re-evaluate your parameter choices and "
+								+ "re-execute this node.");
 			}
+			// the other configurations of the sweep may still find clusters
+			setWarningMessage("Sigma " + m_sigma + " and xi " + m_xiValue.getDoubleValue()
+					+ " classified all data as noise.");
 		}
+		m_clusterRun = createClusterRun(m_sigma, m_xiValue.getDoubleValue(), true, m_numThreads.getIntValue());
+		m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_CONNECT);
+		m_clusterRun.connectCubes(gridAssigner);
+		m_phaseMetrics.end();
+		m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_MERGE);
+		closeRowClusterIds();
+		m_rowClusterIds = createClusterIdColumn((int) m_numRows);
+		m_clusterRun.buildSuperCubes(gridAssigner, m_rowClusterIds, m_executionCache);
+		DENCLUEDiagnostics counts = new DENCLUEDiagnostics();
+		counts.add(DENCLUEDiagnostics.Counter.SUPER_CUBES, m_clusterRun.getSuperCubes().size());
+		m_phaseMetrics.end(counts, DENCLUEDiagnostics.Counter.SUPER_CUBES);
+		m_clusterSizes = m_clusterRun.getClusterSizes();
+		m_clusterModel = m_clusterRun.getClusterModel();
+	}
 
-		if (denseCubes.size() < 1) {
-			throw new ExecutionException(
-					"The parameters used in your search classified all data as noise. Please re-evaluate your parameter choices and "
-							+ "re-execute this node.");
-		}
-		// Complexity Csp * Cp; Csp << Cp
-		for (DENCLUEHyperCube cube : denseCubes) {
-			for (DENCLUEHyperCube sparseCube : allCubes) {
-				if (!cube.equals(sparseCube)) {
-					if (cube.isNeighbor(sparseCube)) {
-						if (cube.isConnected(sparseCube, m_sigmaValue.getDoubleValue())) {
-							cube.addNeighbor(sparseCube.getCubeKey());
-						}
-					}
+	private DENCLUEClusterRun createClusterRun(final double sigma, final double xi, final boolean keepResults,
+			final int numThreads) {
+		DENCLUEClusterRun clusterRun = new DENCLUEClusterRun(sigma, xi,
+				NEIGHBOR_SEARCH_SCAN.equals(m_neighborSearch.getStringValue()), m_attractorSearch.getStringValue(),
+				m_stepSize.getDoubleValue(), m_maxIterations.getIntValue(), m_shareAttractors.getBooleanValue(),
+				m_densityCutoff.getDoubleValue(), m_columnNames, keepResults, numThreads);
+		// the work of the threads counts towards the phase metrics
+		clusterRun.setThreadFactory(m_phaseMetrics.getForkJoinWorkerThreadFactory());
+		return clusterRun;
+	}
+
+	/**
+	 * Clusters every combination of the sweep's sigma and xi values, one task per
+	 * sigma on up to the configured number of threads. The grid of every sigma is
+	 * assigned from the rows the node's own grid already read into its feature
+	 * store, and re-thresholded for each xi; super cubes made of the same cubes as
+	 * for an earlier xi keep their attractors. The node's own sigma starts from
+	 * the super cubes the node clustered. Only the counts of a configuration are
+	 * kept, the node's own configuration is taken from its execution.
+	 *
+	 * @param nodeCache the super cubes clustered by the node, on its grid
+	 */
+	private ArrayList<DataRow> executeSweep(final DENCLUEGridAssigner gridAssigner,
+			final DENCLUEExecutionCache nodeCache, final double gridMillis, final double clusterMillis,
+			final ExecutionContext exec) throws Exception {
+		double[] sigmas = getSweepValues(m_sweepSigmaValues, CFGKEY_SWEEP_SIGMA_VALUES, m_sigma);
+		double[] xis = getSweepValues(m_sweepXiValues, CFGKEY_SWEEP_XI_VALUES, m_xiValue.getDoubleValue());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(m_numThreads.getIntValue(), sigmas.length),
+				m_phaseMetrics.getWorkerThreadFactory());
+		try {
+			ArrayList<Future<DataCell[][]>> sigmaRows = new ArrayList<Future<DataCell[][]>>();
+			for (double sigma : sigmas) {
+				sigmaRows.add(pool
+						.submit(createSweepTask(sigma, xis, gridAssigner, nodeCache, gridMillis, clusterMillis, exec)));
+			}
+			ArrayList<DataRow> sweepRows = new ArrayList<DataRow>();
+			for (int i = 0; i < sigmas.length; i++) {
+				for (DataCell[] cells : sigmaRows.get(i).get()) {
+					sweepRows.add(new DefaultRow(new RowKey("Row" + sweepRows.size()), cells));
 				}
+				exec.checkCanceled();
+				exec.setProgress(0.5 + 0.5 * (i + 1) / sigmas.length, "Swept sigma " + sigmas[i]);
 			}
+			return sweepRows;
+		} finally {
+			pool.shutdownNow();
 		}
-		// this new btree will hold all clusters and old btree after loop will be noise
-		// cluster holding only sparse noise cubes
-//		int clusterFactor = (int) ((denseCubes.size()) / ((m_hyperCubeBoundaries.size() * 4) - 1));
-		int clusterFactor = 10;
-		DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUEHyperCube> clusterTree = new DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUEHyperCube>(
-				clusterFactor);
-
-		// consolidating cubes based on their neighbors. Deleting old cubes as they are
-		// merged and checking for partially merged
-		// super-hyper cubes
-		// getNeighborCells NOT CORRECT COLLECTION (need to add fnality to store
-		// neighbors)
-		Set<DENCLUEIndexKey> alreadyProcessedCubes = new HashSet<DENCLUEIndexKey>();
-
-		Iterator<DENCLUEHyperCube> iter = denseCubes.iterator();
-		while (iter.hasNext()) {
-			DENCLUEHyperCube cube = iter.next();
-			if (alreadyProcessedCubes.contains(cube.getCubeKey())) {
-				iter.remove();
-			}
-			for (DENCLUEIndexKey indexKey : cube.getNeighborCubes()) {
-				DENCLUEHyperCube mergingCube = bTree.search(indexKey);
-				DENCLUEHyperCube potentialSuperCube = clusterTree.search(indexKey);
-				if (potentialSuperCube != null) {
-					cube.mergeNeighbor(potentialSuperCube);
-					// prevent duplicate, already merged cubes from existing in clusterTree
-					clusterTree.delete(indexKey);
-					// prune lists of dense cubes to match with merged cubes
-					if (denseCubes.contains(potentialSuperCube)) {
-//						iter.remove();
-//						denseCubes.remove(potentialSuperCube);
-						alreadyProcessedCubes.add(potentialSuperCube.getCubeKey());
-						denseCubeKeys.remove(indexKey);
+	}
+
+	private Callable<DataCell[][]> createSweepTask(final double sigma, final double[] xis,
+			final DENCLUEGridAssigner nodeGrid, final DENCLUEExecutionCache nodeCache, final double nodeGridMillis,
+			final double nodeClusterMillis, final ExecutionMonitor exec) {
+		return new Callable<DataCell[][]>() {
+			@Override
+			public DataCell[][] call() throws Exception {
+				double nodeXi = m_xiValue.getDoubleValue();
+				DENCLUEGridAssigner grid = nodeGrid;
+				double gridMillis = nodeGridMillis;
+				if (sigma != m_sigma) {
+					long gridStart = System.nanoTime();
+					grid = createGridAssigner(2 * sigma, nodeXi);
+					grid.setMaxCubes(getMaxCubes(nodeGrid.getFeatureStore().getNumRows()));
+					grid.assignStored(nodeGrid.getFeatureStore(), exec);
+					grid = coarsenGrid(grid, nodeXi, exec);
+					gridMillis = (System.nanoTime() - gridStart) / 1e6;
+				}
+				// only the super cubes are cached, the rows of the grid are borrowed; on the
+				// node's grid, the super cubes the node clustered are looked up first
+				DENCLUEExecutionCache sigmaCache = grid == nodeGrid && nodeCache != null ? nodeCache
+						: new DENCLUEExecutionCache(0, "", grid);
+				DataCell[][] rows = new DataCell[xis.length][];
+				try {
+					for (int i = 0; i < xis.length; i++) {
+						exec.checkCanceled();
+						long clusterStart = System.nanoTime();
+						grid.setXi(xis[i]);
+						if (grid == nodeGrid && xis[i] == nodeXi) {
+							rows[i] = createSweepCells(grid, m_clusterRun, gridMillis, nodeClusterMillis);
+							continue;
+						}
+						// the sweep already runs one task per sigma
+						DENCLUEClusterRun run = createClusterRun(sigma, xis[i], false, 1);
+						run.connectCubes(grid);
+						run.buildSuperCubes(grid, null, sigmaCache);
+						// progress is only reported per sigma, from the node's thread
+						run.clusterSuperCubes(grid, true, exec.createSilentSubProgress(0));
+						run.updateCache(sigmaCache);
+						run.close();
+						rows[i] = createSweepCells(grid, run, gridMillis, (System.nanoTime() - clusterStart) / 1e6);
 					}
-				} else if (mergingCube != null) {
-					cube.mergeNeighbor(mergingCube);
-					// b-tree now becomes home of noise cluster members
-					// TEMP ON HOLD
-//					bTree.delete(indexKey);
-					// prune lists of dense cubes to match with merged cubes
-					if (denseCubes.contains(mergingCube)) {
-//						iter.remove();
-//						denseCubes.remove(mergingCube);
-						alreadyProcessedCubes.add(mergingCube.getCubeKey());
-						denseCubeKeys.remove(indexKey);
+				} finally {
+					if (sigmaCache != nodeCache) {
+						sigmaCache.closeSuperCubes();
+					}
+					if (grid == nodeGrid) {
+						grid.setXi(nodeXi);
+					} else {
+						grid.closeRowCubeIds();
 					}
 				}
-				// need to remove dense cubes that are merged with another dense cube from
-				// denseCube list
-			}
-			// b-tree now becomes home of noise cluster members
-			// TEMP ON HOLD
-//			bTree.delete(cube.getCubeKey());
-			clusterTree.insert(cube.getCubeKey(), cube);
-		}
-
-		// in theory at this point, we have merged supercubes and sporadic noise cubes
-		// in two separate b+ search trees and
-		// part 1 is complete...
-
-		// TODO PART1
-
-		// possibly create class IndexedKey implementing Comparable to check for matches
-		// to the key- DONE
-		// the first .equals check could be if sum1 != sum2 return false to speed
-		// evaluation time- NOT NEEDED
-		// then for each int in both int[]1 and int[]2 stop evaluation at first
-		// mis-match- ACHIEVED WITH POINT ONE
-		// this could extend the ability of the node to handle dimensionality > 20 as in
-		// higher- ACHIEVED WITH POINT ONE
-		// dimensions the joined integer value of indicies would exceed Integer.MAX-
-		// AVOIDED
-
-		// combine iterations where possible to improve performance
-
-		// may need to change cube collections to sets
-
-		// j-unit tests for part 1
-
-		// Step 2
-
-		// consider all highly populated cube + their connected cubes exist as:
-		// C_sp(highly pop. hypercubes) or c(h-cubes) in C_p (total cubes) such that
-		// there exists c_s (a cluster) as
-		// an element of C_sp and there exists a connection (c_s, c)
-
-		ArrayList<Set<RowKey>> clusters = new ArrayList<Set<RowKey>>();
-		Set<RowKey> noise = new HashSet<RowKey>();
-
-		for (DENCLUEIndexKey key : denseCubeKeys) {
-			DENCLUEHyperCube joinedCube = clusterTree.search(key);
-			// 2.1- create set near(x) | d(mean(c),x^i) <= k*little sigma : k = 4 (arbt.) |
-			// near(x){ x^0.dist >> x^n.dist }
-			// 2.2- build local density fn f-hat^D_gauss(x) for cube c = gaussian density fn
-			// = sum of all infl. fns for near(x)
-			// as sum(e*(-((d(x^i,x^(i+1)))^2/(2(littleSigma^2))))) for near(x) feature
-			// vectors (x^i) in super-hypercube C
-			// 2.3- gradient hill-climbing
-			// for near(x){x^i...x^n}; x=x^0; x*(density attr)=x^i for cluster C
-			// while(f-hat(x^i+1)>=f-hat(x^i))
-			// if(f-hat(x^i+1)-f-hat(x^i)<= (littleSigma/2) add x^i to set{cluster(x*)}
-			if (joinedCube != null) {
-				boolean result = joinedCube.clusterHyperCube(m_sigmaValue.getDoubleValue(), m_xiValue.getDoubleValue());
-				if (result) {
-					clusters.add(joinedCube.getClusterRows());
-					noise.addAll(joinedCube.getNoiseRows());
-				} else {
-					// default add all members to noise (xi value chosen improperly by user, or no
-					// clusters exist)
-					noise.addAll(joinedCube.getMemberRows());
-				}
+				return rows;
 			}
-		}
-		//TEMP ON HOLD: due to problems removing cubes from btree, it does not currently serve as the noise
-		//cluster
-//		for (DENCLUEIndexKey cubeKey : allCubeKeys) {
-//			DENCLUEHyperCube noiseCube = bTree.search(cubeKey);
-//			if (noiseCube != null) {
-//				noise.addAll(noiseCube.getMemberRows());
-//			}
-//		}
-		// Step 3
-
-		// Assign Clusters and return qualified table
-		CellFactory clusterColumnCellFactory = new DENCLUECellFactory(createClusterColumnSpec(), clusters, noise);
-		ColumnRearranger outputDataTable = new ColumnRearranger(inData[IN_PORT].getDataTableSpec());
-		outputDataTable.append(clusterColumnCellFactory);
-		BufferedDataTable bufferedDataTable = exec.createColumnRearrangeTable(inData[IN_PORT], outputDataTable, exec);
-		// CURRENT: Cluster Membership Totals
-		// FUTURE: for x*, create model and export at out-port 2
-		BufferedDataContainer container = exec.createDataContainer(createSummaryTableSpec());
+		};
+	}
 
-		// add arbitrary number of rows to the container
-		DataRow firstRow = new DefaultRow(new RowKey("Noise"), new DataCell[] { new IntCell(noise.size()) });
-		container.addRowToTable(firstRow);
+	private DataCell[] createSweepCells(final DENCLUEGridAssigner gridAssigner, final DENCLUEClusterRun run,
+			final double gridMillis, final double clusterMillis) {
+		return new DataCell[] { new DoubleCell(run.getSigma()), new DoubleCell(run.getXi()),
+				new IntCell(run.getClusterSizes().size()), new IntCell(run.getNumClusterRows()),
+				new IntCell((int) m_numRows - run.getNumClusterRows()), new IntCell(gridAssigner.getAllCubes().size()),
+				new IntCell(gridAssigner.getDenseCubes().size()), new DoubleCell(gridAssigner.getCellWidth()),
+				new DoubleCell(gridMillis),
+				new DoubleCell(clusterMillis) };
+	}
 
-		int i = 0;
-		for (Set<RowKey> clusterSet : clusters) {
-			DataRow newRow = new DefaultRow(new RowKey("Cluster_" + i),
-					new DataCell[] { new IntCell(clusterSet.size()) });
-			container.addRowToTable(newRow);
-			i++;
-		}
+	private boolean isSweep() {
+		return !m_sweepSigmaValues.getStringValue().trim().isEmpty()
+				|| !m_sweepXiValues.getStringValue().trim().isEmpty();
+	}
 
-		// finally close the container and get the result table.
-		container.close();
-		BufferedDataTable bufferedSummaryTable = container.getTable();
+	/**
+	 * @return the values of the sweep list, or only the node's own value if the
+	 *         list is empty
+	 */
+	private static double[] getSweepValues(final SettingsModelString sweepValues, final String name,
+			final double nodeValue) throws InvalidSettingsException {
+		double[] values = parseSweepValues(sweepValues.getStringValue(), name);
+		return values.length == 0 ? new double[] { nodeValue } : values;
+	}
 
-		return new BufferedDataTable[] { bufferedDataTable, bufferedSummaryTable };
+	/**
+	 * Parses a comma separated list of positive values, duplicates removed.
+	 */
+	static double[] parseSweepValues(final String sweepValues, final String name) throws InvalidSettingsException {
+		ArrayList<Double> values = new ArrayList<Double>();
+		for (String value : sweepValues.split(",")) {
+			if (value.trim().isEmpty()) {
+				continue;
+			}
+			double parsed;
+			try {
+				parsed = Double.parseDouble(value.trim());
+			} catch (NumberFormatException e) {
+				throw new InvalidSettingsException("\"" + value.trim() + "\" in " + name + " is not a number.");
+			}
+			if (!(parsed > 0) || Double.isInfinite(parsed)) {
+				throw new InvalidSettingsException("The values in " + name + " must be positive.");
+			}
+			if (!values.contains(parsed)) {
+				values.add(parsed);
+			}
+		}
+		double[] parsedValues = new double[values.size()];
+		for (int i = 0; i < parsedValues.length; i++) {
+			parsedValues[i] = values.get(i);
+		}
+		return parsedValues;
 	}
 
 	@Override
 	protected void reset() {
+		// the execution cache is kept on purpose: a reset follows every change of
+		// the settings, the cache decides on the next execution what is still valid
+		clearExecutionState();
 
 	}
 
 	@Override
-	protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+	protected void onDispose() {
+		closeRowClusterIds();
+		closeExecutionCache();
+	}
+
+	@Override
+	protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
 
-		DataTableSpec tableSpecs = inSpecs[IN_PORT];
+		DataTableSpec tableSpecs = (DataTableSpec) inSpecs[IN_PORT];
+		ArrayList<String> columnNames = new ArrayList<String>();
+		// the numeric columns are collected anew for every spec the node is
+		// configured with
+		m_numDimensions = 0;
+		m_columnIndices.clear();
+		m_columnDomains.clear();
 
 		for (int i = 0; i < tableSpecs.getNumColumns(); i++) {
 			DataColumnSpec colSpecs = tableSpecs.getColumnSpec(i);
@@ -388,7 +726,9 @@ public class DENCLUEClusterNodeModel extends NodeModel {
 			m_numDimensions++;
 			m_columnIndices.add(i);
 			m_columnDomains.put(i, colDomain);
+			columnNames.add(colSpecs.getName());
 		}
+		m_columnNames = columnNames.toArray(new String[columnNames.size()]);
 
 		// Validate Double compatibility
 		if (m_numDimensions == 0) {
@@ -398,13 +738,332 @@ public class DENCLUEClusterNodeModel extends NodeModel {
 		// data table output spec and configure "Cluster" column
 		DataColumnSpec clusterColSpec = createClusterColumnSpec();
 		DataTableSpec appendSpec = new DataTableSpec(clusterColSpec);
-		DataTableSpec outputSpec = new DataTableSpec(inSpecs[IN_PORT], appendSpec);
+		DataTableSpec outputSpec = new DataTableSpec(tableSpecs, appendSpec);
 
-		// cluster summary table output spec
+		// cluster summary table output spec, replaced by the configurations of a sweep
 		DataTableSpec summaryTableSpec = createSummaryTableSpec();
+		if (isSweep()) {
+			if (EXECUTION_TWO_PASS.equals(m_executionMode.getStringValue())) {
+				throw new InvalidSettingsException("A parameter sweep needs the execution in memory.");
+			}
+			parseSweepValues(m_sweepSigmaValues.getStringValue(), CFGKEY_SWEEP_SIGMA_VALUES);
+			parseSweepValues(m_sweepXiValues.getStringValue(), CFGKEY_SWEEP_XI_VALUES);
+			summaryTableSpec = createSweepTableSpec();
+		}
+
+		// return new data table with cluster column, summary table, model and metrics
+		// specs
+		return new PortObjectSpec[] { outputSpec, summaryTableSpec,
+				new DENCLUEClusterModelPortObjectSpec(m_columnNames), DENCLUEPhaseMetrics.createTableSpec() };
+	}
+
+	/**
+	 * Splits the super cubes into the batches of the second pass of the two-pass
+	 * execution: consecutive super cubes with at most m_batchRows members in
+	 * total. A larger super cube forms a batch on its own and is held whole: the
+	 * density at any of its members sums over the near(x) members of the whole
+	 * super cube, so its members can't be split across batches. The memory of
+	 * such a batch is only bounded by the super cube, the node warns about it.
+	 */
+	private void planBatches() {
+		ArrayList<DENCLUEHyperCube> superCubes = m_clusterRun.getSuperCubes();
+		ArrayList<Integer> batchStarts = new ArrayList<Integer>();
+		int batchRows = 0;
+		int maxSuperCubeRows = 0;
+		for (int i = 0; i < superCubes.size(); i++) {
+			int numMembers = superCubes.get(i).getNumFeatureVectors();
+			if (i == 0 || batchRows + numMembers > m_batchRows.getIntValue()) {
+				batchStarts.add(i);
+				batchRows = 0;
+			}
+			batchRows += numMembers;
+			maxSuperCubeRows = Math.max(maxSuperCubeRows, numMembers);
+		}
+		if (maxSuperCubeRows > m_batchRows.getIntValue()) {
+			setWarningMessage("A super cube of " + maxSuperCubeRows + " rows is larger than a batch of "
+					+ m_batchRows.getIntValue() + " rows and was held as a whole.");
+		}
+		m_batchStarts = new int[batchStarts.size() + 1];
+		for (int i = 0; i < batchStarts.size(); i++) {
+			m_batchStarts[i] = batchStarts.get(i);
+		}
+		m_batchStarts[batchStarts.size()] = superCubes.size();
+	}
+
+	/**
+	 * Creates the feature store holding the members of a batch and points the
+	 * super cubes of the batch at their ranges in it. The store is filled by
+	 * {@link #addBatchRow} while the table is read.
+	 */
+	private DENCLUEFeatureStore openBatch(final int batch) throws IOException {
+		ArrayList<DENCLUEHyperCube> superCubes = m_clusterRun.getSuperCubes();
+		int batchRows = 0;
+		for (int i = m_batchStarts[batch]; i < m_batchStarts[batch + 1]; i++) {
+			batchRows += superCubes.get(i).getNumFeatureVectors();
+		}
+		DENCLUEFeatureStore batchStore = createFeatureStore(m_columnDomains.size(), batchRows);
+		DENCLUEFeatureStore attractorStore = m_clusterRun.createAttractorStore(batchStore);
+		m_batchFill = new int[m_batchStarts[batch + 1] - m_batchStarts[batch]];
+		int offset = 0;
+		for (int i = m_batchStarts[batch]; i < m_batchStarts[batch + 1]; i++) {
+			superCubes.get(i).setMemberRange(batchStore, offset, attractorStore);
+			offset += superCubes.get(i).getNumFeatureVectors();
+		}
+		return batchStore;
+	}
+
+	/**
+	 * Copies the row into the batch store if it is a member of a super cube of the
+	 * batch.
+	 *
+	 * @param rowIndex the position of the row in the input table
+	 */
+	private void addBatchRow(final DENCLUEGridAssigner gridAssigner, final int batch,
+			final DENCLUEFeatureStore batchStore, final DataRow row, final int rowIndex,
+			final double[] featureVector) {
+		DENCLUEHyperCube cube = gridAssigner.findCube(row, featureVector);
+		int superId = cube == null ? -1 : m_clusterRun.getCubeSuperIds()[cube.getCubeId()];
+		if (superId >= m_batchStarts[batch] && superId < m_batchStarts[batch + 1]) {
+			int slot = m_clusterRun.getSuperCubes().get(superId).getMemberOffset() + m_batchFill[superId - m_batchStarts[batch]]++;
+			batchStore.setRowIndex(slot, rowIndex);
+			for (int i = 0; i < featureVector.length; i++) {
+				batchStore.setValue(slot, i, featureVector[i]);
+			}
+		}
+	}
+
+	private void clusterBatch(final int batch, final ExecutionMonitor exec) throws CanceledExecutionException {
+		m_clusterRun.clusterSuperCubes(m_batchStarts[batch], m_batchStarts[batch + 1], exec);
+	}
+
+	/**
+	 * Appends the cluster column, labeling every row from the cluster id column by
+	 * its position.
+	 */
+	private ColumnRearranger createClusterColumnRearranger(final DataTableSpec inSpec) {
+		CellFactory clusterColumnCellFactory = new DENCLUECellFactory(createClusterColumnSpec(), m_rowClusterIds,
+				m_clusterSizes.size(), (int) m_numRows);
+		ColumnRearranger outputDataTable = new ColumnRearranger(inSpec);
+		outputDataTable.append(clusterColumnCellFactory);
+		return outputDataTable;
+	}
+
+	private ArrayList<DataRow> createSummaryRows() {
+		ArrayList<DataRow> summaryRows = new ArrayList<DataRow>();
+		// noise counts every row labeled noise, including rows of sparse cubes not
+		// connected to any cluster
+		int numClusterRows = 0;
+		for (int clusterSize : m_clusterSizes) {
+			numClusterRows += clusterSize;
+		}
+		summaryRows.add(new DefaultRow(new RowKey("Noise"),
+				new DataCell[] { new IntCell((int) m_numRows - numClusterRows) }));
+		for (int i = 0; i < m_clusterSizes.size(); i++) {
+			summaryRows.add(new DefaultRow(new RowKey("Cluster_" + i),
+					new DataCell[] { new IntCell(m_clusterSizes.get(i)) }));
+		}
+		return summaryRows;
+	}
+
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.NONDISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.NONDISTRIBUTED, OutputPortRole.NONDISTRIBUTED,
+				OutputPortRole.NONDISTRIBUTED, OutputPortRole.NONDISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperatorInternals createInitialStreamableOperatorInternals() {
+		clearExecutionState();
+		if (!m_autoSigma.getBooleanValue()) {
+			m_sigma = m_sigmaValue.getDoubleValue();
+		}
+		return new SimpleStreamableOperatorInternals();
+	}
+
+	@Override
+	public boolean iterate(final StreamableOperatorInternals internals) {
+		// the first pass assigns the grid (after a pass estimating sigma, repeated
+		// while the grid is too sparse), every further pass clusters one batch
+		return m_batchStarts == null || m_streamedPasses - m_firstBatchPass < m_batchStarts.length - 1;
+	}
+
+	/**
+	 * Streams the two-pass execution: the cube model is built in intermediate
+	 * passes over the input (the grid first, then one pass per batch of super
+	 * cubes), the final pass labels the rows one by one as they stream through.
+	 * An estimated sigma takes one more pass, before the grid, and a grid too
+	 * sparse for the minimum cube occupancy is assigned again with wider cubes.
+	 */
+	@Override
+	public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+			final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		if (isSweep()) {
+			throw new InvalidSettingsException("A parameter sweep can't be streamed.");
+		}
+		return new StreamableOperator() {
+
+			@Override
+			public void runIntermediate(final PortInput[] inputs, final ExecutionContext exec) throws Exception {
+				RowInput input = (RowInput) inputs[IN_PORT];
+				double[] featureVector = new double[m_columnDomains.size()];
+				DataRow row;
+				if (Double.isNaN(m_sigma)) {
+					m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_SIGMA);
+					DENCLUESigmaEstimator estimator = createSigmaEstimator();
+					long numRows = 0;
+					while ((row = input.poll()) != null) {
+						estimator.addRow(row);
+						if (++numRows % DENCLUEGridAssigner.CHUNK_SIZE == 0) {
+							exec.checkCanceled();
+						}
+					}
+					m_sigma = estimateSigma(estimator);
+					m_phaseMetrics.end();
+				} else if (m_gridAssigner == null) {
+					m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_GRID);
+					closeExecutionCache();
+					if (Double.isNaN(m_cellWidth)) {
+						m_cellWidth = 2 * m_sigma;
+					}
+					m_gridAssigner = createGridAssigner(m_cellWidth, m_xiValue.getDoubleValue());
+					if (m_numRows > 0) {
+						// the rows are counted by the first grid pass
+						m_gridAssigner.setMaxCubes(getMaxCubes(m_numRows));
+					}
+					long numRows = 0;
+					while ((row = input.poll()) != null) {
+						m_gridAssigner.accumulateRow(row, featureVector);
+						if (++numRows % DENCLUEGridAssigner.CHUNK_SIZE == 0) {
+							exec.checkCanceled();
+						}
+					}
+					m_gridAssigner.finishAccumulation();
+					endGridPhase(m_gridAssigner);
+					m_numRows = numRows;
+					if (m_gridAssigner.isOverflowed()
+							|| m_gridAssigner.getAllCubes().size() > getMaxCubes(numRows)) {
+						m_cellWidth *= 2;
+						m_gridAssigner = null;
+					} else {
+						warnIfCoarsened(m_gridAssigner);
+						buildSuperCubes(m_gridAssigner);
+						planBatches();
+						m_firstBatchPass = m_streamedPasses + 1;
+					}
+				} else {
+					int batch = m_streamedPasses - m_firstBatchPass;
+					m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_CLIMB);
+					DENCLUEFeatureStore batchStore = openBatch(batch);
+					try {
+						int rowIndex = 0;
+						while ((row = input.poll()) != null) {
+							addBatchRow(m_gridAssigner, batch, batchStore, row, rowIndex++, featureVector);
+						}
+						exec.checkCanceled();
+						clusterBatch(batch, exec);
+					} finally {
+						batchStore.close();
+					}
+					endClimbPhase();
+				}
+				input.close();
+				m_streamedPasses++;
+			}
+
+			@Override
+			public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+					throws Exception {
+				if (m_clusterRun != null) {
+					// all batches are clustered
+					m_clusterRun.close();
+				}
+				m_phaseMetrics.start(DENCLUEPhaseMetrics.PHASE_LABEL);
+				createClusterColumnRearranger((DataTableSpec) inSpecs[IN_PORT]).createStreamableFunction(IN_PORT, 0)
+						.runFinal(inputs, outputs, exec);
+				m_phaseMetrics.end();
+				RowOutput summaryOutput = (RowOutput) outputs[1];
+				for (DataRow summaryRow : createSummaryRows()) {
+					summaryOutput.push(summaryRow);
+				}
+				summaryOutput.close();
+				((PortObjectOutput) outputs[MODEL_OUT_PORT])
+						.setPortObject(new DENCLUEClusterModelPortObject(m_clusterModel));
+				RowOutput metricsOutput = (RowOutput) outputs[METRICS_OUT_PORT];
+				for (DataRow metricsRow : m_phaseMetrics.createRows()) {
+					metricsOutput.push(metricsRow);
+				}
+				metricsOutput.close();
+				m_gridAssigner = null;
+			}
+		};
+	}
 
-		// return new data table with cluster column and summary table specs
-		return new DataTableSpec[] { outputSpec, summaryTableSpec };
+	private void clearExecutionState() {
+		m_phaseMetrics = new DENCLUEPhaseMetrics();
+		m_sigma = Double.NaN;
+		m_cellWidth = Double.NaN;
+		m_gridAssigner = null;
+		if (m_clusterRun != null) {
+			m_clusterRun.close();
+			m_clusterRun = null;
+		}
+		m_batchStarts = null;
+		m_batchFill = null;
+		m_streamedPasses = 0;
+		m_firstBatchPass = 0;
+		m_numRows = 0;
+		closeRowClusterIds();
+		m_clusterSizes = null;
+		m_clusterModel = null;
+	}
+
+	private void closeExecutionCache() {
+		if (m_executionCache != null) {
+			m_executionCache.close();
+			m_executionCache = null;
+		}
+	}
+
+	/**
+	 * The settings the assigned grid depends on, besides the input table.
+	 */
+	private String createGridSettingsKey() {
+		return m_sigma + "|" + m_minCubeOccupancy.getDoubleValue() + "|" + m_cubeIndex.getStringValue() + "|"
+				+ m_featureStorage.getStringValue();
+	}
+
+	private void closeRowClusterIds() {
+		if (m_rowClusterIds != null) {
+			// the column may be memory-mapped
+			m_rowClusterIds.close();
+			m_rowClusterIds = null;
+		}
+	}
+
+	private DENCLUECubeIndex createCubeIndex(final int branchingFactor) {
+		if (DENCLUECubeIndex.INDEX_BPLUS_TREE.equals(m_cubeIndex.getStringValue())) {
+			return new DENCLUETreeCubeIndex(branchingFactor);
+		}
+		return new DENCLUEHashCubeIndex();
+	}
+
+	private DENCLUEFeatureStore createFeatureStore(final int numDimensions, final int numRows) throws IOException {
+		if (DENCLUEFeatureStore.STORAGE_MAPPED.equals(m_featureStorage.getStringValue())) {
+			return new DENCLUEMappedFeatureStore(numDimensions, numRows);
+		}
+		return new DENCLUEHeapFeatureStore(numDimensions, numRows);
+	}
+
+	private DENCLUEClusterIdColumn createClusterIdColumn(final int numRows) throws IOException {
+		if (DENCLUEFeatureStore.STORAGE_MAPPED.equals(m_featureStorage.getStringValue())) {
+			return DENCLUEClusterIdColumn.createMapped(numRows);
+		}
+		return DENCLUEClusterIdColumn.createHeap(numRows);
 	}
 
 	private DataColumnSpec createClusterColumnSpec() {
@@ -423,34 +1082,153 @@ public class DENCLUEClusterNodeModel extends NodeModel {
 		return new DataTableSpec(DENCLUEClusterNodeModel.OUTPUT_SUMMARY_TABLE_NAME, createSummaryColumnSpec());
 	}
 
+	private DataTableSpec createSweepTableSpec() {
+		return new DataTableSpec(DENCLUEClusterNodeModel.OUTPUT_SWEEP_TABLE_NAME,
+				new DataColumnSpecCreator("Sigma", DoubleCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Xi", DoubleCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Clusters", IntCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Cluster rows", IntCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Noise rows", IntCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Populated cubes", IntCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Dense cubes", IntCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Cube width", DoubleCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Grid time (ms)", DoubleCell.TYPE).createSpec(),
+				new DataColumnSpecCreator("Clustering time (ms)", DoubleCell.TYPE).createSpec());
+	}
+
 	@Override
 	protected void saveSettingsTo(final NodeSettingsWO settings) {
 		settings.addDouble(CFGKEY_SIGMA_VALUE, m_sigmaValue.getDoubleValue());
 		settings.addDouble(CFGKEY_XI_VALUE, m_xiValue.getDoubleValue());
+		settings.addInt(CFGKEY_NUM_THREADS, m_numThreads.getIntValue());
+		settings.addString(CFGKEY_CUBE_INDEX, m_cubeIndex.getStringValue());
+		settings.addString(CFGKEY_NEIGHBOR_SEARCH, m_neighborSearch.getStringValue());
+		settings.addString(CFGKEY_FEATURE_STORAGE, m_featureStorage.getStringValue());
+		settings.addString(CFGKEY_ATTRACTOR_SEARCH, m_attractorSearch.getStringValue());
+		settings.addDouble(CFGKEY_STEP_SIZE, m_stepSize.getDoubleValue());
+		settings.addInt(CFGKEY_MAX_ITERATIONS, m_maxIterations.getIntValue());
+		settings.addBoolean(CFGKEY_SHARE_ATTRACTORS, m_shareAttractors.getBooleanValue());
+		settings.addDouble(CFGKEY_DENSITY_CUTOFF, m_densityCutoff.getDoubleValue());
+		settings.addString(CFGKEY_EXECUTION_MODE, m_executionMode.getStringValue());
+		settings.addInt(CFGKEY_BATCH_ROWS, m_batchRows.getIntValue());
+		settings.addBoolean(CFGKEY_CACHE_RESULTS, m_cacheResults.getBooleanValue());
+		settings.addString(CFGKEY_SWEEP_SIGMA_VALUES, m_sweepSigmaValues.getStringValue());
+		settings.addString(CFGKEY_SWEEP_XI_VALUES, m_sweepXiValues.getStringValue());
+		settings.addBoolean(CFGKEY_AUTO_SIGMA, m_autoSigma.getBooleanValue());
+		settings.addDouble(CFGKEY_MIN_CUBE_OCCUPANCY, m_minCubeOccupancy.getDoubleValue());
 	}
 
 	@Override
 	protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
 		m_sigmaValue.setDoubleValue(settings.getDouble(CFGKEY_SIGMA_VALUE));
 		m_xiValue.setDoubleValue(settings.getDouble(CFGKEY_XI_VALUE));
+		m_numThreads.setIntValue(settings.getInt(CFGKEY_NUM_THREADS, DEFAULT_NUM_THREADS));
+		m_cubeIndex.setStringValue(settings.getString(CFGKEY_CUBE_INDEX, DEFAULT_CUBE_INDEX));
+		m_neighborSearch.setStringValue(settings.getString(CFGKEY_NEIGHBOR_SEARCH, DEFAULT_NEIGHBOR_SEARCH));
+		m_featureStorage.setStringValue(settings.getString(CFGKEY_FEATURE_STORAGE, DEFAULT_FEATURE_STORAGE));
+		m_attractorSearch.setStringValue(settings.getString(CFGKEY_ATTRACTOR_SEARCH, DEFAULT_ATTRACTOR_SEARCH));
+		m_stepSize.setDoubleValue(settings.getDouble(CFGKEY_STEP_SIZE, DEFAULT_STEP_SIZE));
+		m_maxIterations.setIntValue(settings.getInt(CFGKEY_MAX_ITERATIONS, DEFAULT_MAX_ITERATIONS));
+		m_shareAttractors.setBooleanValue(settings.getBoolean(CFGKEY_SHARE_ATTRACTORS, DEFAULT_SHARE_ATTRACTORS));
+		m_densityCutoff.setDoubleValue(settings.getDouble(CFGKEY_DENSITY_CUTOFF, DEFAULT_DENSITY_CUTOFF));
+		m_executionMode.setStringValue(settings.getString(CFGKEY_EXECUTION_MODE, DEFAULT_EXECUTION_MODE));
+		m_batchRows.setIntValue(settings.getInt(CFGKEY_BATCH_ROWS, DEFAULT_BATCH_ROWS));
+		m_cacheResults.setBooleanValue(settings.getBoolean(CFGKEY_CACHE_RESULTS, DEFAULT_CACHE_RESULTS));
+		m_sweepSigmaValues.setStringValue(settings.getString(CFGKEY_SWEEP_SIGMA_VALUES, DEFAULT_SWEEP_SIGMA_VALUES));
+		m_sweepXiValues.setStringValue(settings.getString(CFGKEY_SWEEP_XI_VALUES, DEFAULT_SWEEP_XI_VALUES));
+		m_autoSigma.setBooleanValue(settings.getBoolean(CFGKEY_AUTO_SIGMA, DEFAULT_AUTO_SIGMA));
+		m_minCubeOccupancy.setDoubleValue(settings.getDouble(CFGKEY_MIN_CUBE_OCCUPANCY, DEFAULT_MIN_CUBE_OCCUPANCY));
 	}
 
 	@Override
 	protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
 		m_sigmaValue.validateSettings(settings);
 		m_xiValue.validateSettings(settings);
+		validateIfPresent(m_numThreads, CFGKEY_NUM_THREADS, settings);
+		validateIfPresent(m_cubeIndex, CFGKEY_CUBE_INDEX, settings);
+		validateIfPresent(m_neighborSearch, CFGKEY_NEIGHBOR_SEARCH, settings);
+		validateIfPresent(m_featureStorage, CFGKEY_FEATURE_STORAGE, settings);
+		validateIfPresent(m_attractorSearch, CFGKEY_ATTRACTOR_SEARCH, settings);
+		validateIfPresent(m_stepSize, CFGKEY_STEP_SIZE, settings);
+		validateIfPresent(m_maxIterations, CFGKEY_MAX_ITERATIONS, settings);
+		validateIfPresent(m_shareAttractors, CFGKEY_SHARE_ATTRACTORS, settings);
+		validateIfPresent(m_densityCutoff, CFGKEY_DENSITY_CUTOFF, settings);
+		validateIfPresent(m_executionMode, CFGKEY_EXECUTION_MODE, settings);
+		validateIfPresent(m_batchRows, CFGKEY_BATCH_ROWS, settings);
+		validateIfPresent(m_cacheResults, CFGKEY_CACHE_RESULTS, settings);
+		validateIfPresent(m_sweepSigmaValues, CFGKEY_SWEEP_SIGMA_VALUES, settings);
+		validateIfPresent(m_sweepXiValues, CFGKEY_SWEEP_XI_VALUES, settings);
+		validateIfPresent(m_autoSigma, CFGKEY_AUTO_SIGMA, settings);
+		validateIfPresent(m_minCubeOccupancy, CFGKEY_MIN_CUBE_OCCUPANCY, settings);
+		parseSweepValues(settings.getString(CFGKEY_SWEEP_SIGMA_VALUES, DEFAULT_SWEEP_SIGMA_VALUES),
+				CFGKEY_SWEEP_SIGMA_VALUES);
+		parseSweepValues(settings.getString(CFGKEY_SWEEP_XI_VALUES, DEFAULT_SWEEP_XI_VALUES), CFGKEY_SWEEP_XI_VALUES);
 	}
 
+	/**
+	 * Validates a setting only if it was saved: workflows saved before the
+	 * setting existed don't hold it and load its default.
+	 */
+	private static void validateIfPresent(final SettingsModel model, final String configKey,
+			final NodeSettingsRO settings) throws InvalidSettingsException {
+		if (settings.containsKey(configKey)) {
+			model.validateSettings(settings);
+		}
+	}
+
+	/**
+	 * Restores the cluster model and the cluster of every row from the binary
+	 * file written by {@link #saveInternals}, mapping it instead of parsing it.
+	 */
 	@Override
 	protected void loadInternals(final File internDir, final ExecutionMonitor exec)
 			throws IOException, CanceledExecutionException {
-
+		File internalsFile = new File(internDir, INTERNALS_FILE_NAME);
+		if (!internalsFile.exists()) {
+			// executed with a version that didn't save its internals
+			return;
+		}
+		ByteBuffer in = DENCLUEBinaryIO.map(internalsFile);
+		if (in.getInt() != INTERNALS_MAGIC || in.getInt() != INTERNALS_VERSION) {
+			throw new IOException("The DENCLUE internals file " + internalsFile.getName() + " is not supported.");
+		}
+		m_numRows = in.getLong();
+		m_clusterModel = DENCLUEClusterModel.read(in);
+		int[] clusterSizes = DENCLUEBinaryIO.readInts(in);
+		m_clusterSizes = new ArrayList<Integer>(clusterSizes.length);
+		for (int clusterSize : clusterSizes) {
+			m_clusterSizes.add(clusterSize);
+		}
+		exec.checkCanceled();
+		closeRowClusterIds();
+		m_rowClusterIds = createClusterIdColumn((int) m_numRows);
+		m_rowClusterIds.read(in);
 	}
 
+	/**
+	 * Writes the cluster model, the cluster sizes and the cluster id of every row
+	 * into one binary file.
+	 */
 	@Override
 	protected void saveInternals(final File internDir, final ExecutionMonitor exec)
 			throws IOException, CanceledExecutionException {
-
+		if (m_clusterModel == null || m_rowClusterIds == null) {
+			return;
+		}
+		int[] clusterSizes = new int[m_clusterSizes.size()];
+		for (int i = 0; i < clusterSizes.length; i++) {
+			clusterSizes[i] = m_clusterSizes.get(i);
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(new File(internDir, INTERNALS_FILE_NAME))))) {
+			out.writeInt(INTERNALS_MAGIC);
+			out.writeInt(INTERNALS_VERSION);
+			out.writeLong(m_numRows);
+			m_clusterModel.write(out);
+			DENCLUEBinaryIO.writeInts(out, clusterSizes, clusterSizes.length);
+			exec.checkCanceled();
+			m_rowClusterIds.write(out);
+		}
 	}
 
 }
@@ -0,0 +1,463 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+
+class DENCLUEClusterNodeModelTest {
+
+	private static final double[][] CENTERS = { { 2, 2 }, { 5, 2 }, { 2, 5 } };
+
+	private static final double SIGMA = 0.3;
+
+	private static final double XI = 30;
+
+	private static BufferedDataTable createTable(final ExecutionContext exec) {
+		return DENCLUETestTables.createTable(exec, DENCLUETestTables.createBlobs(CENTERS, 0.3, 600, 42));
+	}
+
+	/**
+	 * The default settings of the node with the given sigma and xi.
+	 */
+	private static NodeSettings createSettings(final double sigma, final double xi) {
+		NodeSettings settings = new NodeSettings("model");
+		new DENCLUEClusterNodeModel().saveSettingsTo(settings);
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE, sigma);
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_XI_VALUE, xi);
+		return settings;
+	}
+
+	/**
+	 * Executes a new node with the given settings and returns the cluster label
+	 * of every row.
+	 */
+	private static ArrayList<String> cluster(final BufferedDataTable table, final NodeSettings settings,
+			final ExecutionContext exec) throws Exception {
+		return cluster(new DENCLUEClusterNodeModel(), table, settings, exec);
+	}
+
+	/**
+	 * Executes the node with the given settings, as after a settings change, and
+	 * returns the cluster label of every row.
+	 */
+	private static ArrayList<String> cluster(final DENCLUEClusterNodeModel model, final BufferedDataTable table,
+			final NodeSettings settings, final ExecutionContext exec) throws Exception {
+		model.reset();
+		model.validateSettings(settings);
+		model.loadValidatedSettingsFrom(settings);
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		return labelsOf((BufferedDataTable) model.execute(new PortObject[] { table }, exec)[0]);
+	}
+
+	/**
+	 * @return the cluster label of every row of the labeled table
+	 */
+	private static ArrayList<String> labelsOf(final BufferedDataTable labeledTable) {
+		ArrayList<String> labels = new ArrayList<String>();
+		for (DataRow row : labeledTable) {
+			labels.add(row.getCell(row.getNumCells() - 1).toString());
+		}
+		return labels;
+	}
+
+	/**
+	 * Settings as saved by the first version of the node, before any setting
+	 * but sigma and xi existed.
+	 */
+	private static NodeSettings createFirstVersionSettings() {
+		NodeSettings settings = new NodeSettings("model");
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE, 0.5);
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_XI_VALUE, 2);
+		return settings;
+	}
+
+	@Test
+	void reconfiguresWithOtherColumns() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		BufferedDataTable wideTable = DENCLUETestTables.createTable(exec,
+				DENCLUETestTables.createBlobs(new double[][] { { 1, 2, 3 } }, 0.3, 10, 7));
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(createSettings(SIGMA, XI));
+		model.configure(new PortObjectSpec[] { wideTable.getDataTableSpec() });
+		// only the columns of the last spec are clustered
+		assertEquals(cluster(table, createSettings(SIGMA, XI), exec),
+				cluster(model, table, createSettings(SIGMA, XI), exec));
+	}
+
+	@Test
+	void clustersIntegerColumnsLikeDoubleColumns() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		double[][] featureVectors = DENCLUETestTables.createBlobs(CENTERS, 0.3, 600, 42);
+		// the same rows, ten times larger and rounded to whole numbers
+		for (double[] featureVector : featureVectors) {
+			for (int column = 0; column < featureVector.length; column++) {
+				featureVector[column] = Math.round(10 * featureVector[column]);
+			}
+		}
+		NodeSettings settings = createSettings(10 * SIGMA, XI);
+		ArrayList<String> labels = cluster(DENCLUETestTables.createIntTable(exec, featureVectors), settings, exec);
+		assertTrue(labels.contains("Cluster_0"));
+		assertEquals(cluster(DENCLUETestTables.createTable(exec, featureVectors), settings, exec), labels);
+	}
+
+	@Test
+	void loadsSettingsSavedBeforeNewSettings() throws Exception {
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.validateSettings(createFirstVersionSettings());
+		model.loadValidatedSettingsFrom(createFirstVersionSettings());
+		NodeSettings saved = new NodeSettings("model");
+		model.saveSettingsTo(saved);
+		assertEquals(0.5, saved.getDouble(DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE));
+		assertEquals(2, saved.getDouble(DENCLUEClusterNodeModel.CFGKEY_XI_VALUE));
+		assertEquals(DENCLUEClusterNodeModel.DEFAULT_NUM_THREADS,
+				saved.getInt(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS));
+	}
+
+	@Test
+	void rejectsInvalidNewSettings() {
+		NodeSettings settings = createFirstVersionSettings();
+		settings.addInt(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, 0);
+		try {
+			new DENCLUEClusterNodeModel().validateSettings(settings);
+			fail("a thread count of 0 was accepted");
+		} catch (InvalidSettingsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	void findsSameNeighborsByEnumerationAndScan() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings scanSettings = createSettings(SIGMA, XI);
+		scanSettings.addString(DENCLUEClusterNodeModel.CFGKEY_NEIGHBOR_SEARCH,
+				DENCLUEClusterNodeModel.NEIGHBOR_SEARCH_SCAN);
+		NodeSettings enumerationSettings = createSettings(SIGMA, XI);
+		enumerationSettings.addString(DENCLUEClusterNodeModel.CFGKEY_NEIGHBOR_SEARCH,
+				DENCLUEClusterNodeModel.NEIGHBOR_SEARCH_ENUMERATION);
+		ArrayList<String> labels = cluster(table, enumerationSettings, exec);
+		assertTrue(labels.contains("Cluster_0"));
+		assertEquals(cluster(table, scanSettings, exec), labels);
+	}
+
+	@Test
+	void clustersLikeWithMappedStorage() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings mappedSettings = createSettings(SIGMA, XI);
+		mappedSettings.addString(DENCLUEClusterNodeModel.CFGKEY_FEATURE_STORAGE,
+				DENCLUEFeatureStore.STORAGE_MAPPED);
+		assertEquals(cluster(table, createSettings(SIGMA, XI), exec), cluster(table, mappedSettings, exec));
+	}
+
+	@Test
+	void sharesAttractorsWithoutChangingLabels() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings sharingSettings = createSettings(SIGMA, XI);
+		sharingSettings.addBoolean(DENCLUEClusterNodeModel.CFGKEY_SHARE_ATTRACTORS, true);
+		NodeSettings climbingSettings = createSettings(SIGMA, XI);
+		climbingSettings.addBoolean(DENCLUEClusterNodeModel.CFGKEY_SHARE_ATTRACTORS, false);
+		assertEquals(cluster(table, climbingSettings, exec), cluster(table, sharingSettings, exec));
+	}
+
+	@Test
+	void clustersInTwoPassesLikeInMemory() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings twoPassSettings = createSettings(SIGMA, XI);
+		twoPassSettings.addString(DENCLUEClusterNodeModel.CFGKEY_EXECUTION_MODE,
+				DENCLUEClusterNodeModel.EXECUTION_TWO_PASS);
+		// fewer batch rows than any super cube, so every super cube is a batch
+		twoPassSettings.addInt(DENCLUEClusterNodeModel.CFGKEY_BATCH_ROWS, 1);
+		ArrayList<String> labels = cluster(table, createSettings(SIGMA, XI), exec);
+		assertEquals(labels, cluster(table, twoPassSettings, exec));
+		twoPassSettings.addInt(DENCLUEClusterNodeModel.CFGKEY_BATCH_ROWS, 1000);
+		assertEquals(labels, cluster(table, twoPassSettings, exec));
+	}
+
+	@Test
+	void streamsLikeTwoPassExecution() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings settings = createSettings(SIGMA, XI);
+		settings.addString(DENCLUEClusterNodeModel.CFGKEY_EXECUTION_MODE, DENCLUEClusterNodeModel.EXECUTION_TWO_PASS);
+		settings.addInt(DENCLUEClusterNodeModel.CFGKEY_BATCH_ROWS, 1);
+
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(settings);
+		PortObjectSpec[] outSpecs = model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		StreamableOperatorInternals internals = model.createInitialStreamableOperatorInternals();
+		StreamableOperator operator = model.createStreamableOperator(new PartitionInfo(0, 1),
+				new PortObjectSpec[] { table.getDataTableSpec() });
+		while (model.iterate(internals)) {
+			operator.runIntermediate(new PortInput[] { new DataTableRowInput(table) }, exec);
+		}
+		BufferedDataTableRowOutput labeledOutput = new BufferedDataTableRowOutput(
+				exec.createDataContainer((DataTableSpec) outSpecs[0]));
+		BufferedDataTableRowOutput summaryOutput = new BufferedDataTableRowOutput(
+				exec.createDataContainer((DataTableSpec) outSpecs[1]));
+		PortObjectOutput modelOutput = new PortObjectOutput();
+		BufferedDataTableRowOutput metricsOutput = new BufferedDataTableRowOutput(
+				exec.createDataContainer((DataTableSpec) outSpecs[DENCLUEClusterNodeModel.METRICS_OUT_PORT]));
+		operator.runFinal(new PortInput[] { new DataTableRowInput(table) },
+				new PortOutput[] { labeledOutput, summaryOutput, modelOutput, metricsOutput }, exec);
+
+		ArrayList<String> labels = new ArrayList<String>();
+		for (DataRow row : labeledOutput.getDataTable()) {
+			labels.add(row.getCell(row.getNumCells() - 1).toString());
+		}
+		assertEquals(cluster(table, settings, exec), labels);
+
+		DENCLUEClusterNodeModel executedModel = new DENCLUEClusterNodeModel();
+		executedModel.loadValidatedSettingsFrom(settings);
+		executedModel.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		PortObject[] outData = executedModel.execute(new PortObject[] { table }, exec);
+		DENCLUEClusterModelTest.assertModelsEqual(((DENCLUEClusterModelPortObject) outData[2]).getModel(),
+				((DENCLUEClusterModelPortObject) modelOutput.getPortObject()).getModel());
+		assertEquals(getPhaseCounts((BufferedDataTable) outData[DENCLUEClusterNodeModel.METRICS_OUT_PORT]),
+				getPhaseCounts(metricsOutput.getDataTable()));
+	}
+
+	@Test
+	void savesLoadedInternalsUnchanged() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(createSettings(SIGMA, XI));
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		model.execute(new PortObject[] { table }, exec);
+		File savedDir = Files.createTempDirectory("denclue_test_").toFile();
+		File resavedDir = Files.createTempDirectory("denclue_test_").toFile();
+		try {
+			model.saveInternals(savedDir, exec);
+			DENCLUEClusterNodeModel loadedModel = new DENCLUEClusterNodeModel();
+			loadedModel.loadValidatedSettingsFrom(createSettings(SIGMA, XI));
+			loadedModel.loadInternals(savedDir, exec);
+			loadedModel.saveInternals(resavedDir, exec);
+			byte[] saved = Files
+					.readAllBytes(new File(savedDir, DENCLUEClusterNodeModel.INTERNALS_FILE_NAME).toPath());
+			// the cluster id of every row follows the cluster sizes
+			assertTrue(saved.length > table.size() * Integer.BYTES);
+			assertArrayEquals(saved,
+					Files.readAllBytes(new File(resavedDir, DENCLUEClusterNodeModel.INTERNALS_FILE_NAME).toPath()));
+		} finally {
+			for (File dir : new File[] { savedDir, resavedDir }) {
+				new File(dir, DENCLUEClusterNodeModel.INTERNALS_FILE_NAME).delete();
+				dir.delete();
+			}
+		}
+	}
+
+	@Test
+	void reclustersFromCacheLikeFreshExecution() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		assertEquals(cluster(table, createSettings(SIGMA, XI), exec),
+				cluster(model, table, createSettings(SIGMA, XI), exec));
+		// only xi changed: the cached grid and super cubes are reused
+		for (double xi : new double[] { XI + 5, XI - 10, XI }) {
+			ArrayList<String> labels = cluster(model, table, createSettings(SIGMA, xi), exec);
+			assertTrue(labels.contains("Cluster_0"));
+			assertEquals(cluster(table, createSettings(SIGMA, xi), exec), labels);
+		}
+		// sigma changed: the grid is assigned again
+		assertEquals(cluster(table, createSettings(SIGMA * 1.2, XI), exec),
+				cluster(model, table, createSettings(SIGMA * 1.2, XI), exec));
+	}
+
+	@Test
+	void countsLabeledRowsInSummary() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(createSettings(SIGMA, XI));
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		PortObject[] outData = model.execute(new PortObject[] { table }, exec);
+		Map<String, Integer> labelCounts = new HashMap<String, Integer>();
+		for (DataRow row : (BufferedDataTable) outData[0]) {
+			String label = row.getCell(row.getNumCells() - 1).toString();
+			Integer count = labelCounts.get(label);
+			labelCounts.put(label, count == null ? 1 : count + 1);
+		}
+		int numRows = 0;
+		for (DataRow row : (BufferedDataTable) outData[1]) {
+			int count = ((IntCell) row.getCell(0)).getIntValue();
+			Integer labelCount = labelCounts.get(row.getKey().getString());
+			assertEquals(count, labelCount == null ? 0 : labelCount.intValue(), row.getKey().getString());
+			numRows += count;
+		}
+		assertEquals(table.size(), numRows);
+		assertTrue(labelCounts.containsKey("Cluster_2"));
+	}
+
+	@Test
+	void sweepsLikeSingleRuns() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		NodeSettings settings = createSettings(SIGMA, XI);
+		settings.addString(DENCLUEClusterNodeModel.CFGKEY_SWEEP_SIGMA_VALUES, SIGMA + ", " + SIGMA * 1.2);
+		settings.addString(DENCLUEClusterNodeModel.CFGKEY_SWEEP_XI_VALUES, (XI - 10) + ", " + XI + ", " + (XI + 5));
+		settings.addInt(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, 2);
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(settings);
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		PortObject[] outData = model.execute(new PortObject[] { table }, exec);
+		// ports 0 and 2 hold the node's own configuration
+		assertEquals(cluster(table, createSettings(SIGMA, XI), exec), labelsOf((BufferedDataTable) outData[0]));
+		int numConfigurations = 0;
+		for (DataRow row : (BufferedDataTable) outData[1]) {
+			double sigma = ((DoubleCell) row.getCell(0)).getDoubleValue();
+			double xi = ((DoubleCell) row.getCell(1)).getDoubleValue();
+			Set<String> clusters = new HashSet<String>();
+			int numClusterRows = 0;
+			for (String label : cluster(table, createSettings(sigma, xi), exec)) {
+				if (label.startsWith("Cluster_")) {
+					clusters.add(label);
+					numClusterRows++;
+				}
+			}
+			String configuration = sigma + "/" + xi;
+			assertEquals(clusters.size(), ((IntCell) row.getCell(2)).getIntValue(), configuration);
+			assertEquals(numClusterRows, ((IntCell) row.getCell(3)).getIntValue(), configuration);
+			assertEquals(table.size() - numClusterRows, ((IntCell) row.getCell(4)).getIntValue(), configuration);
+			numConfigurations++;
+		}
+		assertEquals(6, numConfigurations);
+	}
+
+	/**
+	 * Executes the node as a sweep of only its own sigma and xi, which outputs
+	 * the grid of the configuration.
+	 */
+	private static DataRow sweepOwnConfiguration(final BufferedDataTable table, final NodeSettings settings,
+			final ExecutionContext exec) throws Exception {
+		settings.addString(DENCLUEClusterNodeModel.CFGKEY_SWEEP_SIGMA_VALUES,
+				Double.toString(settings.getDouble(DENCLUEClusterNodeModel.CFGKEY_SIGMA_VALUE)));
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(settings);
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		BufferedDataTable sweepTable = (BufferedDataTable) model.execute(new PortObject[] { table }, exec)[1];
+		assertEquals(1, sweepTable.size());
+		return sweepTable.iterator().next();
+	}
+
+	@Test
+	void coarsensGridBelowOccupancy() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DataRow fixedGrid = sweepOwnConfiguration(table, createSettings(SIGMA, XI), exec);
+		int numCubes = ((IntCell) fixedGrid.getCell(5)).getIntValue();
+		assertEquals(2 * SIGMA, ((DoubleCell) fixedGrid.getCell(7)).getDoubleValue());
+
+		// half the populated cubes of the fixed grid at most
+		NodeSettings settings = createSettings(SIGMA, XI);
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_MIN_CUBE_OCCUPANCY, 2.0 * table.size() / numCubes);
+		DataRow coarseGrid = sweepOwnConfiguration(table, settings, exec);
+		assertTrue(((DoubleCell) coarseGrid.getCell(7)).getDoubleValue() >= 4 * SIGMA);
+		assertTrue(((IntCell) coarseGrid.getCell(5)).getIntValue() <= numCubes / 2);
+
+		// the two-pass execution reads the table again for every wider grid
+		settings = createSettings(SIGMA, XI);
+		settings.addDouble(DENCLUEClusterNodeModel.CFGKEY_MIN_CUBE_OCCUPANCY, 2.0 * table.size() / numCubes);
+		ArrayList<String> labels = cluster(table, settings, exec);
+		assertTrue(labels.contains("Cluster_0"));
+		settings.addString(DENCLUEClusterNodeModel.CFGKEY_EXECUTION_MODE, DENCLUEClusterNodeModel.EXECUTION_TWO_PASS);
+		assertEquals(labels, cluster(table, settings, exec));
+	}
+
+	@Test
+	void clustersInParallelLikeOnOneThread() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		// super cubes of more members than a climb chunk, so that their climbs are
+		// split
+		BufferedDataTable table = DENCLUETestTables.createTable(exec,
+				DENCLUETestTables.createBlobs(CENTERS, 0.3, 3 * 2 * DENCLUEHyperCube.CLIMB_CHUNK_SIZE, 42));
+		NodeSettings settings = createSettings(SIGMA, 100);
+		// shared attractors stay within a climb chunk
+		settings.addBoolean(DENCLUEClusterNodeModel.CFGKEY_SHARE_ATTRACTORS, true);
+		settings.addInt(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, 1);
+		ArrayList<String> labels = cluster(table, settings, exec);
+		assertTrue(labels.contains("Cluster_2"));
+		settings.addInt(DENCLUEClusterNodeModel.CFGKEY_NUM_THREADS, 4);
+		assertEquals(labels, cluster(table, settings, exec));
+	}
+
+	/**
+	 * @return the counts of every phase of the metrics table, missing counts as
+	 *         -1, by phase
+	 */
+	private static Map<String, ArrayList<Long>> getPhaseCounts(final BufferedDataTable metricsTable) {
+		Map<String, ArrayList<Long>> phaseCounts = new LinkedHashMap<String, ArrayList<Long>>();
+		for (DataRow row : metricsTable) {
+			ArrayList<Long> counts = new ArrayList<Long>();
+			// after wall time, CPU time and allocated bytes
+			for (int i = 3; i < row.getNumCells(); i++) {
+				counts.add(row.getCell(i).isMissing() ? -1 : ((LongCell) row.getCell(i)).getLongValue());
+			}
+			phaseCounts.put(row.getKey().getString(), counts);
+		}
+		return phaseCounts;
+	}
+
+	@Test
+	void measuresEveryPhase() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEClusterNodeModel model = new DENCLUEClusterNodeModel();
+		model.loadValidatedSettingsFrom(createSettings(SIGMA, XI));
+		model.configure(new PortObjectSpec[] { table.getDataTableSpec() });
+		PortObject[] outData = model.execute(new PortObject[] { table }, exec);
+		BufferedDataTable metricsTable = (BufferedDataTable) outData[DENCLUEClusterNodeModel.METRICS_OUT_PORT];
+		Map<String, ArrayList<Long>> phaseCounts = getPhaseCounts(metricsTable);
+		assertEquals(Arrays.asList(DENCLUEPhaseMetrics.PHASE_GRID, DENCLUEPhaseMetrics.PHASE_CONNECT,
+				DENCLUEPhaseMetrics.PHASE_MERGE, DENCLUEPhaseMetrics.PHASE_CLIMB, DENCLUEPhaseMetrics.PHASE_LABEL),
+				new ArrayList<String>(phaseCounts.keySet()));
+		for (DataRow row : metricsTable) {
+			assertTrue(((DoubleCell) row.getCell(0)).getDoubleValue() >= 0, row.getKey().getString());
+		}
+
+		// populated and dense cubes of the grid, super cubes of the merging, climbs
+		// of the hill climbing
+		DataRow grid = sweepOwnConfiguration(table, createSettings(SIGMA, XI), exec);
+		ArrayList<Long> gridCounts = phaseCounts.get(DENCLUEPhaseMetrics.PHASE_GRID);
+		assertEquals(((IntCell) grid.getCell(5)).getIntValue(), gridCounts.get(0).longValue());
+		assertEquals(((IntCell) grid.getCell(6)).getIntValue(), gridCounts.get(1).longValue());
+		assertEquals(-1, gridCounts.get(2).longValue());
+		int numSuperCubes = phaseCounts.get(DENCLUEPhaseMetrics.PHASE_MERGE).get(2).intValue();
+		assertTrue(numSuperCubes >= 3);
+		assertTrue(phaseCounts.get(DENCLUEPhaseMetrics.PHASE_CLIMB).get(3) > 0);
+		assertEquals(Arrays.asList(-1L, -1L, -1L, -1L, -1L, -1L), phaseCounts.get(DENCLUEPhaseMetrics.PHASE_LABEL));
+	}
+}
@@ -0,0 +1,537 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * One clustering of an assigned grid with a sigma and xi: connects the dense
+ * cubes with their neighbors, merges the connected cubes into super cubes,
+ * clusters the super cubes and collects the cluster of every row and the
+ * exported model. The node runs one per execution; a parameter sweep runs one
+ * per configuration, keeping only the counts of all but the node's own.
+ * <p>
+ * Super cubes are independent once merged: they are clustered as tasks of a
+ * fork-join pool, and large ones split their members into further tasks, so
+ * that work stealing balances skewed cube sizes. Every task only writes to its
+ * own cube; cluster ids, cluster rows and the model are collected afterwards
+ * in super cube order, so they don't depend on the number of threads. The super
+ * cubes are handed to the pool in chunks, between which the calling thread
+ * checks for cancellation and reports progress.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUEClusterRun {
+
+	private final double m_sigma;
+
+	private final double m_xi;
+
+	private final boolean m_scanNeighbors;
+
+	private final String m_attractorSearch;
+
+	// absolute step size and density cutoff
+	private final double m_stepSize;
+
+	private final int m_maxIterations;
+
+	private final boolean m_shareAttractors;
+
+	private final double m_densityCutoff;
+
+	private final String[] m_columnNames;
+
+	// whether the cluster of every row and the model are kept, or only counted
+	private final boolean m_keepResults;
+
+	private final int m_numThreads;
+
+	// clusters the super cubes on m_numThreads threads, for all calls of the run
+	private ForkJoinPool m_pool;
+
+	private ForkJoinPool.ForkJoinWorkerThreadFactory m_threadFactory = ForkJoinPool.defaultForkJoinWorkerThreadFactory;
+
+	private ArrayList<DENCLUEHyperCube> m_superCubes;
+	// super cube id of every populated cube, -1 for cubes not connected to a dense
+	// cube
+	private int[] m_cubeSuperIds;
+	// ids of the cubes of every super cube
+	private DENCLUESuperCubeKey[] m_superCubeCubeIds;
+	private DENCLUEClusterIdColumn m_rowClusterIds;
+	private ArrayList<Integer> m_clusterSizes;
+	private int m_numClusterRows = 0;
+	private DENCLUEClusterModel m_clusterModel;
+	// members of all super cubes, one contiguous range per super cube
+	private DENCLUEFeatureStore m_memberStore;
+	// components of connected dense cubes, from connecting until the super cubes
+	// are built
+	private DENCLUEUnionFind m_cubeComponents;
+	// dense cube every cube is attached to, itself for a dense cube and -1 for a
+	// cube not connected to a dense cube; from connecting until the super cubes
+	// are built
+	private int[] m_cubeOwners;
+	// what clustering the super cubes did so far
+	private final DENCLUEDiagnostics m_counts = new DENCLUEDiagnostics();
+
+	/**
+	 * @param stepSize the hill-climbing step, fraction of sigma
+	 * @param densityCutoff the kd-tree cutoff, multiple of sigma
+	 * @param numThreads the threads clustering the super cubes, 1 clusters them
+	 *            on the calling thread
+	 */
+	DENCLUEClusterRun(final double sigma, final double xi, final boolean scanNeighbors, final String attractorSearch,
+			final double stepSize, final int maxIterations, final boolean shareAttractors, final double densityCutoff,
+			final String[] columnNames, final boolean keepResults, final int numThreads) {
+		m_sigma = sigma;
+		m_xi = xi;
+		m_scanNeighbors = scanNeighbors;
+		m_attractorSearch = attractorSearch;
+		m_stepSize = stepSize * sigma;
+		m_maxIterations = maxIterations;
+		m_shareAttractors = shareAttractors;
+		m_densityCutoff = densityCutoff * sigma;
+		m_columnNames = columnNames;
+		m_keepResults = keepResults;
+		m_numThreads = numThreads;
+	}
+
+	/**
+	 * Sets the factory of the threads clustering super cubes in parallel; must be
+	 * set before the first clustering.
+	 */
+	void setThreadFactory(final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory) {
+		m_threadFactory = threadFactory;
+	}
+
+	/**
+	 * The settings the attractors of a super cube depend on, besides its members.
+	 */
+	String getAttractorSettingsKey() {
+		return m_attractorSearch + "|" + m_stepSize + "|" + m_maxIterations + "|" + m_shareAttractors + "|"
+				+ m_densityCutoff;
+	}
+
+	/**
+	 * Connects the dense cubes of the assigned grid with their neighbors, must be
+	 * called before {@link #buildSuperCubes}.
+	 */
+	void connectCubes(final DENCLUEGridAssigner gridAssigner) {
+		// highly populated cubes
+		ArrayList<DENCLUEHyperCube> denseCubes = gridAssigner.getDenseCubes();
+		// all populated cubes
+		ArrayList<DENCLUEHyperCube> allCubes = gridAssigner.getAllCubes();
+		// cubes are connected within 4 sigma of cubes 2 sigma wide; a coarsened grid
+		// keeps that ratio
+		double cubeRadius = gridAssigner.getCellWidth() / 2;
+
+		// consolidating cubes based on their neighbors: connected dense cubes are
+		// resolved into components over the cube ids, then every component is
+		// materialized once as a super-hyper cube; the grid's cubes are only read
+		DENCLUEUnionFind cubeComponents = new DENCLUEUnionFind(allCubes.size());
+		// every connected cube joins the super cube of one dense cube, the first one
+		// it is connected to; a sparse cube never joins two dense cubes into one
+		// cluster
+		int[] cubeOwners = new int[allCubes.size()];
+		Arrays.fill(cubeOwners, -1);
+		for (DENCLUEHyperCube cube : denseCubes) {
+			cubeOwners[cube.getCubeId()] = cube.getCubeId();
+		}
+		if (m_scanNeighbors) {
+			// Complexity Csp * Cp; Csp << Cp
+			for (DENCLUEHyperCube cube : denseCubes) {
+				for (DENCLUEHyperCube sparseCube : allCubes) {
+					if (!cube.equals(sparseCube)) {
+						if (cube.isNeighbor(sparseCube)) {
+							if (cube.isConnected(sparseCube, cubeRadius)) {
+								connectCube(cube, sparseCube, cubeComponents, cubeOwners);
+							}
+						}
+					}
+				}
+			}
+		} else {
+			// Complexity Csp * 2d index probes; only cells adjacent to a dense cube are
+			// looked up
+			for (DENCLUEHyperCube cube : denseCubes) {
+				for (DENCLUEIndexKey candidateKey : cube.getCandidateNeighborKeys()) {
+					DENCLUEHyperCube neighborCube = gridAssigner.findCube(candidateKey);
+					if (neighborCube != null && cube.isConnected(neighborCube, cubeRadius)) {
+						connectCube(cube, neighborCube, cubeComponents, cubeOwners);
+					}
+				}
+			}
+		}
+		m_cubeOwners = cubeOwners;
+		m_cubeComponents = cubeComponents;
+	}
+
+	/**
+	 * Unions a dense cube with a connected dense neighbor; a connected sparse
+	 * neighbor is only attached to the dense cube, unless it already is to
+	 * another one.
+	 */
+	private static void connectCube(final DENCLUEHyperCube denseCube, final DENCLUEHyperCube neighborCube,
+			final DENCLUEUnionFind cubeComponents, final int[] cubeOwners) {
+		int neighborOwner = cubeOwners[neighborCube.getCubeId()];
+		if (neighborOwner == neighborCube.getCubeId()) {
+			cubeComponents.union(denseCube.getCubeId(), neighborCube.getCubeId());
+		} else if (neighborOwner < 0) {
+			cubeOwners[neighborCube.getCubeId()] = denseCube.getCubeId();
+		}
+	}
+
+	/**
+	 * Merges every component of connected dense cubes, with the sparse cubes
+	 * attached to them, into a super cube. Without dense cubes there are no super
+	 * cubes and all rows are noise.
+	 *
+	 * @param rowClusterIds the column {@link #clusterSuperCubes} sets the cluster
+	 *            rows in, {@code null} unless the results are kept
+	 * @param cache the clustered super cubes of an earlier run on the same grid,
+	 *            may be {@code null}
+	 */
+	void buildSuperCubes(final DENCLUEGridAssigner gridAssigner, final DENCLUEClusterIdColumn rowClusterIds,
+			final DENCLUEExecutionCache cache) {
+		ArrayList<DENCLUEHyperCube> denseCubes = gridAssigner.getDenseCubes();
+		ArrayList<DENCLUEHyperCube> allCubes = gridAssigner.getAllCubes();
+		DENCLUEUnionFind cubeComponents = m_cubeComponents;
+		int[] cubeOwners = m_cubeOwners;
+		m_cubeComponents = null;
+		m_cubeOwners = null;
+
+		// super cubes are keyed (and ordered) by the first dense cube of their
+		// component
+		ArrayList<DENCLUECubeBuilder> superCubeBuilders = new ArrayList<DENCLUECubeBuilder>();
+		int[] superIdByRoot = new int[allCubes.size()];
+		Arrays.fill(superIdByRoot, -1);
+		for (DENCLUEHyperCube cube : denseCubes) {
+			int root = cubeComponents.find(cube.getCubeId());
+			if (superIdByRoot[root] < 0) {
+				superIdByRoot[root] = superCubeBuilders.size();
+				superCubeBuilders.add(
+						new DENCLUECubeBuilder(cube.getCubeKey(), superCubeBuilders.size(), m_columnNames.length));
+			}
+		}
+		int[] cubeSuperIds = new int[allCubes.size()];
+		for (DENCLUEHyperCube cube : allCubes) {
+			int owner = cubeOwners[cube.getCubeId()];
+			int superId = owner >= 0 ? superIdByRoot[cubeComponents.find(owner)] : -1;
+			if (superId >= 0) {
+				superCubeBuilders.get(superId).merge(cube);
+			}
+			cubeSuperIds[cube.getCubeId()] = superId;
+		}
+		ArrayList<DENCLUEHyperCube> superCubes = new ArrayList<DENCLUEHyperCube>(superCubeBuilders.size());
+		for (DENCLUECubeBuilder superCubeBuilder : superCubeBuilders) {
+			superCubes.add(superCubeBuilder.build());
+		}
+		if (m_keepResults) {
+			// the exported model only needs to find the super cube of a new row
+			m_clusterModel = new DENCLUEClusterModel(m_columnNames, gridAssigner.getColumnBoundaries(), m_sigma,
+					m_xi);
+			for (DENCLUEHyperCube cube : allCubes) {
+				if (cubeSuperIds[cube.getCubeId()] >= 0) {
+					m_clusterModel.addCube(cube.getCubeKey(), cubeSuperIds[cube.getCubeId()]);
+				}
+			}
+		}
+
+		// the ids of its cubes identify a super cube across executions; a super cube
+		// clustered before with the same attractor search keeps its attractors
+		int[] numSuperCubeCubes = new int[superCubes.size()];
+		for (DENCLUEHyperCube cube : allCubes) {
+			if (cubeSuperIds[cube.getCubeId()] >= 0) {
+				numSuperCubeCubes[cubeSuperIds[cube.getCubeId()]]++;
+			}
+		}
+		int[][] superCubeCubeIds = new int[superCubes.size()][];
+		for (int i = 0; i < superCubes.size(); i++) {
+			superCubeCubeIds[i] = new int[numSuperCubeCubes[i]];
+			numSuperCubeCubes[i] = 0;
+		}
+		// the cubes are in ascending order of their ids
+		for (DENCLUEHyperCube cube : allCubes) {
+			int superId = cubeSuperIds[cube.getCubeId()];
+			if (superId >= 0) {
+				superCubeCubeIds[superId][numSuperCubeCubes[superId]++] = cube.getCubeId();
+			}
+		}
+		m_superCubeCubeIds = new DENCLUESuperCubeKey[superCubes.size()];
+		for (int i = 0; i < superCubes.size(); i++) {
+			m_superCubeCubeIds[i] = new DENCLUESuperCubeKey(superCubeCubeIds[i]);
+		}
+		if (cache != null) {
+			String attractorSettings = getAttractorSettingsKey();
+			for (int i = 0; i < superCubes.size(); i++) {
+				DENCLUEHyperCube clusteredCube = cache.getSuperCube(attractorSettings, m_superCubeCubeIds[i]);
+				if (clusteredCube != null) {
+					superCubes.set(i, clusteredCube);
+				}
+			}
+		}
+
+		m_superCubes = superCubes;
+		m_cubeSuperIds = cubeSuperIds;
+
+		// cluster id of every row by its position in the table, resolved once per row;
+		// rows not set are noise (rows of unconnected sparse cubes are never clustered)
+		m_rowClusterIds = rowClusterIds;
+		m_clusterSizes = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Clusters all super cubes with the members held by the feature store of the
+	 * grid, which is reordered so that the members of every super cube are one
+	 * contiguous range; rows of unconnected sparse cubes are dropped. The members
+	 * stay available until {@link #close()}, or until a cache takes them over.
+	 *
+	 * @param keepSource whether the feature store and the row cube ids of the grid
+	 *            stay usable
+	 */
+	void clusterSuperCubes(final DENCLUEGridAssigner gridAssigner, final boolean keepSource,
+			final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
+		int[] superCubeOffsets = new int[m_superCubes.size() + 1];
+		for (int i = 0; i < m_superCubes.size(); i++) {
+			superCubeOffsets[i + 1] = superCubeOffsets[i] + m_superCubes.get(i).getNumFeatureVectors();
+		}
+		DENCLUEIntColumn rowCubeIds = gridAssigner.getRowCubeIds();
+		int[] sourceRows = new int[superCubeOffsets[m_superCubes.size()]];
+		int[] nextSlot = Arrays.copyOf(superCubeOffsets, m_superCubes.size());
+		for (int row = 0; row < rowCubeIds.getNumRows(); row++) {
+			int cubeId = rowCubeIds.get(row);
+			int superId = cubeId == DENCLUEGridAssigner.NO_CUBE ? -1 : m_cubeSuperIds[cubeId];
+			if (superId >= 0) {
+				sourceRows[nextSlot[superId]++] = row;
+			}
+		}
+		m_memberStore = gridAssigner.getFeatureStore().gather(sourceRows, keepSource);
+		if (!keepSource) {
+			gridAssigner.closeRowCubeIds();
+		}
+		DENCLUEFeatureStore attractorStore = createAttractorStore(m_memberStore);
+		for (int i = 0; i < m_superCubes.size(); i++) {
+			m_superCubes.get(i).setMemberRange(m_memberStore, superCubeOffsets[i], attractorStore);
+		}
+		clusterSuperCubes(0, m_superCubes.size(), exec);
+	}
+
+	/**
+	 * Creates the store of the attractors of the members of the given store, of
+	 * the same kind and closed with it.
+	 *
+	 * @return the attractor store, {@code null} if the attractor search keeps no
+	 *         attractors
+	 */
+	DENCLUEFeatureStore createAttractorStore(final DENCLUEFeatureStore memberStore) throws IOException {
+		if (DENCLUEAttractorSearch.SEARCH_MEMBER_WALK.equals(m_attractorSearch)) {
+			return null;
+		}
+		return memberStore.createCompanion(memberStore.getNumDimensions() + 1);
+	}
+
+	/**
+	 * Hands the clustered super cubes and their members to the cache, for a later
+	 * run on the same grid with another xi.
+	 */
+	void updateCache(final DENCLUEExecutionCache cache) {
+		HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube> clusteredSuperCubes = new HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube>();
+		for (int i = 0; i < m_superCubes.size(); i++) {
+			if (m_superCubes.get(i).hasAttractors()) {
+				clusteredSuperCubes.put(m_superCubeCubeIds[i], m_superCubes.get(i));
+			}
+		}
+		cache.setSuperCubes(getAttractorSettingsKey(), clusteredSuperCubes, m_memberStore);
+		m_memberStore = null;
+	}
+
+	/**
+	 * Releases the members of the super cubes, unless a cache took them over, and
+	 * the threads of the run. Cluster and noise rows are resolved by then.
+	 */
+	void close() {
+		if (m_memberStore != null) {
+			// the store may be memory-mapped
+			m_memberStore.close();
+			m_memberStore = null;
+		}
+		if (m_pool != null) {
+			m_pool.shutdown();
+			m_pool = null;
+		}
+	}
+
+	/**
+	 * Clusters the super cubes {@code [from, to)}, whose members must be in
+	 * place, and sets the cluster rows of each to the next cluster id. The super
+	 * cubes are clustered in chunks of at least {@code CLIMB_CHUNK_SIZE} members
+	 * per thread; the calling thread checks for cancellation and reports the
+	 * share of members clustered after every chunk.
+	 */
+	void clusterSuperCubes(final int from, final int to, final ExecutionMonitor exec)
+			throws CanceledExecutionException {
+		boolean[] results = new boolean[to - from];
+		long numMembers = 0;
+		for (int i = from; i < to; i++) {
+			numMembers += m_superCubes.get(i).getNumFeatureVectors();
+		}
+		long chunkMembers = (long) m_numThreads * DENCLUEHyperCube.CLIMB_CHUNK_SIZE;
+		long clusteredMembers = 0;
+		int chunkStart = from;
+		while (chunkStart < to) {
+			int chunkEnd = chunkStart;
+			long members = 0;
+			while (chunkEnd < to && (chunkEnd == chunkStart || members < chunkMembers)) {
+				members += m_superCubes.get(chunkEnd++).getNumFeatureVectors();
+			}
+			if (m_numThreads > 1) {
+				if (m_pool == null) {
+					// the batches of a run share the pool, it is shut down by close()
+					m_pool = new ForkJoinPool(m_numThreads, m_threadFactory, null, false);
+				}
+				m_pool.invoke(new ClusterTask(chunkStart, chunkEnd, results, from));
+			} else {
+				for (int i = chunkStart; i < chunkEnd; i++) {
+					results[i - from] = clusterMembers(m_superCubes.get(i));
+				}
+			}
+			clusteredMembers += members;
+			exec.checkCanceled();
+			exec.setProgress((double) clusteredMembers / numMembers,
+					"Clustered " + clusteredMembers + " of " + numMembers + " members");
+			chunkStart = chunkEnd;
+		}
+		DENCLUEDiagnostics diagnostics = new DENCLUEDiagnostics();
+		for (int i = from; i < to; i++) {
+			collectSuperCube(m_superCubes.get(i), results[i - from]);
+			m_superCubes.get(i).addDiagnostics(diagnostics);
+			diagnostics.add(DENCLUEDiagnostics.Counter.CLUSTERS, results[i - from] ? 1 : 0);
+		}
+		diagnostics.add(DENCLUEDiagnostics.Counter.SUPER_CUBES, to - from);
+		diagnostics.log("Clustering with sigma " + m_sigma + ", xi " + m_xi + " (super cubes " + from + " to "
+				+ (to - 1) + ")");
+		m_counts.addAll(diagnostics);
+	}
+
+	/**
+	 * Splits a range of super cubes in halves down to single cubes.
+	 */
+	private class ClusterTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int m_from;
+
+		private final int m_to;
+
+		// results of the whole range of the run, indexed relative to its start
+		private final boolean[] m_results;
+
+		private final int m_resultOffset;
+
+		ClusterTask(final int from, final int to, final boolean[] results, final int resultOffset) {
+			m_from = from;
+			m_to = to;
+			m_results = results;
+			m_resultOffset = resultOffset;
+		}
+
+		@Override
+		protected void compute() {
+			if (m_to - m_from == 1) {
+				m_results[m_from - m_resultOffset] = clusterMembers(m_superCubes.get(m_from));
+			} else {
+				int middle = (m_from + m_to) >>> 1;
+				invokeAll(new ClusterTask(m_from, middle, m_results, m_resultOffset),
+						new ClusterTask(middle, m_to, m_results, m_resultOffset));
+			}
+		}
+	}
+
+	/**
+	 * Finds the attractors of the members of one super cube, or re-labels them if
+	 * the cube was clustered by an earlier run.
+	 *
+	 * @return whether the cube holds a cluster
+	 */
+	private boolean clusterMembers(final DENCLUEHyperCube joinedCube) {
+		if (joinedCube.hasAttractors()) {
+			// clustered by an earlier execution, only xi changed
+			return joinedCube.assignClusters(m_xi);
+		}
+		return joinedCube.clusterHyperCube(m_sigma, m_xi, m_attractorSearch, m_stepSize, m_maxIterations,
+				m_shareAttractors, m_densityCutoff);
+	}
+
+	/**
+	 * Sets the cluster rows of a clustered super cube to the next cluster id, if
+	 * it has any, and adds it to the model.
+	 */
+	private void collectSuperCube(final DENCLUEHyperCube joinedCube, final boolean result) {
+		if (m_keepResults) {
+			m_clusterModel.addSuperCube(result ? m_clusterSizes.size() : DENCLUEClusterModel.NOISE);
+			joinedCube.addAttractors(m_clusterModel, m_sigma, m_xi, result);
+		}
+		if (result) {
+			int clusterSize = m_keepResults ? joinedCube.putClusterRows(m_rowClusterIds, m_clusterSizes.size())
+					: joinedCube.countClusterRows();
+			m_clusterSizes.add(clusterSize);
+			m_numClusterRows += clusterSize;
+		}
+		// otherwise all members stay noise (xi value chosen improperly by user, or no
+		// clusters exist)
+	}
+
+	/**
+	 * @return what clustering the super cubes did so far: climbs, climb iterations
+	 *         and density evaluations, among others
+	 */
+	DENCLUEDiagnostics getCounts() {
+		return m_counts;
+	}
+
+	double getSigma() {
+		return m_sigma;
+	}
+
+	double getXi() {
+		return m_xi;
+	}
+
+	ArrayList<DENCLUEHyperCube> getSuperCubes() {
+		return m_superCubes;
+	}
+
+	int[] getCubeSuperIds() {
+		return m_cubeSuperIds;
+	}
+
+	/**
+	 * @return the cluster id of every row, {@code null} unless the results are
+	 *         kept
+	 */
+	DENCLUEClusterIdColumn getRowClusterIds() {
+		return m_rowClusterIds;
+	}
+
+	ArrayList<Integer> getClusterSizes() {
+		return m_clusterSizes;
+	}
+
+	int getNumClusterRows() {
+		return m_numClusterRows;
+	}
+
+	/**
+	 * @return the exported model, {@code null} unless the results are kept
+	 */
+	DENCLUEClusterModel getClusterModel() {
+		return m_clusterModel;
+	}
+}
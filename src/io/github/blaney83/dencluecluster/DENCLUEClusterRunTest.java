@@ -0,0 +1,101 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+
+class DENCLUEClusterRunTest {
+
+	private static final double XI = 20;
+
+	private static final int NUM_DENSE_ROWS = 20;
+
+	/**
+	 * Two dense cubes too far apart to be connected, both connected to the sparse
+	 * cube between them.
+	 */
+	private static DENCLUEGridAssigner assignBridgedGrid(final ExecutionContext exec) throws Exception {
+		double[][] featureVectors = new double[2 * NUM_DENSE_ROWS + 2][];
+		for (int row = 0; row < NUM_DENSE_ROWS; row++) {
+			featureVectors[row] = new double[] { 0.1, 0.5 };
+			featureVectors[NUM_DENSE_ROWS + row] = new double[] { 2.9, 0.5 };
+		}
+		featureVectors[2 * NUM_DENSE_ROWS] = new double[] { 1.5, 0.5 };
+		featureVectors[2 * NUM_DENSE_ROWS + 1] = new double[] { 1.5, 0.5 };
+		BufferedDataTable table = DENCLUETestTables.createTable(exec, featureVectors);
+
+		double[][] columnBoundaries = { { 0, 1 }, { 1, 2 }, { 2, 3 } };
+		Map<Integer, double[][]> boundaries = new HashMap<Integer, double[][]>();
+		boundaries.put(0, columnBoundaries);
+		boundaries.put(1, columnBoundaries);
+		DENCLUEGridAssigner gridAssigner = new DENCLUEGridAssigner(boundaries, 1, XI, new DENCLUEHashCubeIndex());
+		gridAssigner.assign(table, new DENCLUEHeapFeatureStore(2, featureVectors.length), 1, exec);
+		return gridAssigner;
+	}
+
+	private static DENCLUEClusterRun createRun(final boolean scanNeighbors, final int numThreads) {
+		return new DENCLUEClusterRun(0.5, XI, scanNeighbors, DENCLUEAttractorSearch.SEARCH_MEMBER_WALK, 0.05, 100,
+				false, 0, new String[] { "x0", "x1" }, false, numThreads);
+	}
+
+	@Test
+	void keepsSparseCubesFromBridgingDenseCubes() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		DENCLUEGridAssigner gridAssigner = assignBridgedGrid(exec);
+		assertEquals(2, gridAssigner.getDenseCubes().size());
+		assertEquals(3, gridAssigner.getAllCubes().size());
+		for (boolean scanNeighbors : new boolean[] { true, false }) {
+			DENCLUEClusterRun run = createRun(scanNeighbors, 1);
+			run.connectCubes(gridAssigner);
+			run.buildSuperCubes(gridAssigner, null, null);
+			assertEquals(2, run.getSuperCubes().size());
+			// the sparse cube joins the super cube of the first dense cube only
+			int numSuperCubeRows = 0;
+			for (DENCLUEHyperCube superCube : run.getSuperCubes()) {
+				numSuperCubeRows += superCube.getNumFeatureVectors();
+			}
+			assertEquals(2 * NUM_DENSE_ROWS + 2, numSuperCubeRows);
+			for (DENCLUEHyperCube cube : gridAssigner.getAllCubes()) {
+				assertTrue(run.getCubeSuperIds()[cube.getCubeId()] >= 0);
+			}
+			run.close();
+		}
+	}
+
+	@Test
+	void reportsProgressAndCancels() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		DENCLUEGridAssigner gridAssigner = assignBridgedGrid(exec);
+		for (int numThreads : new int[] { 1, 4 }) {
+			DENCLUEClusterRun run = createRun(false, numThreads);
+			run.connectCubes(gridAssigner);
+			run.buildSuperCubes(gridAssigner, null, null);
+			DefaultNodeProgressMonitor progress = new DefaultNodeProgressMonitor();
+			run.clusterSuperCubes(gridAssigner, true, new ExecutionMonitor(progress));
+			assertEquals(1, progress.getProgress(), 1e-12);
+			run.close();
+
+			DENCLUEClusterRun canceledRun = createRun(false, numThreads);
+			canceledRun.connectCubes(gridAssigner);
+			canceledRun.buildSuperCubes(gridAssigner, null, null);
+			DefaultNodeProgressMonitor canceledProgress = new DefaultNodeProgressMonitor();
+			canceledProgress.setExecuteCanceled();
+			try {
+				canceledRun.clusterSuperCubes(gridAssigner, true, new ExecutionMonitor(canceledProgress));
+				fail("Expected the canceled clustering to stop");
+			} catch (CanceledExecutionException e) {
+				// checked after the first chunk
+			} finally {
+				canceledRun.close();
+			}
+		}
+	}
+}
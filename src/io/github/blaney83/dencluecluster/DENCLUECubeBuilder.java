@@ -0,0 +1,75 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Accumulates the member count and linear sum of a cube while rows are
+ * assigned, or of a super cube while cubes are merged into it. Once complete,
+ * {@link #build()} takes a read-only {@link DENCLUEHyperCube} with its mean
+ * computed, which any number of threads can then read; the builder is only
+ * ever used by one thread at a time.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUECubeBuilder {
+
+	private final DENCLUEIndexKey m_cubeKey;
+
+	private int m_cubeId;
+
+	private int m_numFeatureVectors = 0;
+
+	private final double[] m_linearSum;
+
+	DENCLUECubeBuilder(final DENCLUEIndexKey cubeKey, final int cubeId, final int numDimensions) {
+		m_cubeKey = cubeKey;
+		m_cubeId = cubeId;
+		m_linearSum = new double[numDimensions];
+	}
+
+	void addMember(final double[] featureVector) {
+		m_numFeatureVectors++;
+		for (int i = 0; i < m_linearSum.length; i++) {
+			m_linearSum[i] += featureVector[i];
+		}
+	}
+
+	/**
+	 * Adds the members of a chunk-local builder of the same cell.
+	 */
+	void merge(final DENCLUECubeBuilder other) {
+		merge(other.m_numFeatureVectors, other.m_linearSum);
+	}
+
+	/**
+	 * Adds the members of a cube merged into this super cube.
+	 */
+	void merge(final DENCLUEHyperCube cube) {
+		merge(cube.getNumFeatureVectors(), cube.getLinearSum());
+	}
+
+	private void merge(final int numFeatureVectors, final double[] linearSum) {
+		m_numFeatureVectors += numFeatureVectors;
+		for (int i = 0; i < m_linearSum.length; i++) {
+			m_linearSum[i] += linearSum[i];
+		}
+	}
+
+	void setCubeId(final int cubeId) {
+		m_cubeId = cubeId;
+	}
+
+	int getCubeId() {
+		return m_cubeId;
+	}
+
+	DENCLUEIndexKey getCubeKey() {
+		return m_cubeKey;
+	}
+
+	/**
+	 * @return a snapshot of the members accumulated so far; later members don't
+	 *         change it
+	 */
+	DENCLUEHyperCube build() {
+		return new DENCLUEHyperCube(m_cubeKey, m_cubeId, m_numFeatureVectors, m_linearSum.clone());
+	}
+}
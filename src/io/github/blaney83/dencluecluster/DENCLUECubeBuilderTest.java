@@ -0,0 +1,73 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUECubeBuilderTest {
+
+	private static DENCLUEIndexKey createKey(final int... keyValues) {
+		DENCLUEIndexKey key = new DENCLUEIndexKey(keyValues.length);
+		for (int i = 0; i < keyValues.length; i++) {
+			key.setValue(i, keyValues[i]);
+		}
+		return key;
+	}
+
+	@Test
+	void buildsMeanOfMembers() {
+		DENCLUECubeBuilder builder = new DENCLUECubeBuilder(createKey(1, 2), 3, 2);
+		builder.addMember(new double[] { 1, -1 });
+		builder.addMember(new double[] { 2, -3 });
+		DENCLUEHyperCube cube = builder.build();
+		assertEquals(createKey(1, 2), cube.getCubeKey());
+		assertEquals(3, cube.getCubeId());
+		assertEquals(2, cube.getNumFeatureVectors());
+		assertArrayEquals(new double[] { 3, -4 }, cube.getLinearSum(), 1e-12);
+		assertArrayEquals(new double[] { 1.5, -2 }, cube.getMean(), 1e-12);
+	}
+
+	@Test
+	void keepsBuiltCubeUnchanged() {
+		DENCLUECubeBuilder builder = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		builder.addMember(new double[] { 1, 1 });
+		DENCLUEHyperCube cube = builder.build();
+		builder.addMember(new double[] { 3, 5 });
+		assertEquals(1, cube.getNumFeatureVectors());
+		assertArrayEquals(new double[] { 1, 1 }, cube.getLinearSum(), 1e-12);
+		assertArrayEquals(new double[] { 1, 1 }, cube.getMean(), 1e-12);
+		assertEquals(2, builder.build().getNumFeatureVectors());
+	}
+
+	@Test
+	void mergesLikeAddingMembers() {
+		double[][] featureVectors = { { 0.5, 1 }, { 1.5, 0.25 }, { 0.75, 0.75 }, { 1, 2 } };
+		DENCLUECubeBuilder added = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		for (double[] featureVector : featureVectors) {
+			added.addMember(featureVector);
+		}
+		// two chunk-local builders of the same cell
+		DENCLUECubeBuilder merged = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		DENCLUECubeBuilder chunk = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		merged.addMember(featureVectors[0]);
+		merged.addMember(featureVectors[1]);
+		chunk.addMember(featureVectors[2]);
+		chunk.addMember(featureVectors[3]);
+		merged.merge(chunk);
+		assertEquals(added.build().getNumFeatureVectors(), merged.build().getNumFeatureVectors());
+		assertArrayEquals(added.build().getMean(), merged.build().getMean(), 1e-12);
+
+		// a super cube of the two cubes built from the halves
+		DENCLUECubeBuilder first = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		DENCLUECubeBuilder second = new DENCLUECubeBuilder(createKey(0, 1), 1, 2);
+		first.addMember(featureVectors[0]);
+		first.addMember(featureVectors[1]);
+		second.addMember(featureVectors[2]);
+		second.addMember(featureVectors[3]);
+		DENCLUECubeBuilder superCube = new DENCLUECubeBuilder(createKey(0, 0), 0, 2);
+		superCube.merge(first.build());
+		superCube.merge(second.build());
+		assertEquals(4, superCube.build().getNumFeatureVectors());
+		assertArrayEquals(added.build().getMean(), superCube.build().getMean(), 1e-12);
+	}
+}
@@ -0,0 +1,34 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Point lookup structure mapping the grid coordinates of a populated cell to
+ * the {@link DENCLUECubeBuilder} of its cube. Implemented by a B+ tree
+ * ({@link DENCLUETreeCubeIndex}) and by an open-addressing hash table
+ * ({@link DENCLUEHashCubeIndex}) so both can be compared on the same input.
+ *
+ * @author Benjamin Laney
+ */
+public interface DENCLUECubeIndex {
+
+	static final String INDEX_HASH = "Hash table";
+
+	static final String INDEX_BPLUS_TREE = "B+ tree";
+
+	/**
+	 * @return the cube stored under the key, or {@code null} if the cell is not
+	 *         populated
+	 */
+	DENCLUECubeBuilder search(DENCLUEIndexKey key);
+
+	/**
+	 * Stores the cube under the key, replacing any cube already stored there.
+	 */
+	void insert(DENCLUEIndexKey key, DENCLUECubeBuilder cube);
+
+	/**
+	 * Removes the cube stored under the key if present.
+	 */
+	void delete(DENCLUEIndexKey key);
+
+	int size();
+}
@@ -0,0 +1,33 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Gaussian density of the members of one super cube and the direction of its
+ * gradient at a point, as used by the attractor searches. Instances hold
+ * scratch space and must not be shared between threads.
+ *
+ * @author Benjamin Laney
+ */
+public interface DENCLUEDensityEstimator {
+
+	/**
+	 * Writes the direction of the density gradient at the point, sum of
+	 * {@code influence * (member - point)}, into {@code gradient} and records the
+	 * members within sigma/2 of the point in the path.
+	 *
+	 * @param path the climb path to record into, may be {@code null}
+	 * @return the density at the point
+	 */
+	double densityGradient(double[] point, double[] gradient, DENCLUEClimbPath path);
+
+	/**
+	 * @return an estimator over the same members with its own scratch space, for
+	 *         another thread
+	 */
+	DENCLUEDensityEstimator duplicate();
+
+	/**
+	 * Releases the storage held for the members, once neither this estimator nor
+	 * any of its duplicates is used any more.
+	 */
+	void close();
+}
@@ -0,0 +1,72 @@
+package io.github.blaney83.dencluecluster;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Counts what a phase of the clustering did and logs the totals as one debug
+ * message of the node's {@link NodeLogger}, if debug messages are enabled. The
+ * hot loops only count into plain fields of their own; their totals are added
+ * here once per cube. Counts are added by one thread; parallel tasks keep their
+ * own and are added once they are done.
+ *
+ * @author Benjamin Laney
+ */
+final class DENCLUEDiagnostics {
+
+	static final NodeLogger LOGGER = NodeLogger.getLogger(DENCLUEClusterNodeModel.class);
+
+	enum Counter {
+		ROWS("rows"), POPULATED_CUBES("populated cubes"), DENSE_CUBES("dense cubes"), SUPER_CUBES("super cubes"),
+		RELABELED_SUPER_CUBES("super cubes re-labeled for xi"), MEMBERS("members"), NEAR_X("near(x) members"),
+		WALK_STEPS("member walk steps"), CLIMBS("hill climbs"), CLIMB_ITERATIONS("climb iterations"),
+		DENSITY_EVALUATIONS("density evaluations"), CLUSTERS("clusters");
+
+		private final String m_label;
+
+		private Counter(final String label) {
+			m_label = label;
+		}
+	}
+
+	private final long[] m_counts = new long[Counter.values().length];
+
+	/**
+	 * @return whether {@link #log} writes anything, so counts only needed for the
+	 *         log can be skipped otherwise
+	 */
+	static boolean isLogging() {
+		return LOGGER.isDebugEnabled();
+	}
+
+	void add(final Counter counter, final long count) {
+		m_counts[counter.ordinal()] += count;
+	}
+
+	void addAll(final DENCLUEDiagnostics other) {
+		for (int i = 0; i < m_counts.length; i++) {
+			m_counts[i] += other.m_counts[i];
+		}
+	}
+
+	long get(final Counter counter) {
+		return m_counts[counter.ordinal()];
+	}
+
+	/**
+	 * Logs the counts that aren't 0, if debug messages are enabled.
+	 */
+	void log(final String phase) {
+		if (!isLogging()) {
+			return;
+		}
+		StringBuilder message = new StringBuilder(phase).append(':');
+		String separator = " ";
+		for (Counter counter : Counter.values()) {
+			if (m_counts[counter.ordinal()] != 0) {
+				message.append(separator).append(m_counts[counter.ordinal()]).append(' ').append(counter.m_label);
+				separator = ", ";
+			}
+		}
+		LOGGER.debug(message.toString());
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEDiagnosticsTest {
+
+	private static final int NUM_MEMBERS = 60;
+
+	private static final double SIGMA = 0.5;
+
+	private static final double XI = 1;
+
+	/**
+	 * A super cube of members spread around the origin.
+	 */
+	private static DENCLUEHyperCube createClusterableCube() {
+		double[][] featureVectors = DENCLUETestTables.createBlobs(new double[][] { { 0, 0 } }, 0.2, NUM_MEMBERS, 42);
+		DENCLUEFeatureStore featureStore = new DENCLUEHeapFeatureStore(2, NUM_MEMBERS);
+		double[] linearSum = new double[2];
+		for (int row = 0; row < NUM_MEMBERS; row++) {
+			featureStore.setRowIndex(row, row);
+			for (int dimension = 0; dimension < 2; dimension++) {
+				featureStore.setValue(row, dimension, featureVectors[row][dimension]);
+				linearSum[dimension] += featureVectors[row][dimension];
+			}
+		}
+		DENCLUEHyperCube cube = new DENCLUEHyperCube(new DENCLUEIndexKey(2), 0, NUM_MEMBERS, linearSum);
+		cube.setMemberRange(featureStore, 0);
+		return cube;
+	}
+
+	@Test
+	void addsCounts() {
+		DENCLUEDiagnostics diagnostics = new DENCLUEDiagnostics();
+		diagnostics.add(DENCLUEDiagnostics.Counter.ROWS, 5);
+		diagnostics.add(DENCLUEDiagnostics.Counter.ROWS, 7);
+		assertEquals(12, diagnostics.get(DENCLUEDiagnostics.Counter.ROWS));
+		assertEquals(0, diagnostics.get(DENCLUEDiagnostics.Counter.CLUSTERS));
+		DENCLUEDiagnostics taskDiagnostics = new DENCLUEDiagnostics();
+		taskDiagnostics.add(DENCLUEDiagnostics.Counter.ROWS, 3);
+		taskDiagnostics.add(DENCLUEDiagnostics.Counter.CLUSTERS, 1);
+		diagnostics.addAll(taskDiagnostics);
+		assertEquals(15, diagnostics.get(DENCLUEDiagnostics.Counter.ROWS));
+		assertEquals(1, diagnostics.get(DENCLUEDiagnostics.Counter.CLUSTERS));
+	}
+
+	@Test
+	void countsMemberWalk() {
+		DENCLUEHyperCube cube = createClusterableCube();
+		assertTrue(cube.clusterHyperCube(SIGMA, XI));
+		DENCLUEDiagnostics diagnostics = new DENCLUEDiagnostics();
+		cube.addDiagnostics(diagnostics);
+		assertEquals(NUM_MEMBERS, diagnostics.get(DENCLUEDiagnostics.Counter.MEMBERS));
+		assertTrue(diagnostics.get(DENCLUEDiagnostics.Counter.NEAR_X) > 0);
+		assertTrue(diagnostics.get(DENCLUEDiagnostics.Counter.WALK_STEPS) > 0);
+		assertEquals(0, diagnostics.get(DENCLUEDiagnostics.Counter.CLIMBS));
+	}
+
+	@Test
+	void countsClimbsAndRelabeling() {
+		DENCLUEHyperCube cube = createClusterableCube();
+		assertTrue(cube.clusterHyperCube(SIGMA, XI, DENCLUEAttractorSearch.SEARCH_GRADIENT, 0.1 * SIGMA, 100, false,
+				0));
+		DENCLUEDiagnostics diagnostics = new DENCLUEDiagnostics();
+		cube.addDiagnostics(diagnostics);
+		// one climb per member without shared attractors
+		assertEquals(NUM_MEMBERS, diagnostics.get(DENCLUEDiagnostics.Counter.CLIMBS));
+		assertEquals(0, diagnostics.get(DENCLUEDiagnostics.Counter.RELABELED_SUPER_CUBES));
+
+		// a new xi only re-labels the members from their attractors
+		assertTrue(cube.assignClusters(XI + 1));
+		DENCLUEDiagnostics relabelDiagnostics = new DENCLUEDiagnostics();
+		cube.addDiagnostics(relabelDiagnostics);
+		assertEquals(0, relabelDiagnostics.get(DENCLUEDiagnostics.Counter.CLIMBS));
+		assertEquals(1, relabelDiagnostics.get(DENCLUEDiagnostics.Counter.RELABELED_SUPER_CUBES));
+		assertEquals(NUM_MEMBERS, relabelDiagnostics.get(DENCLUEDiagnostics.Counter.MEMBERS));
+	}
+}
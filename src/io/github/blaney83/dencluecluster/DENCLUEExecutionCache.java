@@ -0,0 +1,87 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.HashMap;
+
+/**
+ * Results of the last in-memory execution that don't depend on xi: the
+ * assigned grid with its feature store, keyed by the input table and the grid
+ * settings, and the clustered super cubes with the attractor of every member,
+ * keyed by the attractor search settings and the cubes they are made of. When
+ * only xi changes, the grid is re-thresholded and every super cube made of the
+ * same cubes as before is re-labeled from its attractor densities instead of
+ * being climbed again.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUEExecutionCache {
+
+	private final int m_tableId;
+
+	private final String m_gridSettings;
+
+	private final DENCLUEGridAssigner m_gridAssigner;
+
+	private String m_attractorSettings;
+
+	// clustered super cubes by the (ascending) ids of their cubes
+	private HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube> m_superCubes = new HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube>();
+
+	// members of the cached super cubes, their row keys label the cluster rows
+	private DENCLUEFeatureStore m_memberStore;
+
+	DENCLUEExecutionCache(final int tableId, final String gridSettings, final DENCLUEGridAssigner gridAssigner) {
+		m_tableId = tableId;
+		m_gridSettings = gridSettings;
+		m_gridAssigner = gridAssigner;
+	}
+
+	boolean hasGrid(final int tableId, final String gridSettings) {
+		return m_tableId == tableId && m_gridSettings.equals(gridSettings);
+	}
+
+	DENCLUEGridAssigner getGridAssigner() {
+		return m_gridAssigner;
+	}
+
+	/**
+	 * @return the super cube clustered from the given cubes with the given
+	 *         attractor search settings, {@code null} if there is none
+	 */
+	DENCLUEHyperCube getSuperCube(final String attractorSettings, final DENCLUESuperCubeKey cubeIds) {
+		if (!attractorSettings.equals(m_attractorSettings)) {
+			return null;
+		}
+		return m_superCubes.get(cubeIds);
+	}
+
+	/**
+	 * Replaces the cached super cubes by those of the current execution. Super
+	 * cubes taken from the cache were moved to the new member store by then, so
+	 * the previous store is closed.
+	 */
+	void setSuperCubes(final String attractorSettings, final HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube> superCubes,
+			final DENCLUEFeatureStore memberStore) {
+		closeSuperCubes();
+		m_attractorSettings = attractorSettings;
+		m_superCubes = superCubes;
+		m_memberStore = memberStore;
+	}
+
+	/**
+	 * Drops the cached super cubes, keeping the grid.
+	 */
+	void closeSuperCubes() {
+		if (m_memberStore != null) {
+			m_memberStore.close();
+			m_memberStore = null;
+		}
+		m_attractorSettings = null;
+		m_superCubes = new HashMap<DENCLUESuperCubeKey, DENCLUEHyperCube>();
+	}
+
+	void close() {
+		closeSuperCubes();
+		m_gridAssigner.getFeatureStore().close();
+		m_gridAssigner.closeRowCubeIds();
+	}
+}
@@ -0,0 +1,82 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.IOException;
+
+/**
+ * Columnar store of the feature vectors of all rows, addressed by an
+ * {@code int} row offset. Cubes refer to their members by offset ranges instead
+ * of holding feature vectors themselves. Implemented on the heap
+ * ({@link DENCLUEHeapFeatureStore}) and in a memory-mapped temp file
+ * ({@link DENCLUEMappedFeatureStore}) for data larger than the heap.
+ *
+ * @author Benjamin Laney
+ */
+public interface DENCLUEFeatureStore {
+
+	static final String STORAGE_HEAP = "Heap";
+
+	static final String STORAGE_MAPPED = "Memory-mapped file";
+
+	void setValue(int row, int dimension, double value);
+
+	double getValue(int row, int dimension);
+
+	/**
+	 * Sets the position in the input table of the row stored at the offset.
+	 */
+	void setRowIndex(int row, int rowIndex);
+
+	/**
+	 * @return the position in the input table of the row stored at the offset
+	 */
+	int getRowIndex(int row);
+
+	/**
+	 * Copies the feature vector of a row into the target array.
+	 */
+	void getRow(int row, double[] target);
+
+	/**
+	 * Copies the rows {@code [offset, offset + count)} into a new columnar block on
+	 * the heap, {@code block[dimension][row - offset]}.
+	 */
+	double[][] readBlock(int offset, int count);
+
+	/**
+	 * Like {@link #readBlock(int, int)}, into the first {@code count} values of
+	 * every column of the given block.
+	 */
+	void readBlock(int offset, int count, double[][] target);
+
+	/**
+	 * @return whether the rows are held on the heap; rows held elsewhere are read
+	 *         in blocks as they are needed instead of being copied as a whole
+	 */
+	boolean isOnHeap();
+
+	/**
+	 * Creates an empty store of the same kind with as many rows as this one and
+	 * the given number of dimensions, for values computed per row. It is closed
+	 * together with this store.
+	 */
+	DENCLUEFeatureStore createCompanion(int numDimensions) throws IOException;
+
+	/**
+	 * Creates a store of the same kind holding the rows
+	 * {@code sourceRows[0..length)} of this store, in that order. Unless kept,
+	 * this store is closed and must not be used afterwards.
+	 *
+	 * @param keepSource whether this store stays usable, at the cost of holding
+	 *            both stores at once
+	 */
+	DENCLUEFeatureStore gather(int[] sourceRows, boolean keepSource) throws IOException;
+
+	int getNumRows();
+
+	int getNumDimensions();
+
+	/**
+	 * Releases the storage held by this store and its companions.
+	 */
+	void close();
+}
@@ -0,0 +1,126 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEFeatureStoreTest {
+
+	/**
+	 * Fills the store with rows whose values encode their row and dimension.
+	 */
+	private static DENCLUEFeatureStore fill(final DENCLUEFeatureStore featureStore) {
+		for (int row = 0; row < featureStore.getNumRows(); row++) {
+			featureStore.setRowIndex(row, 100 + row);
+			for (int dimension = 0; dimension < featureStore.getNumDimensions(); dimension++) {
+				featureStore.setValue(row, dimension, row + dimension / 10d);
+			}
+		}
+		return featureStore;
+	}
+
+	private static void assertReadsRowsAndBlocks(final DENCLUEFeatureStore featureStore) {
+		assertEquals(20, featureStore.getNumRows());
+		assertEquals(3, featureStore.getNumDimensions());
+		double[] featureVector = new double[3];
+		featureStore.getRow(7, featureVector);
+		assertArrayEquals(new double[] { 7, 7.1, 7.2 }, featureVector);
+		assertEquals(107, featureStore.getRowIndex(7));
+		double[][] block = featureStore.readBlock(5, 4);
+		for (int dimension = 0; dimension < 3; dimension++) {
+			assertEquals(4, block[dimension].length);
+			for (int i = 0; i < 4; i++) {
+				assertEquals(featureStore.getValue(5 + i, dimension), block[dimension][i]);
+			}
+		}
+	}
+
+	private static void assertGathersRowsInOrder(final DENCLUEFeatureStore featureStore, final boolean keepSource)
+			throws IOException {
+		int[] sourceRows = { 9, 2, 5, 0 };
+		DENCLUEFeatureStore gathered = featureStore.gather(sourceRows, keepSource);
+		assertEquals(featureStore.getClass(), gathered.getClass());
+		assertEquals(4, gathered.getNumRows());
+		assertEquals(3, gathered.getNumDimensions());
+		for (int i = 0; i < sourceRows.length; i++) {
+			assertEquals(100 + sourceRows[i], gathered.getRowIndex(i));
+			assertEquals(sourceRows[i], gathered.getValue(i, 0));
+			assertEquals(sourceRows[i] + 0.2, gathered.getValue(i, 2));
+		}
+		gathered.close();
+		if (keepSource) {
+			assertReadsRowsAndBlocks(featureStore);
+			featureStore.close();
+		}
+	}
+
+	@Test
+	void readsHeapRowsAndBlocks() {
+		DENCLUEFeatureStore featureStore = fill(new DENCLUEHeapFeatureStore(3, 20));
+		assertReadsRowsAndBlocks(featureStore);
+		featureStore.close();
+	}
+
+	@Test
+	void readsMappedRowsAndBlocks() throws IOException {
+		DENCLUEFeatureStore featureStore = fill(new DENCLUEMappedFeatureStore(3, 20));
+		assertReadsRowsAndBlocks(featureStore);
+		featureStore.close();
+	}
+
+	@Test
+	void gathersHeapRowsInOrder() throws IOException {
+		assertGathersRowsInOrder(fill(new DENCLUEHeapFeatureStore(3, 20)), false);
+		assertGathersRowsInOrder(fill(new DENCLUEHeapFeatureStore(3, 20)), true);
+	}
+
+	@Test
+	void gathersMappedRowsInOrder() throws IOException {
+		assertGathersRowsInOrder(fill(new DENCLUEMappedFeatureStore(3, 20)), false);
+		assertGathersRowsInOrder(fill(new DENCLUEMappedFeatureStore(3, 20)), true);
+	}
+
+	@Test
+	void mapsLikeHeap() throws IOException {
+		DENCLUEFeatureStore heapStore = new DENCLUEHeapFeatureStore(4, 1000);
+		DENCLUEFeatureStore mappedStore = new DENCLUEMappedFeatureStore(4, 1000);
+		Random random = new Random(5);
+		for (int row = 0; row < 1000; row++) {
+			for (int dimension = 0; dimension < 4; dimension++) {
+				double value = random.nextGaussian();
+				heapStore.setValue(row, dimension, value);
+				mappedStore.setValue(row, dimension, value);
+			}
+		}
+		double[] heapVector = new double[4];
+		double[] mappedVector = new double[4];
+		for (int row = 0; row < 1000; row++) {
+			heapStore.getRow(row, heapVector);
+			mappedStore.getRow(row, mappedVector);
+			assertArrayEquals(heapVector, mappedVector);
+		}
+		double[][] heapBlock = heapStore.readBlock(100, 500);
+		double[][] mappedBlock = mappedStore.readBlock(100, 500);
+		for (int dimension = 0; dimension < 4; dimension++) {
+			assertArrayEquals(heapBlock[dimension], mappedBlock[dimension]);
+		}
+		heapStore.close();
+		mappedStore.close();
+	}
+
+	@Test
+	void deletesMappedFilesOnClose() throws IOException {
+		DENCLUEMappedFeatureStore featureStore = new DENCLUEMappedFeatureStore(3, 20);
+		assertTrue(featureStore.getFile().exists());
+		featureStore.close();
+		assertFalse(featureStore.getFile().exists());
+
+		DENCLUEIntColumn column = DENCLUEIntColumn.create(20, false);
+		assertTrue(column.getFile().exists());
+		column.close();
+		assertFalse(column.getFile().exists());
+	}
+}
@@ -0,0 +1,94 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Gaussian influence function f(x, y) = exp(-d(x, y)^2 / (2 sigma^2)) and the
+ * density f^D(x) summed over a block of members. Works on squared distances
+ * only, with {@code -1 / (2 sigma^2)} precomputed. Members are passed as
+ * columnar blocks ({@code block[dimension][member]}) so the distance loops run
+ * over contiguous primitive arrays, one dimension at a time, which the JIT can
+ * unroll and vectorize.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEGaussianKernel {
+
+	private final double m_sigma;
+
+	private final double m_negInvTwoSigmaSquared;
+
+	public DENCLUEGaussianKernel(final double sigma) {
+		m_sigma = sigma;
+		m_negInvTwoSigmaSquared = -1.0 / (2.0 * sigma * sigma);
+	}
+
+	public double influence(final double squaredDistance) {
+		return Math.exp(squaredDistance * m_negInvTwoSigmaSquared);
+	}
+
+	/**
+	 * Writes the squared distances between the point and the first {@code count}
+	 * members of the block into {@code squaredDistances}.
+	 */
+	public void squaredDistances(final double[][] block, final int count, final double[] point,
+			final double[] squaredDistances) {
+		double[] column = block[0];
+		double coordinate = point[0];
+		for (int i = 0; i < count; i++) {
+			double diff = column[i] - coordinate;
+			squaredDistances[i] = diff * diff;
+		}
+		for (int dimension = 1; dimension < block.length; dimension++) {
+			column = block[dimension];
+			coordinate = point[dimension];
+			for (int i = 0; i < count; i++) {
+				double diff = column[i] - coordinate;
+				squaredDistances[i] += diff * diff;
+			}
+		}
+	}
+
+	/**
+	 * Sums the influence of the first {@code count} members of the block on the
+	 * point. {@code scratch} must hold at least {@code count} values and is
+	 * overwritten with the squared distances.
+	 */
+	public double density(final double[][] block, final int count, final double[] point, final double[] scratch) {
+		squaredDistances(block, count, point, scratch);
+		double sum = 0.0;
+		for (int i = 0; i < count; i++) {
+			sum += Math.exp(scratch[i] * m_negInvTwoSigmaSquared);
+		}
+		return sum;
+	}
+
+	/**
+	 * Sums the influence of the first {@code count} members of the block on the
+	 * point and writes the direction of the density gradient, sum of
+	 * {@code influence * (member - point)}, into {@code gradient}. The constant
+	 * factor {@code 1 / sigma^2} of the gradient is left out. {@code scratch} is
+	 * overwritten with the influences.
+	 */
+	public double densityGradient(final double[][] block, final int count, final double[] point,
+			final double[] scratch, final double[] gradient) {
+		squaredDistances(block, count, point, scratch);
+		double sum = 0.0;
+		for (int i = 0; i < count; i++) {
+			double influence = Math.exp(scratch[i] * m_negInvTwoSigmaSquared);
+			scratch[i] = influence;
+			sum += influence;
+		}
+		for (int dimension = 0; dimension < block.length; dimension++) {
+			double[] column = block[dimension];
+			double weighted = 0.0;
+			for (int i = 0; i < count; i++) {
+				weighted += scratch[i] * column[i];
+			}
+			gradient[dimension] = weighted - sum * point[dimension];
+		}
+		return sum;
+	}
+
+	public double getSigma() {
+		return m_sigma;
+	}
+}
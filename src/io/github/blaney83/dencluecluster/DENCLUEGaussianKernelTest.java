@@ -0,0 +1,84 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEGaussianKernelTest {
+
+	private static final double SIGMA = 0.7;
+
+	private static final int COUNT = 37;
+
+	private static double[][] createBlock() {
+		Random random = new Random(1);
+		double[][] block = new double[3][COUNT + 5];
+		for (int dimension = 0; dimension < block.length; dimension++) {
+			for (int i = 0; i < block[dimension].length; i++) {
+				block[dimension][i] = random.nextGaussian();
+			}
+		}
+		return block;
+	}
+
+	private static double squaredDistance(final double[][] block, final int member, final double[] point) {
+		double squaredDistance = 0;
+		for (int dimension = 0; dimension < block.length; dimension++) {
+			double diff = block[dimension][member] - point[dimension];
+			squaredDistance += diff * diff;
+		}
+		return squaredDistance;
+	}
+
+	@Test
+	void computesInfluence() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		assertEquals(1, kernel.influence(0), 1e-15);
+		assertEquals(Math.exp(-0.5), kernel.influence(SIGMA * SIGMA), 1e-15);
+		assertEquals(SIGMA, kernel.getSigma(), 0);
+	}
+
+	@Test
+	void sumsDensityOfFirstMembers() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock();
+		double[] point = { 0.3, -0.2, 0.5 };
+		double expected = 0;
+		for (int i = 0; i < COUNT; i++) {
+			expected += Math.exp(-squaredDistance(block, i, point) / (2 * SIGMA * SIGMA));
+		}
+		double[] scratch = new double[COUNT];
+		assertEquals(expected, kernel.density(block, COUNT, point, scratch), 1e-12);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(squaredDistance(block, i, point), scratch[i], 1e-12);
+		}
+		double[] gradient = new double[3];
+		assertEquals(expected, kernel.densityGradient(block, COUNT, point, scratch, gradient), 1e-12);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(Math.exp(-squaredDistance(block, i, point) / (2 * SIGMA * SIGMA)), scratch[i], 1e-15);
+		}
+	}
+
+	@Test
+	void computesGradientDirection() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock();
+		double[] point = { 0.3, -0.2, 0.5 };
+		double[] scratch = new double[COUNT];
+		double[] gradient = new double[3];
+		kernel.densityGradient(block, COUNT, point, scratch, gradient);
+		// central differences of the density, the gradient leaves out 1 / sigma^2
+		double step = 1e-5;
+		for (int dimension = 0; dimension < 3; dimension++) {
+			double[] upper = point.clone();
+			double[] lower = point.clone();
+			upper[dimension] += step;
+			lower[dimension] -= step;
+			double derivative = (kernel.density(block, COUNT, upper, scratch)
+					- kernel.density(block, COUNT, lower, scratch)) / (2 * step);
+			assertEquals(derivative * SIGMA * SIGMA, gradient[dimension], 1e-6);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * DENCLUE hill climbing: x^(i+1) = x^i + delta * grad f(x^i) / |grad f(x^i)|,
+ * stopping as soon as the density no longer increases (x* = x^i), the gradient
+ * vanishes or the maximum number of iterations is reached.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEGradientAttractorSearch implements DENCLUEAttractorSearch {
+
+	private final DENCLUEDensityEstimator m_density;
+
+	private final double m_stepSize;
+
+	private final int m_maxIterations;
+
+	private final double[] m_gradient;
+
+	private final double[] m_next;
+
+	private long m_numIterations = 0;
+
+	private long m_numDensityEvaluations = 0;
+
+	/**
+	 * @param stepSize the absolute step delta
+	 */
+	public DENCLUEGradientAttractorSearch(final DENCLUEDensityEstimator density, final int numDimensions,
+			final double stepSize, final int maxIterations) {
+		m_density = density;
+		m_stepSize = stepSize;
+		m_maxIterations = maxIterations;
+		m_gradient = new double[numDimensions];
+		m_next = new double[numDimensions];
+	}
+
+	@Override
+	public double climb(final double[] start, final double[] attractor, final DENCLUEClimbPath path) {
+		if (attractor != start) {
+			System.arraycopy(start, 0, attractor, 0, attractor.length);
+		}
+		double density = m_density.densityGradient(attractor, m_gradient, path);
+		m_numDensityEvaluations++;
+		for (int iteration = 0; iteration < m_maxIterations; iteration++) {
+			double norm = 0;
+			for (int i = 0; i < m_gradient.length; i++) {
+				norm += m_gradient[i] * m_gradient[i];
+			}
+			if (norm == 0) {
+				break;
+			}
+			double scale = m_stepSize / Math.sqrt(norm);
+			for (int i = 0; i < m_next.length; i++) {
+				m_next[i] = attractor[i] + scale * m_gradient[i];
+			}
+			// points near a step past the attractor are still recorded, they lie within
+			// sigma/2 of the climb
+			double nextDensity = m_density.densityGradient(m_next, m_gradient, path);
+			m_numIterations++;
+			m_numDensityEvaluations++;
+			if (nextDensity <= density) {
+				break;
+			}
+			density = nextDensity;
+			System.arraycopy(m_next, 0, attractor, 0, attractor.length);
+		}
+		return density;
+	}
+
+	@Override
+	public long getNumIterations() {
+		return m_numIterations;
+	}
+
+	@Override
+	public long getNumDensityEvaluations() {
+		return m_numDensityEvaluations;
+	}
+}
@@ -0,0 +1,81 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEGradientAttractorSearchTest {
+
+	private static final double SIGMA = 0.5;
+
+	/**
+	 * Members placed symmetrically around (1, 2), so the density peaks there.
+	 */
+	private static double[][] createSymmetricBlock() {
+		Random random = new Random(3);
+		int count = 200;
+		double[][] block = new double[2][2 * count];
+		for (int i = 0; i < count; i++) {
+			double x = 0.4 * random.nextGaussian();
+			double y = 0.4 * random.nextGaussian();
+			block[0][2 * i] = 1 + x;
+			block[1][2 * i] = 2 + y;
+			block[0][2 * i + 1] = 1 - x;
+			block[1][2 * i + 1] = 2 - y;
+		}
+		return block;
+	}
+
+	@Test
+	void climbsToDensityPeak() {
+		double[][] block = createSymmetricBlock();
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double stepSize = 0.01;
+		DENCLUEAttractorSearch search = new DENCLUEGradientAttractorSearch(
+				new DENCLUEBlockDensityEstimator(kernel, block, block[0].length), 2, stepSize, 1000);
+		double[] start = { 0.3, 2.6 };
+		double[] attractor = new double[2];
+		double density = search.climb(start, attractor, null);
+		assertEquals(1, attractor[0], 2 * stepSize);
+		assertEquals(2, attractor[1], 2 * stepSize);
+		double[] scratch = new double[block[0].length];
+		assertEquals(kernel.density(block, block[0].length, attractor, scratch), density, 1e-9);
+		assertTrue(density > kernel.density(block, block[0].length, start, scratch));
+		// the start is left alone
+		assertArrayEquals(new double[] { 0.3, 2.6 }, start);
+	}
+
+	@Test
+	void neverDecreasesDensity() {
+		double[][] block = createSymmetricBlock();
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[] scratch = new double[block[0].length];
+		Random random = new Random(4);
+		for (int i = 0; i < 50; i++) {
+			double[] start = { 3 * random.nextDouble() - 0.5, 3 * random.nextDouble() + 0.5 };
+			// a coarse step overshoots the peak and has to stop there
+			double[] attractor = start.clone();
+			double density = new DENCLUEGradientAttractorSearch(
+					new DENCLUEBlockDensityEstimator(kernel, block, block[0].length), 2, 0.3, 50)
+							.climb(attractor, attractor, null);
+			assertTrue(density >= kernel.density(block, block[0].length, start, scratch));
+		}
+	}
+
+	@Test
+	void stopsAtIterationLimit() {
+		double[][] block = createSymmetricBlock();
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[] start = { 0.3, 2.6 };
+		double[] attractor = new double[2];
+		new DENCLUEGradientAttractorSearch(new DENCLUEBlockDensityEstimator(kernel, block, block[0].length), 2,
+				0.01, 10).climb(start, attractor, null);
+		double distance = Math.sqrt((attractor[0] - start[0]) * (attractor[0] - start[0])
+				+ (attractor[1] - start[1]) * (attractor[1] - start[1]));
+		// ten steps of 0.01 along a slightly curved path
+		assertTrue(distance <= 0.1 + 1e-12);
+		assertTrue(distance > 0.099);
+	}
+}
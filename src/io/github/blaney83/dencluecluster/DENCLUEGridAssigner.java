@@ -0,0 +1,517 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Assigns every row of the input table to its populated hyper cube of the
+ * grid, copying the feature vectors into a {@link DENCLUEFeatureStore} (in
+ * table order) and recording the cube id of every row. With a single thread
+ * the rows are assigned on the calling thread; with more threads the table is
+ * cut into chunks of consecutive rows, each chunk is assigned to thread-local
+ * cubes and the local cubes are merged back into the global cube index in row
+ * order. Both paths produce the same cubes with the same member rows.
+ * <p>
+ * Rows are counted into {@link DENCLUECubeBuilder}s; the cubes are only built
+ * once all rows are assigned, and are read-only from then on.
+ * <p>
+ * A grid can be given a maximum number of populated cubes. Once it has more,
+ * it is overflowed: rows are still stored, but no longer assigned, and the
+ * caller is expected to retry with wider cubes.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEGridAssigner {
+
+	// cube id of a row outside of the domain of the grid, which is noise
+	static final int NO_CUBE = -1;
+
+	static final int CHUNK_SIZE = 8192;
+
+	private final int[] m_columnIndices;
+
+	private final double[][][] m_columnBoundaries;
+
+	private final double m_cellWidth;
+
+	private int m_maxCubes = Integer.MAX_VALUE;
+
+	// creates the threads assigning rows in parallel
+	private ThreadFactory m_threadFactory = Executors.defaultThreadFactory();
+
+	private boolean m_overflowed = false;
+
+	private double m_xi;
+
+	private final DENCLUECubeIndex m_cubeIndex;
+
+	// builders of all populated cubes, in order of their first member row; the
+	// position is the cube id
+	private final ArrayList<DENCLUECubeBuilder> m_builders = new ArrayList<DENCLUECubeBuilder>();
+
+	// the cubes built once all rows are assigned, in the same order
+	private final ArrayList<DENCLUEHyperCube> m_allCubes = new ArrayList<DENCLUEHyperCube>();
+
+	// highly populated cubes, in the same order
+	private final ArrayList<DENCLUEHyperCube> m_denseCubes = new ArrayList<DENCLUEHyperCube>();
+
+	private DENCLUEFeatureStore m_featureStore;
+
+	// cube id of every row, in table order, NO_CUBE for rows outside of the grid;
+	// mapped like the rows if they are
+	private DENCLUEIntColumn m_rowCubeIds;
+
+	/**
+	 * @param cellWidth the edge length of the cubes the boundaries describe
+	 */
+	public DENCLUEGridAssigner(final Map<Integer, double[][]> hyperCubeBoundaries, final double cellWidth,
+			final double xi, final DENCLUECubeIndex cubeIndex) {
+		m_columnIndices = new int[hyperCubeBoundaries.size()];
+		m_columnBoundaries = new double[hyperCubeBoundaries.size()][][];
+		int count = 0;
+		for (Map.Entry<Integer, double[][]> entry : hyperCubeBoundaries.entrySet()) {
+			m_columnIndices[count] = entry.getKey();
+			m_columnBoundaries[count] = entry.getValue();
+			count++;
+		}
+		m_cellWidth = cellWidth;
+		m_xi = xi;
+		m_cubeIndex = cubeIndex;
+	}
+
+	/**
+	 * Limits the number of populated cubes; must be set before any row is
+	 * assigned.
+	 */
+	public void setMaxCubes(final int maxCubes) {
+		m_maxCubes = maxCubes;
+	}
+
+	/**
+	 * Sets the factory of the threads assigning rows in parallel.
+	 */
+	public void setThreadFactory(final ThreadFactory threadFactory) {
+		m_threadFactory = threadFactory;
+	}
+
+	/**
+	 * @return whether the rows populated more cubes than allowed, the cubes then
+	 *         only hold the rows assigned up to that point
+	 */
+	public boolean isOverflowed() {
+		return m_overflowed;
+	}
+
+	/**
+	 * Assigns all rows of the table, writing their feature vectors into the given
+	 * store, which must have room for every row of the table.
+	 */
+	public void assign(final BufferedDataTable dataTable, final DENCLUEFeatureStore featureStore,
+			final int numThreads, final ExecutionMonitor exec)
+			throws CanceledExecutionException, InterruptedException, ExecutionException, IOException {
+		m_featureStore = featureStore;
+		m_rowCubeIds = DENCLUEIntColumn.create(featureStore.getNumRows(), featureStore.isOnHeap());
+		if (numThreads <= 1) {
+			assignSequential(dataTable, exec);
+		} else {
+			assignParallel(dataTable, numThreads, exec);
+		}
+		buildCubes();
+	}
+
+	/**
+	 * Assigns the rows already held by the given store, on the calling thread.
+	 * Grids of several sigmas can share the store of one read of the table this
+	 * way; the store is only read.
+	 */
+	public void assignStored(final DENCLUEFeatureStore featureStore, final ExecutionMonitor exec)
+			throws CanceledExecutionException, IOException {
+		m_featureStore = featureStore;
+		m_rowCubeIds = DENCLUEIntColumn.create(featureStore.getNumRows(), featureStore.isOnHeap());
+		double[] featureVector = new double[m_columnIndices.length];
+		for (int rowIndex = 0; rowIndex < m_rowCubeIds.getNumRows() && !m_overflowed; rowIndex++) {
+			featureStore.getRow(rowIndex, featureVector);
+			m_rowCubeIds.set(rowIndex, getCubeId(addToCube(featureVector)));
+			if ((rowIndex + 1) % CHUNK_SIZE == 0) {
+				exec.checkCanceled();
+			}
+		}
+		buildCubes();
+	}
+
+	/**
+	 * First pass of the two-pass execution: assigns all rows of the table to their
+	 * cubes, keeping only the member counts and linear sums of the cubes. Neither
+	 * the feature vectors nor the cube ids of the rows are kept, so
+	 * {@link #getFeatureStore()} and {@link #getRowCubeIds()} return
+	 * {@code null}; rows are found again with {@link #findCube}.
+	 */
+	public void accumulate(final BufferedDataTable dataTable, final ExecutionMonitor exec)
+			throws CanceledExecutionException {
+		double[] featureVector = new double[m_columnIndices.length];
+		long numRows = dataTable.size();
+		long rowIndex = 0;
+		for (DataRow row : dataTable) {
+			accumulateRow(row, featureVector);
+			if (m_overflowed) {
+				break;
+			}
+			if (++rowIndex % CHUNK_SIZE == 0) {
+				exec.checkCanceled();
+				exec.setProgress((double) rowIndex / numRows);
+			}
+		}
+		finishAccumulation();
+	}
+
+	/**
+	 * Adds a single row to the counts and sums of its cube, for inputs that are
+	 * not available as a table. {@link #finishAccumulation()} must be called once
+	 * all rows are added.
+	 */
+	public void accumulateRow(final DataRow row, final double[] featureVector) {
+		if (m_overflowed) {
+			return;
+		}
+		readFeatureVector(row, featureVector);
+		addToCube(featureVector);
+	}
+
+	/**
+	 * @return the builder of the cube the feature vector was added to,
+	 *         {@code null} if it lies outside of the grid
+	 */
+	private DENCLUECubeBuilder addToCube(final double[] featureVector) {
+		DENCLUEIndexKey indexedKey = computeKey(featureVector);
+		if (indexedKey == null) {
+			return null;
+		}
+		DENCLUECubeBuilder rowMasterCube = m_cubeIndex.search(indexedKey);
+		if (rowMasterCube == null) {
+			rowMasterCube = addBuilder(indexedKey);
+		}
+		rowMasterCube.addMember(featureVector);
+		return rowMasterCube;
+	}
+
+	private static int getCubeId(final DENCLUECubeBuilder builder) {
+		return builder == null ? NO_CUBE : builder.getCubeId();
+	}
+
+	private DENCLUECubeBuilder addBuilder(final DENCLUEIndexKey indexedKey) {
+		DENCLUECubeBuilder builder = new DENCLUECubeBuilder(indexedKey, m_builders.size(), m_columnIndices.length);
+		m_cubeIndex.insert(indexedKey, builder);
+		m_builders.add(builder);
+		m_overflowed = m_builders.size() > m_maxCubes;
+		return builder;
+	}
+
+	public void finishAccumulation() {
+		buildCubes();
+	}
+
+	/**
+	 * Reads the feature vector of the row into the target array and returns the
+	 * populated cube it falls into, {@code null} if there is none.
+	 */
+	public DENCLUEHyperCube findCube(final DataRow row, final double[] featureVector) {
+		readFeatureVector(row, featureVector);
+		return findCube(computeKey(featureVector));
+	}
+
+	/**
+	 * @return the populated cube of the cell, {@code null} if there is none or
+	 *         the key is {@code null}; safe to call from several threads once the
+	 *         cubes are built
+	 */
+	public DENCLUEHyperCube findCube(final DENCLUEIndexKey cubeKey) {
+		if (cubeKey == null) {
+			return null;
+		}
+		DENCLUECubeBuilder builder = m_cubeIndex.search(cubeKey);
+		return builder == null ? null : m_allCubes.get(builder.getCubeId());
+	}
+
+	/**
+	 * Applies a new xi to the assigned grid. Only which cubes are highly populated
+	 * depends on xi; the cubes and their members are kept.
+	 */
+	public void setXi(final double xi) {
+		m_xi = xi;
+		collectDenseCubes();
+	}
+
+	/**
+	 * Drops the cube ids of the rows, deleting their temp file if they are mapped;
+	 * the cubes and the feature store are kept. {@link #getRowCubeIds()} returns
+	 * {@code null} afterwards.
+	 */
+	public void closeRowCubeIds() {
+		if (m_rowCubeIds != null) {
+			m_rowCubeIds.close();
+			m_rowCubeIds = null;
+		}
+	}
+
+	private void buildCubes() {
+		// counts and sums are only final once every row has been seen
+		m_allCubes.clear();
+		m_allCubes.ensureCapacity(m_builders.size());
+		for (DENCLUECubeBuilder builder : m_builders) {
+			m_allCubes.add(builder.build());
+		}
+		collectDenseCubes();
+		if (DENCLUEDiagnostics.isLogging()) {
+			DENCLUEDiagnostics diagnostics = new DENCLUEDiagnostics();
+			for (DENCLUEHyperCube cube : m_allCubes) {
+				diagnostics.add(DENCLUEDiagnostics.Counter.ROWS, cube.getNumFeatureVectors());
+			}
+			diagnostics.add(DENCLUEDiagnostics.Counter.POPULATED_CUBES, m_allCubes.size());
+			diagnostics.add(DENCLUEDiagnostics.Counter.DENSE_CUBES, m_denseCubes.size());
+			diagnostics.log("Grid of cubes " + m_cellWidth + " wide" + (m_overflowed ? ", overflowed" : ""));
+		}
+	}
+
+	private void collectDenseCubes() {
+		m_denseCubes.clear();
+		for (DENCLUEHyperCube cube : m_allCubes) {
+			if (cube.isHighlyPopulated(m_xi)) {
+				m_denseCubes.add(cube);
+			}
+		}
+	}
+
+	private void assignSequential(final BufferedDataTable dataTable, final ExecutionMonitor exec)
+			throws CanceledExecutionException {
+		double[] featureVector = new double[m_columnIndices.length];
+		int rowIndex = 0;
+		for (DataRow row : dataTable) {
+			storeRow(row, rowIndex);
+			// once overflowed, the rest of the rows is only stored for a grid of wider
+			// cubes
+			if (!m_overflowed) {
+				m_featureStore.getRow(rowIndex, featureVector);
+				m_rowCubeIds.set(rowIndex, getCubeId(addToCube(featureVector)));
+			}
+			if (++rowIndex % CHUNK_SIZE == 0) {
+				exec.checkCanceled();
+				exec.setProgress((double) rowIndex / m_rowCubeIds.getNumRows());
+			}
+		}
+	}
+
+	private void assignParallel(final BufferedDataTable dataTable, final int numThreads,
+			final ExecutionMonitor exec) throws CanceledExecutionException, InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads, m_threadFactory);
+		try {
+			// chunks are merged strictly in submission order; bounding the queue keeps the
+			// main thread from running too far ahead of the workers
+			ArrayDeque<Future<ArrayList<DENCLUECubeBuilder>>> pending = new ArrayDeque<Future<ArrayList<DENCLUECubeBuilder>>>();
+			ArrayDeque<Integer> pendingStarts = new ArrayDeque<Integer>();
+			int chunkStart = 0;
+			int rowIndex = 0;
+			for (DataRow row : dataTable) {
+				storeRow(row, rowIndex);
+				rowIndex++;
+				if (rowIndex - chunkStart == CHUNK_SIZE) {
+					// once overflowed, the rest of the rows is only stored
+					if (!m_overflowed) {
+						pending.add(pool.submit(createChunkTask(chunkStart, rowIndex)));
+						pendingStarts.add(chunkStart);
+					}
+					chunkStart = rowIndex;
+					if (pending.size() >= 2 * numThreads) {
+						mergeChunk(pending.poll().get(), pendingStarts.poll());
+					}
+					exec.checkCanceled();
+					exec.setProgress((double) rowIndex / m_rowCubeIds.getNumRows());
+				}
+			}
+			if (rowIndex > chunkStart && !m_overflowed) {
+				pending.add(pool.submit(createChunkTask(chunkStart, rowIndex)));
+				pendingStarts.add(chunkStart);
+			}
+			while (!pending.isEmpty() && !m_overflowed) {
+				mergeChunk(pending.poll().get(), pendingStarts.poll());
+				exec.checkCanceled();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Assigns the rows {@code [chunkStart, chunkEnd)} of the feature store to
+	 * chunk-local cube builders. The local cube index of every row is written to the row
+	 * cube ids and replaced by the global id when the chunk is merged.
+	 */
+	private Callable<ArrayList<DENCLUECubeBuilder>> createChunkTask(final int chunkStart, final int chunkEnd) {
+		return new Callable<ArrayList<DENCLUECubeBuilder>>() {
+			@Override
+			public ArrayList<DENCLUECubeBuilder> call() {
+				HashMap<DENCLUEIndexKey, DENCLUECubeBuilder> localCubes = new HashMap<DENCLUEIndexKey, DENCLUECubeBuilder>();
+				ArrayList<DENCLUECubeBuilder> orderedCubes = new ArrayList<DENCLUECubeBuilder>();
+				double[] featureVector = new double[m_columnIndices.length];
+				for (int i = chunkStart; i < chunkEnd; i++) {
+					m_featureStore.getRow(i, featureVector);
+					DENCLUEIndexKey indexedKey = computeKey(featureVector);
+					if (indexedKey == null) {
+						m_rowCubeIds.set(i, NO_CUBE);
+						continue;
+					}
+					DENCLUECubeBuilder localCube = localCubes.get(indexedKey);
+					if (localCube == null) {
+						localCube = new DENCLUECubeBuilder(indexedKey, orderedCubes.size(), m_columnIndices.length);
+						localCubes.put(indexedKey, localCube);
+						orderedCubes.add(localCube);
+					}
+					localCube.addMember(featureVector);
+					m_rowCubeIds.set(i, localCube.getCubeId());
+				}
+				return orderedCubes;
+			}
+		};
+	}
+
+	private void mergeChunk(final ArrayList<DENCLUECubeBuilder> chunkCubes, final int chunkStart) {
+		int[] globalIds = new int[chunkCubes.size()];
+		for (int i = 0; i < chunkCubes.size(); i++) {
+			DENCLUECubeBuilder localCube = chunkCubes.get(i);
+			DENCLUECubeBuilder globalCube = m_cubeIndex.search(localCube.getCubeKey());
+			if (globalCube != null) {
+				globalCube.merge(localCube);
+			} else {
+				m_cubeIndex.insert(localCube.getCubeKey(), localCube);
+				localCube.setCubeId(m_builders.size());
+				m_builders.add(localCube);
+				globalCube = localCube;
+			}
+			globalIds[i] = globalCube.getCubeId();
+		}
+		m_overflowed = m_builders.size() > m_maxCubes;
+		int chunkEnd = Math.min(chunkStart + CHUNK_SIZE, m_rowCubeIds.getNumRows());
+		for (int i = chunkStart; i < chunkEnd; i++) {
+			int localId = m_rowCubeIds.get(i);
+			if (localId != NO_CUBE) {
+				m_rowCubeIds.set(i, globalIds[localId]);
+			}
+		}
+	}
+
+	private void readFeatureVector(final DataRow row, final double[] featureVector) {
+		for (int i = 0; i < m_columnIndices.length; i++) {
+			featureVector[i] = ((DoubleValue) row.getCell(m_columnIndices[i])).getDoubleValue();
+		}
+	}
+
+	private void storeRow(final DataRow row, final int rowIndex) {
+		m_featureStore.setRowIndex(rowIndex, rowIndex);
+		for (int i = 0; i < m_columnIndices.length; i++) {
+			m_featureStore.setValue(rowIndex, i, ((DoubleValue) row.getCell(m_columnIndices[i])).getDoubleValue());
+		}
+	}
+
+	/**
+	 * Divides the domain of a column into the bounds of the cubes of the given
+	 * width, {@code [cube][0]} holding the lower and {@code [cube][1]} the upper
+	 * bound. A cube holds its lower bound but not its upper one, so the cubes
+	 * reach past the upper bound of the domain to hold it too.
+	 */
+	static double[][] createColumnBoundaries(final double lowerBound, final double upperBound,
+			final double cellWidth) {
+		double columnRange = upperBound - lowerBound;
+		int hyperCubeColumnNumber = Math.max(1, (int) Math.ceil(columnRange / cellWidth));
+		if (lowerBound + hyperCubeColumnNumber * cellWidth <= upperBound) {
+			// the range is a multiple of the width, the upper bound starts a cube
+			hyperCubeColumnNumber++;
+		}
+
+		double[][] columnBoundaries = new double[hyperCubeColumnNumber][2];
+		double currentLowBound = lowerBound;
+		for (int i = 0; i < hyperCubeColumnNumber; i++) {
+			// the upper bound is the next lower bound exactly, without gaps from rounding
+			double currentHighBound = lowerBound + (i + 1) * cellWidth;
+			columnBoundaries[i] = new double[] { currentLowBound, currentHighBound };
+			currentLowBound = currentHighBound;
+		}
+		return columnBoundaries;
+	}
+
+	DENCLUEIndexKey computeKey(final double[] featureVector) {
+		return computeKey(m_columnBoundaries, featureVector);
+	}
+
+	/**
+	 * Looks up the cube of the feature vector in the grid given by the cube
+	 * boundaries of every column, {@code columnBoundaries[column][cube]} holding
+	 * the lower and upper bound.
+	 *
+	 * @return the key of the cube, {@code null} if the feature vector lies outside
+	 *         of the grid in any column
+	 */
+	static DENCLUEIndexKey computeKey(final double[][][] columnBoundaries, final double[] featureVector) {
+		DENCLUEIndexKey indexedKey = new DENCLUEIndexKey(columnBoundaries.length);
+		for (int count = 0; count < columnBoundaries.length; count++) {
+			double rowColVal = featureVector[count];
+			double[][] boundaries = columnBoundaries[count];
+			// binary search
+			int lowInd = 0;
+			int highInd = boundaries.length;
+			while (lowInd < highInd) {
+				int middleInd = (highInd + lowInd) / 2;
+				if (boundaries[middleInd][0] > rowColVal) {
+					highInd = middleInd;
+				} else if (boundaries[middleInd][1] <= rowColVal) {
+					lowInd = middleInd + 1;
+				} else {
+					indexedKey.setValue(count, middleInd);
+					break;
+				}
+			}
+			if (lowInd >= highInd) {
+				// outside of the domain of the column, or NaN
+				return null;
+			}
+		}
+		return indexedKey;
+	}
+
+	public double getCellWidth() {
+		return m_cellWidth;
+	}
+
+	public double[][][] getColumnBoundaries() {
+		return m_columnBoundaries;
+	}
+
+	public ArrayList<DENCLUEHyperCube> getAllCubes() {
+		return m_allCubes;
+	}
+
+	public ArrayList<DENCLUEHyperCube> getDenseCubes() {
+		return m_denseCubes;
+	}
+
+	public DENCLUEFeatureStore getFeatureStore() {
+		return m_featureStore;
+	}
+
+	public DENCLUEIntColumn getRowCubeIds() {
+		return m_rowCubeIds;
+	}
+}
@@ -0,0 +1,189 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+
+class DENCLUEGridAssignerTest {
+
+	private static final double XI = 10;
+
+	// several chunks per thread, the last one partial
+	private static final int NUM_ROWS = 5 * DENCLUEGridAssigner.CHUNK_SIZE + 17;
+
+	/**
+	 * Rows around three centers in [0, 10)^2.
+	 */
+	private static BufferedDataTable createTable(final ExecutionContext exec) {
+		double[][] centers = { { 2.5, 2.5 }, { 7.5, 3.5 }, { 5.5, 7.5 } };
+		double[][] featureVectors = DENCLUETestTables.createBlobs(centers, 0.6, NUM_ROWS, 42);
+		for (double[] featureVector : featureVectors) {
+			for (int column = 0; column < featureVector.length; column++) {
+				featureVector[column] = Math.min(Math.max(featureVector[column], 0), 9.99);
+			}
+		}
+		return DENCLUETestTables.createTable(exec, featureVectors);
+	}
+
+	private static Map<Integer, double[][]> createBoundaries() {
+		double[][] columnBoundaries = new double[10][];
+		for (int i = 0; i < columnBoundaries.length; i++) {
+			columnBoundaries[i] = new double[] { i, i + 1 };
+		}
+		Map<Integer, double[][]> boundaries = new HashMap<Integer, double[][]>();
+		boundaries.put(0, columnBoundaries);
+		boundaries.put(1, columnBoundaries);
+		return boundaries;
+	}
+
+	private static DENCLUEGridAssigner assign(final BufferedDataTable table, final int numThreads,
+			final DENCLUECubeIndex cubeIndex, final ExecutionContext exec) throws Exception {
+		DENCLUEGridAssigner gridAssigner = new DENCLUEGridAssigner(createBoundaries(), 1, XI, cubeIndex);
+		gridAssigner.assign(table, new DENCLUEHeapFeatureStore(2, NUM_ROWS), numThreads, exec);
+		return gridAssigner;
+	}
+
+	@Test
+	void assignsInParallelLikeSequentially() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEGridAssigner sequential = assign(table, 1, new DENCLUEHashCubeIndex(), exec);
+		DENCLUEGridAssigner parallel = assign(table, 4, new DENCLUEHashCubeIndex(), exec);
+		for (int row = 0; row < NUM_ROWS; row++) {
+			assertEquals(sequential.getRowCubeIds().get(row), parallel.getRowCubeIds().get(row));
+			for (int dimension = 0; dimension < 2; dimension++) {
+				assertEquals(sequential.getFeatureStore().getValue(row, dimension),
+						parallel.getFeatureStore().getValue(row, dimension));
+			}
+		}
+		assertCubesEqual(sequential, parallel);
+	}
+
+	@Test
+	void assignsLikeWithEitherIndex() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEGridAssigner hash = assign(table, 4, new DENCLUEHashCubeIndex(), exec);
+		DENCLUEGridAssigner tree = assign(table, 4, new DENCLUETreeCubeIndex(8), exec);
+		assertCubesEqual(hash, tree);
+	}
+
+	@Test
+	void assignsRowsOutsideOfGridToNoCube() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = DENCLUETestTables.createTable(exec,
+				new double[][] { { 1.5, 1.5 }, { -1, 1.5 }, { 1.5, 11 } });
+		for (int numThreads : new int[] { 1, 4 }) {
+			DENCLUEGridAssigner gridAssigner = new DENCLUEGridAssigner(createBoundaries(), 1, XI,
+					new DENCLUEHashCubeIndex());
+			gridAssigner.assign(table, new DENCLUEHeapFeatureStore(2, 3), numThreads, exec);
+			assertEquals(1, gridAssigner.getAllCubes().size());
+			assertEquals(0, gridAssigner.getRowCubeIds().get(0));
+			assertEquals(DENCLUEGridAssigner.NO_CUBE, gridAssigner.getRowCubeIds().get(1));
+			assertEquals(DENCLUEGridAssigner.NO_CUBE, gridAssigner.getRowCubeIds().get(2));
+		}
+	}
+
+	@Test
+	void findsDenseCubesOnce() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		DENCLUEGridAssigner gridAssigner = assign(createTable(exec), 4, new DENCLUEHashCubeIndex(), exec);
+		assertFalse(gridAssigner.getDenseCubes().isEmpty());
+		for (int i = 0; i < gridAssigner.getDenseCubes().size(); i++) {
+			assertTrue(gridAssigner.getDenseCubes().get(i).isHighlyPopulated(XI));
+			assertEquals(i, gridAssigner.getDenseCubes().lastIndexOf(gridAssigner.getDenseCubes().get(i)));
+		}
+	}
+
+	@Test
+	void accumulatesLikeAssign() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		DENCLUEGridAssigner assigned = assign(table, 1, new DENCLUEHashCubeIndex(), exec);
+		DENCLUEGridAssigner accumulated = new DENCLUEGridAssigner(createBoundaries(), 1, XI,
+				new DENCLUEHashCubeIndex());
+		accumulated.accumulate(table, exec);
+		assertCubesEqual(assigned, accumulated);
+		double[] featureVector = new double[2];
+		int row = 0;
+		for (DataRow dataRow : table) {
+			assertEquals(assigned.getRowCubeIds().get(row++), accumulated.findCube(dataRow, featureVector).getCubeId());
+		}
+	}
+
+	@Test
+	void overflowsPastMaxCubes() throws Exception {
+		ExecutionContext exec = DENCLUETestTables.createExecutionContext();
+		BufferedDataTable table = createTable(exec);
+		int numCubes = assign(table, 1, new DENCLUEHashCubeIndex(), exec).getAllCubes().size();
+		for (int numThreads : new int[] { 1, 4 }) {
+			DENCLUEGridAssigner fitting = new DENCLUEGridAssigner(createBoundaries(), 1, XI, new DENCLUEHashCubeIndex());
+			fitting.setMaxCubes(numCubes);
+			fitting.assign(table, new DENCLUEHeapFeatureStore(2, NUM_ROWS), numThreads, exec);
+			assertFalse(fitting.isOverflowed());
+			DENCLUEGridAssigner overflowed = new DENCLUEGridAssigner(createBoundaries(), 1, XI,
+					new DENCLUEHashCubeIndex());
+			overflowed.setMaxCubes(numCubes - 1);
+			overflowed.assign(table, new DENCLUEHeapFeatureStore(2, NUM_ROWS), numThreads, exec);
+			assertTrue(overflowed.isOverflowed());
+			// the rows are still stored in full, for a grid of wider cubes
+			int row = 0;
+			for (DataRow dataRow : table) {
+				assertEquals(((DoubleValue) dataRow.getCell(0)).getDoubleValue(),
+						overflowed.getFeatureStore().getValue(row++, 0));
+			}
+		}
+		DENCLUEGridAssigner accumulated = new DENCLUEGridAssigner(createBoundaries(), 1, XI,
+				new DENCLUEHashCubeIndex());
+		accumulated.setMaxCubes(numCubes - 1);
+		accumulated.accumulate(table, exec);
+		assertTrue(accumulated.isOverflowed());
+	}
+
+	@Test
+	void coversRangeWithBoundaries() {
+		// domains with and without 0, and ranges that are a multiple of the width
+		double[][] domains = { { 0, 10 }, { 2, 5 }, { -3, -1.5 }, { -2.5, 4 }, { 1.2, 1.2 } };
+		for (double[] domain : domains) {
+			double[][] boundaries = DENCLUEGridAssigner.createColumnBoundaries(domain[0], domain[1], 0.5);
+			String message = domain[0] + " to " + domain[1];
+			assertEquals(domain[0], boundaries[0][0], message);
+			for (int cube = 0; cube < boundaries.length; cube++) {
+				assertEquals(0.5, boundaries[cube][1] - boundaries[cube][0], 1e-12, message);
+				if (cube > 0) {
+					assertEquals(boundaries[cube - 1][1], boundaries[cube][0], message);
+				}
+			}
+			// the upper bound falls into the last cube, which doesn't reach further
+			double[] lastCube = boundaries[boundaries.length - 1];
+			assertTrue(lastCube[0] <= domain[1] && domain[1] < lastCube[1], message);
+			for (double value : new double[] { domain[0], (domain[0] + domain[1]) / 2, domain[1] }) {
+				int cube = DENCLUEGridAssigner.computeKey(new double[][][] { boundaries }, new double[] { value })
+						.getValue(0);
+				assertTrue(boundaries[cube][0] <= value && value < boundaries[cube][1], message + ": " + value);
+			}
+		}
+	}
+
+	private static void assertCubesEqual(final DENCLUEGridAssigner expected, final DENCLUEGridAssigner actual) {
+		assertEquals(expected.getAllCubes().size(), actual.getAllCubes().size());
+		assertEquals(expected.getDenseCubes().size(), actual.getDenseCubes().size());
+		for (int i = 0; i < expected.getAllCubes().size(); i++) {
+			DENCLUEHyperCube expectedCube = expected.getAllCubes().get(i);
+			DENCLUEHyperCube actualCube = actual.getAllCubes().get(i);
+			assertEquals(expectedCube.getCubeKey(), actualCube.getCubeKey());
+			assertEquals(expectedCube.getNumFeatureVectors(), actualCube.getNumFeatureVectors());
+			// the chunks of a parallel run are summed in another order
+			for (int dimension = 0; dimension < 2; dimension++) {
+				assertEquals(expectedCube.getLinearSum()[dimension], actualCube.getLinearSum()[dimension], 1e-6);
+			}
+		}
+	}
+}
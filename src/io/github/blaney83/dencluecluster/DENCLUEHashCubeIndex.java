@@ -0,0 +1,135 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Open-addressing (linear probing) hash table from cell coordinates to cubes.
+ * The hash of every stored key is kept in a parallel primitive array, so probes
+ * only compare coordinates when the hashes match and resizing never rehashes a
+ * key. Deletion shifts the following entries of the probe run back instead of
+ * leaving tombstones.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEHashCubeIndex implements DENCLUECubeIndex {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private static final double MAX_LOAD_FACTOR = 0.5;
+
+	private DENCLUEIndexKey[] m_keys;
+
+	private DENCLUECubeBuilder[] m_cubes;
+
+	private int[] m_hashes;
+
+	private int m_mask;
+
+	private int m_size = 0;
+
+	public DENCLUEHashCubeIndex() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public DENCLUEHashCubeIndex(final int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	@Override
+	public DENCLUECubeBuilder search(final DENCLUEIndexKey key) {
+		int hash = key.hashCode();
+		int slot = hash & m_mask;
+		while (m_keys[slot] != null) {
+			if (m_hashes[slot] == hash && m_keys[slot].equals(key)) {
+				return m_cubes[slot];
+			}
+			slot = (slot + 1) & m_mask;
+		}
+		return null;
+	}
+
+	@Override
+	public void insert(final DENCLUEIndexKey key, final DENCLUECubeBuilder cube) {
+		int hash = key.hashCode();
+		int slot = hash & m_mask;
+		while (m_keys[slot] != null) {
+			if (m_hashes[slot] == hash && m_keys[slot].equals(key)) {
+				m_cubes[slot] = cube;
+				return;
+			}
+			slot = (slot + 1) & m_mask;
+		}
+		m_keys[slot] = key;
+		m_cubes[slot] = cube;
+		m_hashes[slot] = hash;
+		if (++m_size > m_keys.length * MAX_LOAD_FACTOR) {
+			resize(m_keys.length << 1);
+		}
+	}
+
+	@Override
+	public void delete(final DENCLUEIndexKey key) {
+		int hash = key.hashCode();
+		int slot = hash & m_mask;
+		while (m_keys[slot] != null) {
+			if (m_hashes[slot] == hash && m_keys[slot].equals(key)) {
+				break;
+			}
+			slot = (slot + 1) & m_mask;
+		}
+		if (m_keys[slot] == null) {
+			return;
+		}
+		// backward shift: move every later entry of the run whose home slot does not
+		// lie cyclically in (free, next] into the freed slot
+		int free = slot;
+		int next = (free + 1) & m_mask;
+		while (m_keys[next] != null) {
+			int home = m_hashes[next] & m_mask;
+			if (((next - home) & m_mask) >= ((next - free) & m_mask)) {
+				m_keys[free] = m_keys[next];
+				m_cubes[free] = m_cubes[next];
+				m_hashes[free] = m_hashes[next];
+				free = next;
+			}
+			next = (next + 1) & m_mask;
+		}
+		m_keys[free] = null;
+		m_cubes[free] = null;
+		m_size--;
+	}
+
+	@Override
+	public int size() {
+		return m_size;
+	}
+
+	private void allocate(final int capacity) {
+		m_keys = new DENCLUEIndexKey[capacity];
+		m_cubes = new DENCLUECubeBuilder[capacity];
+		m_hashes = new int[capacity];
+		m_mask = capacity - 1;
+	}
+
+	private void resize(final int capacity) {
+		DENCLUEIndexKey[] oldKeys = m_keys;
+		DENCLUECubeBuilder[] oldCubes = m_cubes;
+		int[] oldHashes = m_hashes;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int slot = oldHashes[i] & m_mask;
+				while (m_keys[slot] != null) {
+					slot = (slot + 1) & m_mask;
+				}
+				m_keys[slot] = oldKeys[i];
+				m_cubes[slot] = oldCubes[i];
+				m_hashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "DENCLUEHashCubeIndex[size=" + m_size + ", capacity=" + m_keys.length + "]";
+	}
+}
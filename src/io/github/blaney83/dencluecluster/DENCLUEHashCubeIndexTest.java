@@ -0,0 +1,122 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEHashCubeIndexTest {
+
+	private static DENCLUEIndexKey createKey(final int x, final int y) {
+		DENCLUEIndexKey key = new DENCLUEIndexKey(2);
+		key.setValue(0, x);
+		key.setValue(1, y);
+		return key;
+	}
+
+	@Test
+	void searchesInsertedCubes() {
+		DENCLUEHashCubeIndex index = new DENCLUEHashCubeIndex(4);
+		ArrayList<DENCLUECubeBuilder> cubes = new ArrayList<DENCLUECubeBuilder>();
+		// grows past its initial capacity
+		for (int i = 0; i < 1000; i++) {
+			DENCLUEIndexKey key = createKey(i % 40, i / 40);
+			DENCLUECubeBuilder cube = new DENCLUECubeBuilder(key, i, 2);
+			index.insert(key, cube);
+			cubes.add(cube);
+		}
+		assertEquals(1000, index.size());
+		for (int i = 0; i < 1000; i++) {
+			assertSame(cubes.get(i), index.search(createKey(i % 40, i / 40)));
+		}
+		assertNull(index.search(createKey(40, 0)));
+		assertNull(index.search(createKey(0, -1)));
+	}
+
+	@Test
+	void replacesCubeOfKey() {
+		DENCLUEHashCubeIndex index = new DENCLUEHashCubeIndex();
+		DENCLUECubeBuilder replacement = new DENCLUECubeBuilder(createKey(1, 2), 1, 2);
+		index.insert(createKey(1, 2), new DENCLUECubeBuilder(createKey(1, 2), 0, 2));
+		index.insert(createKey(1, 2), replacement);
+		assertEquals(1, index.size());
+		assertSame(replacement, index.search(createKey(1, 2)));
+	}
+
+	@Test
+	void keepsProbeRunsSearchableAfterDelete() {
+		// a small table, so the keys collide into long probe runs that wrap around
+		DENCLUEHashCubeIndex index = new DENCLUEHashCubeIndex(16);
+		ArrayList<DENCLUEIndexKey> keys = new ArrayList<DENCLUEIndexKey>();
+		for (int i = 0; i < 15; i++) {
+			DENCLUEIndexKey key = createKey(i, 7 * i);
+			index.insert(key, new DENCLUECubeBuilder(key, i, 2));
+			keys.add(key);
+		}
+		Random random = new Random(7);
+		while (!keys.isEmpty()) {
+			DENCLUEIndexKey deleted = keys.remove(random.nextInt(keys.size()));
+			index.delete(deleted);
+			assertNull(index.search(deleted));
+			assertEquals(keys.size(), index.size());
+			for (DENCLUEIndexKey key : keys) {
+				assertNotNull(index.search(key), "lost " + key + " after deleting " + deleted);
+			}
+		}
+	}
+
+	@Test
+	void ignoresDeleteOfMissingKey() {
+		DENCLUEHashCubeIndex index = new DENCLUEHashCubeIndex();
+		index.insert(createKey(0, 0), new DENCLUECubeBuilder(createKey(0, 0), 0, 2));
+		index.delete(createKey(0, 1));
+		assertEquals(1, index.size());
+		assertNotNull(index.search(createKey(0, 0)));
+	}
+
+	@Test
+	void findsLikeTreeIndex() {
+		DENCLUEHashCubeIndex hashIndex = new DENCLUEHashCubeIndex();
+		DENCLUETreeCubeIndex treeIndex = new DENCLUETreeCubeIndex(4);
+		Random random = new Random(11);
+		for (int i = 0; i < 5000; i++) {
+			DENCLUEIndexKey key = createKey(random.nextInt(60), random.nextInt(60));
+			DENCLUECubeBuilder cube = new DENCLUECubeBuilder(key, i, 2);
+			hashIndex.insert(key, cube);
+			treeIndex.insert(key, cube);
+		}
+		assertEquals(treeIndex.size(), hashIndex.size());
+		for (int x = 0; x < 60; x++) {
+			for (int y = 0; y < 60; y++) {
+				assertSame(treeIndex.search(createKey(x, y)), hashIndex.search(createKey(x, y)));
+			}
+		}
+	}
+
+	@Test
+	void findsLikeHashMapWhileDeleting() {
+		DENCLUEHashCubeIndex index = new DENCLUEHashCubeIndex();
+		HashMap<DENCLUEIndexKey, DENCLUECubeBuilder> expected = new HashMap<DENCLUEIndexKey, DENCLUECubeBuilder>();
+		Random random = new Random(13);
+		for (int i = 0; i < 20000; i++) {
+			DENCLUEIndexKey key = createKey(random.nextInt(60), random.nextInt(60));
+			if (random.nextInt(3) == 0) {
+				index.delete(key);
+				expected.remove(key);
+			} else {
+				DENCLUECubeBuilder cube = new DENCLUECubeBuilder(key, i, 2);
+				index.insert(key, cube);
+				expected.put(key, cube);
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		for (int x = 0; x < 60; x++) {
+			for (int y = 0; y < 60; y++) {
+				assertSame(expected.get(createKey(x, y)), index.search(createKey(x, y)));
+			}
+		}
+	}
+}
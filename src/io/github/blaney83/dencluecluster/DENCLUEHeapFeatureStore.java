@@ -0,0 +1,138 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.ArrayList;
+
+/**
+ * {@link DENCLUEFeatureStore} on the Java heap: one contiguous {@code double[]}
+ * per dimension.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEHeapFeatureStore implements DENCLUEFeatureStore {
+
+	private final double[][] m_columns;
+
+	private int[] m_rowIndices;
+
+	private final int m_numRows;
+
+	private final ArrayList<DENCLUEFeatureStore> m_companions = new ArrayList<DENCLUEFeatureStore>();
+
+	public DENCLUEHeapFeatureStore(final int numDimensions, final int numRows) {
+		m_columns = new double[numDimensions][];
+		for (int i = 0; i < numDimensions; i++) {
+			m_columns[i] = new double[numRows];
+		}
+		m_rowIndices = new int[numRows];
+		m_numRows = numRows;
+	}
+
+	private DENCLUEHeapFeatureStore(final double[][] columns, final int[] rowIndices) {
+		m_columns = columns;
+		m_rowIndices = rowIndices;
+		m_numRows = rowIndices.length;
+	}
+
+	@Override
+	public void setValue(final int row, final int dimension, final double value) {
+		m_columns[dimension][row] = value;
+	}
+
+	@Override
+	public double getValue(final int row, final int dimension) {
+		return m_columns[dimension][row];
+	}
+
+	@Override
+	public void setRowIndex(final int row, final int rowIndex) {
+		m_rowIndices[row] = rowIndex;
+	}
+
+	@Override
+	public int getRowIndex(final int row) {
+		return m_rowIndices[row];
+	}
+
+	@Override
+	public void getRow(final int row, final double[] target) {
+		for (int i = 0; i < m_columns.length; i++) {
+			target[i] = m_columns[i][row];
+		}
+	}
+
+	@Override
+	public double[][] readBlock(final int offset, final int count) {
+		double[][] block = new double[m_columns.length][count];
+		for (int i = 0; i < m_columns.length; i++) {
+			System.arraycopy(m_columns[i], offset, block[i], 0, count);
+		}
+		return block;
+	}
+
+	@Override
+	public void readBlock(final int offset, final int count, final double[][] target) {
+		for (int i = 0; i < m_columns.length; i++) {
+			System.arraycopy(m_columns[i], offset, target[i], 0, count);
+		}
+	}
+
+	@Override
+	public boolean isOnHeap() {
+		return true;
+	}
+
+	@Override
+	public DENCLUEFeatureStore createCompanion(final int numDimensions) {
+		DENCLUEFeatureStore companion = new DENCLUEHeapFeatureStore(numDimensions, m_numRows);
+		m_companions.add(companion);
+		return companion;
+	}
+
+	/**
+	 * Unless this store is kept, its columns are released one by one while the
+	 * new store is filled, so peak memory is one column above the size of this
+	 * store.
+	 */
+	@Override
+	public DENCLUEFeatureStore gather(final int[] sourceRows, final boolean keepSource) {
+		double[][] columns = new double[m_columns.length][];
+		for (int i = 0; i < m_columns.length; i++) {
+			double[] sourceColumn = m_columns[i];
+			double[] column = new double[sourceRows.length];
+			for (int j = 0; j < sourceRows.length; j++) {
+				column[j] = sourceColumn[sourceRows[j]];
+			}
+			columns[i] = column;
+			if (!keepSource) {
+				m_columns[i] = null;
+			}
+		}
+		int[] rowIndices = new int[sourceRows.length];
+		for (int j = 0; j < sourceRows.length; j++) {
+			rowIndices[j] = m_rowIndices[sourceRows[j]];
+		}
+		if (!keepSource) {
+			m_rowIndices = null;
+		}
+		return new DENCLUEHeapFeatureStore(columns, rowIndices);
+	}
+
+	@Override
+	public int getNumRows() {
+		return m_numRows;
+	}
+
+	@Override
+	public int getNumDimensions() {
+		return m_columns.length;
+	}
+
+	@Override
+	public void close() {
+		// nothing to release besides the arrays themselves
+		for (DENCLUEFeatureStore companion : m_companions) {
+			companion.close();
+		}
+		m_companions.clear();
+	}
+}
@@ -1,95 +1,104 @@
 package io.github.blaney83.dencluecluster;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A populated cube of the grid, or a super cube of merged cubes, as built by a
+ * {@link DENCLUECubeBuilder}. Key, member count, linear sum and mean don't
+ * change after the build, so neighbor checks can read any cube from any thread.
+ * Only clustering writes to a cube: the members, attractors and row states
+ * belong to the one task clustering the super cube.
+ * <p>
+ * Members held outside of the heap are copied to the heap while the cube is
+ * clustered, unless the cube is climbed in chunks: then the density estimator
+ * reads them from their store. The attractors are written to a store of the
+ * same kind as the members.
+ */
+public class DENCLUEHyperCube {
 
-import org.knime.core.data.RowKey;
+	private static final byte CLUSTER_ROW = 1;
 
-public class DENCLUEHyperCube {
+	private static final byte NOISE_ROW = 2;
+
+	// members climbed by one task; larger cubes are split into chunks
+	static final int CLIMB_CHUNK_SIZE = 4096;
+
+	// members within this many sigma of the mean of the cube are near x
+	private static final int NEAR_X_SIGMAS = 4;
 
 	private final DENCLUEIndexKey m_cubeKey;
+
+	private final int m_cubeId;
 //	private final int[] m_cubeKey;
 
-	private double[] m_linearSum;
+	private final double[] m_linearSum;
 
-	private double[] m_meanVector;
+	private final double[] m_meanVector;
 
-	private int m_numFeatureVectors = 0;
+	private final int m_numFeatureVectors;
 
-	private Set<DENCLUEIndexKey> m_neighbors;
+	// members are the rows [m_memberOffset, m_memberOffset + m_numFeatureVectors)
+	// of the feature store; only set for merged super cubes
+	private DENCLUEFeatureStore m_featureStore;
 
-	private boolean m_isNoise;
+	private int m_memberOffset = -1;
 
-	private Map<RowKey, double[]> m_clusterMembers;
+	// columnar copy of the members while the cube is clustered, block[dim][member];
+	// null while climbing members read from their store
+	private double[][] m_memberBlock;
 
-	private Map<RowKey, double[]> m_noiseMembers;
+	// member indices (relative to m_memberOffset) in descending distance from the
+	// mean
+	private int[] m_nearX;
 
-	private Map<Double, RowKey> m_nearX;
+	private int[] m_allOrderedMembers;
 
-	private Map<Double, RowKey> m_allOrderedMembers;
+	// columnar copy of the near(x) members, in m_nearX order
+	private double[][] m_nearXBlock;
 
-	private Set<RowKey> m_memberRows;
+	private DENCLUEGaussianKernel m_kernel;
 
-	private Set<RowKey> m_clusterRows;
+	// density attractor of every member in the rows from m_attractorOffset on,
+	// with the density there in the last column; only set by the hill-climbing
+	// searches
+	private DENCLUEFeatureStore m_attractorStore;
 
-	private Set<RowKey> m_noiseRows;
+	private int m_attractorOffset;
 
-	private int k = 4;
+	private boolean m_hasAttractors = false;
 
-	private double m_xi;
+	private boolean[] m_isNearX;
 
-	public DENCLUEHyperCube(final DENCLUEIndexKey cubekey, final RowKey rowKey, final double[] featureVector,
-			final double xi) {
+	private byte[] m_rowStatus;
+
+	// climbs (or member walk steps) of the last clustering, 0 if only re-labeled
+	private int m_numClimbs = 0;
+
+	// steps and density evaluations of the climbs of the last clustering
+	private long m_numClimbIterations = 0;
+
+	private long m_numDensityEvaluations = 0;
+
+	DENCLUEHyperCube(final DENCLUEIndexKey cubekey, final int cubeId, final int numFeatureVectors,
+			final double[] linearSum) {
 		m_cubeKey = cubekey;
-		m_memberRows = new HashSet<RowKey>();
-		m_memberRows.add(rowKey);
-		m_linearSum = new double[featureVector.length];
-		System.arraycopy(featureVector, 0, m_linearSum, 0, m_linearSum.length);
-		m_numFeatureVectors++;
-		m_isNoise = true;
-		m_neighbors = new HashSet<DENCLUEIndexKey>();
-		m_clusterMembers = new LinkedHashMap<RowKey, double[]>();
-		m_noiseMembers = new LinkedHashMap<RowKey, double[]>();
-		m_clusterMembers.put(rowKey, featureVector);
-		m_clusterRows = new HashSet<RowKey>();
-		m_noiseRows = new HashSet<RowKey>();
-		m_xi = xi;
-	}
-
-	public boolean addMember(final RowKey rowKey, final double[] featureVector) {
-		addMember(rowKey);
-		updateLinearSum(featureVector);
-		m_clusterMembers.put(rowKey, featureVector);
-		System.out.println("GETTING FV " + rowKey.toString() + m_clusterMembers.get(rowKey));
-		System.out.println(m_numFeatureVectors);
-		// as points are added, as the points exceed a certain threshhold,
-		// then return the key of this cube to be stored in a highly populated key[]
-		// and change the isNoise to false
-		// temp value
-		boolean highlyPopulated = false;
-		if (m_numFeatureVectors >= (m_xi / (2 * m_linearSum.length))) {
-			highlyPopulated = true;
-		}
-		if (highlyPopulated) {
-			return true;
-		} else {
-			return false;
+		m_cubeId = cubeId;
+		m_numFeatureVectors = numFeatureVectors;
+		m_linearSum = linearSum;
+		m_meanVector = new double[linearSum.length];
+		for (int i = 0; i < linearSum.length; i++) {
+			m_meanVector[i] = (linearSum[i] / numFeatureVectors);
 		}
 	}
 
-	public void addMember(final RowKey rowKey) {
-		m_memberRows.add(rowKey);
-		m_numFeatureVectors++;
-	}
-
-	public void updateLinearSum(final double[] otherLinearSum) {
-		for (int i = 0; i < m_linearSum.length; i++) {
-			m_linearSum[i] += otherLinearSum[i];
-		}
+	public boolean isHighlyPopulated(final double xi) {
+		return m_numFeatureVectors >= (xi / (2 * m_linearSum.length));
 	}
 
 	public boolean isNeighbor(final DENCLUEHyperCube otherCube) {
@@ -111,10 +120,30 @@ public class DENCLUEHyperCube {
 		return true;
 	}
 
+	/**
+	 * Enumerates the keys of all cells that satisfy {@link #isNeighbor}: the cells
+	 * differing from this cube by exactly one in exactly one dimension. Cells left
+	 * of the first grid column are skipped.
+	 */
+	public ArrayList<DENCLUEIndexKey> getCandidateNeighborKeys() {
+		ArrayList<DENCLUEIndexKey> candidateKeys = new ArrayList<DENCLUEIndexKey>(2 * m_cubeKey.size());
+		for (int i = 0; i < m_cubeKey.size(); i++) {
+			int value = m_cubeKey.getValue(i);
+			if (value > 0) {
+				DENCLUEIndexKey lowerKey = new DENCLUEIndexKey(m_cubeKey);
+				lowerKey.setValue(i, value - 1);
+				candidateKeys.add(lowerKey);
+			}
+			DENCLUEIndexKey upperKey = new DENCLUEIndexKey(m_cubeKey);
+			upperKey.setValue(i, value + 1);
+			candidateKeys.add(upperKey);
+		}
+		return candidateKeys;
+	}
+
 	public boolean isConnected(final DENCLUEHyperCube otherCube, final double sigma) {
 		// euclidian distance
-		double[] otherMean = otherCube.findMean();
-		m_meanVector = this.findMean();
+		double[] otherMean = otherCube.getMean();
 		double currSum = 0;
 		for (int i = 0; i < otherMean.length; i++) {
 			double diff = (m_meanVector[i] - otherMean[i]);
@@ -130,144 +159,184 @@ public class DENCLUEHyperCube {
 		}
 	}
 
-	protected double[] findMean() {
-//		if (m_meanVector == null) {
-			m_meanVector = new double[m_linearSum.length];
-			for (int i = 0; i < m_linearSum.length; i++) {
-				m_meanVector[i] = (m_linearSum[i] / m_numFeatureVectors);
-			}
-//		}
+	/**
+	 * @return the mean of the members; must not be modified
+	 */
+	protected double[] getMean() {
 		return m_meanVector;
 	}
 
-	protected void addNeighbor(final DENCLUEIndexKey otherCubeKey) {
-		m_neighbors.add(otherCubeKey);
+	/**
+	 * Points this cube at its members, which the feature store holds contiguously
+	 * from the given offset on. Set before the cube is clustered, by the thread
+	 * handing it to the clustering task. Attractors are kept on the heap.
+	 */
+	protected void setMemberRange(final DENCLUEFeatureStore featureStore, final int memberOffset) {
+		setMemberRange(featureStore, memberOffset, null);
 	}
 
-	protected void mergeNeighbor(final DENCLUEHyperCube mergingCube) {
-		this.m_numFeatureVectors += mergingCube.getNumFeatureVectors();
-		this.m_clusterMembers.putAll(mergingCube.getClusterMembers());
-		this.updateLinearSum(mergingCube.getLinearSum());
-		this.m_memberRows.addAll(mergingCube.getMemberRows());
-//		for(RowKey joiningKey : mergingCube.getMemberRows()) {
-//			this.addMember(joiningKey);
-//		}
-		this.findMean();
+	/**
+	 * Like {@link #setMemberRange(DENCLUEFeatureStore, int)}, with the attractors
+	 * written to the rows of the attractor store from the member offset on; the
+	 * store has one column per dimension plus one for the density. Attractors of
+	 * an earlier clustering are copied over.
+	 *
+	 * @param attractorStore the store of the attractors, {@code null} to keep them
+	 *            on the heap
+	 */
+	protected void setMemberRange(final DENCLUEFeatureStore featureStore, final int memberOffset,
+			final DENCLUEFeatureStore attractorStore) {
+		m_featureStore = featureStore;
+		m_memberOffset = memberOffset;
+		if (attractorStore == null || attractorStore == m_attractorStore) {
+			return;
+		}
+		if (m_hasAttractors) {
+			for (int i = 0; i < m_numFeatureVectors; i++) {
+				for (int column = 0; column <= m_linearSum.length; column++) {
+					attractorStore.setValue(memberOffset + i, column,
+							m_attractorStore.getValue(m_attractorOffset + i, column));
+				}
+			}
+		}
+		m_attractorStore = attractorStore;
+		m_attractorOffset = memberOffset;
 	}
 
-	protected DENCLUEIndexKey getCubeKey() {
-		return this.m_cubeKey;
+	protected int getMemberOffset() {
+		return this.m_memberOffset;
 	}
 
-	protected double[] getLinearSum() {
-		return this.m_linearSum;
+	protected int getCubeId() {
+		return this.m_cubeId;
 	}
 
-	protected Set<RowKey> getMemberRows() {
-		return this.m_memberRows;
+	protected DENCLUEIndexKey getCubeKey() {
+		return this.m_cubeKey;
 	}
 
-	protected Set<DENCLUEIndexKey> getNeighborCubes() {
-		return this.m_neighbors;
+	protected double[] getLinearSum() {
+		return this.m_linearSum;
 	}
 
 	protected int getNumFeatureVectors() {
 		return this.m_numFeatureVectors;
 	}
 
-	protected Map<RowKey, double[]> getClusterMembers() {
-		return this.m_clusterMembers;
-	}
-
-	protected Map<RowKey, double[]> getNoiseMembers() {
-		return this.m_noiseMembers;
-	}
-
 	public void createNearXSet(final double sigma) {
-		this.findMean();
+		m_kernel = new DENCLUEGaussianKernel(sigma);
+		m_memberBlock = m_featureStore.readBlock(m_memberOffset, m_numFeatureVectors);
+		m_rowStatus = new byte[m_numFeatureVectors];
+		m_isNearX = new boolean[m_numFeatureVectors];
+		// ordering by squared distance is the same as ordering by distance
+		final double[] distances = new double[m_numFeatureVectors];
+		m_kernel.squaredDistances(m_memberBlock, m_numFeatureVectors, m_meanVector, distances);
+		double nearXRadiusSquared = (NEAR_X_SIGMAS * sigma) * (NEAR_X_SIGMAS * sigma);
+		int nearXCount = 0;
+		for (int i = 0; i < m_numFeatureVectors; i++) {
+			if (distances[i] <= nearXRadiusSquared) {
+				m_isNearX[i] = true;
+				m_rowStatus[i] |= CLUSTER_ROW;
+				nearXCount++;
+			}
+		}
 		// creates ordinality in descending order based on the distance from the mean
-		m_nearX = new TreeMap<Double, RowKey>(new Comparator<Double>() {
+		Integer[] ordered = new Integer[m_numFeatureVectors];
+		for (int i = 0; i < ordered.length; i++) {
+			ordered[i] = i;
+		}
+		Arrays.sort(ordered, new Comparator<Integer>() {
 			@Override
-			public int compare(Double o1, Double o2) {
-				// TODO Auto-generated method stub
-				return o2.compareTo(o1);
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(distances[o2], distances[o1]);
 			}
 		});
-		m_allOrderedMembers = new TreeMap<Double, RowKey>(new Comparator<Double>() {
-			@Override
-			public int compare(Double o1, Double o2) {
-				// TODO Auto-generated method stub
-				return o2.compareTo(o1);
+		m_allOrderedMembers = new int[m_numFeatureVectors];
+		m_nearX = new int[nearXCount];
+		int nearXIndex = 0;
+		for (int i = 0; i < ordered.length; i++) {
+			m_allOrderedMembers[i] = ordered[i];
+			if (m_isNearX[ordered[i]]) {
+				m_nearX[nearXIndex++] = ordered[i];
 			}
-		});
-		for (Map.Entry<RowKey, double[]> entry : m_clusterMembers.entrySet()) {
-			double euclDist = euclidianDistance(m_meanVector, entry.getValue());
-			RowKey currKey = entry.getKey();
-			System.out.println("NEAR X " + entry.getKey().toString() + " EUCL DIST " + euclDist + " K*SIG" + (k*sigma) + " " + (euclDist > k * sigma));
-			if (euclDist > k * sigma) {
-				// I believe the members aren't disqualified yet based on d(mean(c), x)
-				// m_noiseMembers.put(currKey, m_clusterMembers.remove(currKey));
-			} else if (euclDist <= k * sigma) {
-				m_nearX.put(euclDist, currKey);
-				m_clusterRows.add(currKey);
+		}
+		m_nearXBlock = new double[m_linearSum.length][nearXCount];
+		for (int dimension = 0; dimension < m_linearSum.length; dimension++) {
+			double[] memberColumn = m_memberBlock[dimension];
+			double[] nearXColumn = m_nearXBlock[dimension];
+			for (int i = 0; i < nearXCount; i++) {
+				nearXColumn[i] = memberColumn[m_nearX[i]];
 			}
-			m_allOrderedMembers.put(euclDist, currKey);
 		}
 	}
 
-	public double localDensityFunction(final double[] featureVector, final RowKey currRow, final double sigma) {
+	/**
+	 * Sums the influence of the near(x) members on the feature vector. Only reads
+	 * the cube, so it can be called from several threads with their own arrays.
+	 *
+	 * @param nearXDistances receives the squared distance of the feature vector to
+	 *            every near(x) member
+	 */
+	public double localDensityFunction(final double[] featureVector, final double[] nearXDistances) {
 		// consider ERROR(x) in future dev
-		double sum = 0.0;
-		for (Map.Entry<Double, RowKey> entry : m_nearX.entrySet()) {
-			double sigmaDistanceParameterCheck = euclidianDistance(featureVector,
-					m_clusterMembers.get(entry.getValue()));
-			double numerator = Math.pow(sigmaDistanceParameterCheck, 2);
-			// sigma ^ 2 may need to be swapped for variance
-			double denominator = 2 * (Math.pow(sigma, 2));
-			double partialSum = Math.E * (-1 * (numerator / denominator));
-			sum += partialSum;
+		// sum of exp(-d(x, x^i)^2 / (2 sigma^2)) over near(x); sigma ^ 2 may need to be
+		// swapped for variance
+		return m_kernel.density(m_nearXBlock, m_nearX.length, featureVector, nearXDistances);
+	}
+
+	/**
+	 * Marks the member as cluster row if it lies within sigma/2 of a near(x)
+	 * member, given its distances from {@link #localDensityFunction}.
+	 */
+	private void markMemberRow(final int currMember, final double[] nearXDistances, final double sigma) {
+		double halfSigmaSquared = (sigma / 2) * (sigma / 2);
+		for (int i = 0; i < m_nearX.length; i++) {
+			double sigmaDistanceParameterCheck = nearXDistances[i];
 			// algorithm time saving step: if threshold distance sigma/2 is greater than
 			// distance between feature vector and
 			// any single near(x) set member, then the point gets cluster membership status
-			if (sigmaDistanceParameterCheck <= (sigma / 2)) {
-				System.out.println("CLUSTER ROW: " + currRow.getString() + " SIGMA/2 " + (sigma/2) + " PARAMCHECK " + sigmaDistanceParameterCheck);
-				m_clusterRows.add(currRow);
-			} else if (!m_nearX.containsValue(currRow)) {
-				System.out.println("NOISE ROW: " + currRow.getString() + " SIGMA/2 " + (sigma/2) + " PARAMCHECK " + sigmaDistanceParameterCheck);
-				m_noiseRows.add(currRow);
+			if (sigmaDistanceParameterCheck <= halfSigmaSquared) {
+				m_rowStatus[currMember] |= CLUSTER_ROW;
 			} else {
-				System.out.println("DEFAULT NOISE: " + currRow.getString() + " SIGMA/2 " + (sigma/2) + " PARAMCHECK " + sigmaDistanceParameterCheck);
-				m_noiseRows.add(currRow);
+				// noise whether or not the member is in near(x) itself
+				m_rowStatus[currMember] |= NOISE_ROW;
 			}
 		}
-		return sum;
 	}
-	
-	//ALTERNATE APPROACH- Don't merge cubes, just find neighbors
-	//as calculating near x for a single cube, still add d<sigma/2 points
-	//then find density attractor for each cube that is "highly populated"
-	//then for each neighbor of dense cubes and neighbors of dense cubes, if 
-	//density attr > density attr_1, density attr is cluster max density point
-	//if distance between density attr and density attr_1 is < 4*sigma, then clusters 
-	//are connected
-	//recursively process cubes efficiently (to prevent duplicate processing)
-	//then assign clusters
 
-	public boolean findClusterDensityAttractor(final double xi, final double sigma) {
-		RowKey densityAttrKey;
+	/**
+	 * Copies the feature vector of the member at the given index (relative to the
+	 * member offset) into the target array.
+	 */
+	protected void getMember(final int member, final double[] target) {
+		if (m_memberBlock == null) {
+			m_featureStore.getRow(m_memberOffset + member, target);
+			return;
+		}
+		for (int i = 0; i < target.length; i++) {
+			target[i] = m_memberBlock[i][member];
+		}
+	}
 
+	public boolean findClusterDensityAttractor(final double xi, final double sigma) {
 		double densityAttr = 0;
-		for (Map.Entry<Double, RowKey> entry : m_allOrderedMembers.entrySet()) {
-			System.out.println(entry.getValue().toString());
-			double localDensityX = localDensityFunction(m_clusterMembers.get(entry.getValue()), entry.getValue(),
-					sigma);
+		double[] member = new double[m_linearSum.length];
+		double[] nearXDistances = new double[m_nearX.length];
+		m_numClimbs = 0;
+		for (int memberIndex : m_allOrderedMembers) {
+			// every step of the walk evaluates the density at one member
+			m_numClimbs++;
+			getMember(memberIndex, member);
+			double localDensityX = localDensityFunction(member, nearXDistances);
+			markMemberRow(memberIndex, nearXDistances, sigma);
 			if (localDensityX >= densityAttr) {
 				densityAttr = localDensityX;
-				densityAttrKey = entry.getValue();
 			} else {
 				break;
 			}
 		}
+		m_numClimbIterations = m_numClimbs;
+		m_numDensityEvaluations = m_numClimbs;
 		// must be true to meet cluster density threshold defined by user
 		if (densityAttr >= xi) {
 			return true;
@@ -279,9 +348,172 @@ public class DENCLUEHyperCube {
 		}
 	}
 
+	/**
+	 * Climbs every member to its density attractor over all members of this cube.
+	 * Members whose attractor is at least as dense as xi are cluster rows, all
+	 * others noise. The attractor of every member and its density are kept, see
+	 * {@link #getAttractor} and {@link #getAttractorDensity}. With a climb path,
+	 * members that lay within sigma/2 of a climb take over its attractor and are
+	 * not climbed from themselves.
+	 *
+	 * @param path the path recording the members near a climb, may be
+	 *            {@code null} to climb from every member
+	 * @return whether any member reached a significant attractor
+	 */
+	public boolean findDensityAttractors(final double xi, final DENCLUEAttractorSearch attractorSearch,
+			final DENCLUEClimbPath path) {
+		prepareAttractors();
+		long iterations = attractorSearch.getNumIterations();
+		long densityEvaluations = attractorSearch.getNumDensityEvaluations();
+		m_numClimbs = climbMembers(xi, attractorSearch, path, 0, m_numFeatureVectors);
+		m_numClimbIterations = attractorSearch.getNumIterations() - iterations;
+		m_numDensityEvaluations = attractorSearch.getNumDensityEvaluations() - densityEvaluations;
+		return hasClusterRows();
+	}
+
+	/**
+	 * Like {@link #findDensityAttractors}, in chunks of
+	 * {@code CLIMB_CHUNK_SIZE} members that are forked into the fork-join pool if
+	 * called from one. Every chunk climbs with its own search and path, and the
+	 * path only shares attractors within the chunk, so the attractors don't
+	 * depend on the number of threads.
+	 */
+	private boolean findDensityAttractorsInChunks(final double xi, final DENCLUEDensityEstimator density,
+			final String attractorSearch, final double stepSize, final int maxIterations,
+			final boolean shareAttractors, final double minInfluence) {
+		prepareAttractors();
+		int numChunks = (m_numFeatureVectors + CLIMB_CHUNK_SIZE - 1) / CLIMB_CHUNK_SIZE;
+		final int[] chunkClimbs = new int[numChunks];
+		final DENCLUEAttractorSearch[] chunkSearches = new DENCLUEAttractorSearch[numChunks];
+		RecursiveAction[] chunks = new RecursiveAction[numChunks];
+		for (int i = 0; i < numChunks; i++) {
+			final int chunk = i;
+			chunks[i] = new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					int from = chunk * CLIMB_CHUNK_SIZE;
+					int to = Math.min(from + CLIMB_CHUNK_SIZE, m_numFeatureVectors);
+					DENCLUEAttractorSearch search = createAttractorSearch(density.duplicate(), attractorSearch,
+							stepSize, maxIterations);
+					chunkSearches[chunk] = search;
+					DENCLUEClimbPath path = shareAttractors ? new DENCLUEClimbPath(from, to, minInfluence) : null;
+					chunkClimbs[chunk] = climbMembers(xi, search, path, from, to);
+				}
+			};
+		}
+		if (ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(chunks);
+		} else {
+			for (RecursiveAction chunk : chunks) {
+				chunk.invoke();
+			}
+		}
+		m_numClimbs = 0;
+		m_numClimbIterations = 0;
+		m_numDensityEvaluations = 0;
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			m_numClimbs += chunkClimbs[chunk];
+			m_numClimbIterations += chunkSearches[chunk].getNumIterations();
+			m_numDensityEvaluations += chunkSearches[chunk].getNumDensityEvaluations();
+		}
+		return hasClusterRows();
+	}
+
+	/**
+	 * Creates the attractor store if the cube wasn't given one, see
+	 * {@link #setMemberRange(DENCLUEFeatureStore, int, DENCLUEFeatureStore)}.
+	 */
+	private void prepareAttractors() {
+		if (m_attractorStore == null) {
+			m_attractorStore = new DENCLUEHeapFeatureStore(m_linearSum.length + 1, m_numFeatureVectors);
+			m_attractorOffset = 0;
+		}
+		m_hasAttractors = true;
+	}
+
+	/**
+	 * Climbs the members {@code [from, to)} that aren't assigned an attractor yet;
+	 * the path must not record members outside of the range if other ranges are
+	 * climbed at the same time.
+	 *
+	 * @return the number of climbs, less than the members if they share climbs
+	 */
+	private int climbMembers(final double xi, final DENCLUEAttractorSearch attractorSearch,
+			final DENCLUEClimbPath path, final int from, final int to) {
+		double[] point = new double[m_linearSum.length];
+		int numClimbs = 0;
+		for (int i = from; i < to; i++) {
+			if (m_rowStatus[i] != 0) {
+				continue;
+			}
+			getMember(i, point);
+			if (path != null) {
+				path.clear();
+			}
+			double density = attractorSearch.climb(point, point, path);
+			numClimbs++;
+			assignAttractor(i, point, density, xi);
+			if (path != null) {
+				for (int j = 0; j < path.size(); j++) {
+					int member = path.getMember(j);
+					if (m_rowStatus[member] == 0) {
+						assignAttractor(member, point, density, xi);
+					}
+				}
+			}
+		}
+		return numClimbs;
+	}
+
+	private boolean hasClusterRows() {
+		for (int i = 0; i < m_rowStatus.length; i++) {
+			if (m_rowStatus[i] == CLUSTER_ROW) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marks the members as cluster or noise rows against a new xi, keeping the
+	 * attractors of the last {@link #findDensityAttractors}.
+	 *
+	 * @return whether any member has a significant attractor
+	 */
+	public boolean assignClusters(final double xi) {
+		m_numClimbs = 0;
+		m_numClimbIterations = 0;
+		m_numDensityEvaluations = 0;
+		boolean isCluster = false;
+		for (int i = 0; i < m_numFeatureVectors; i++) {
+			if (getAttractorDensity(i) >= xi) {
+				m_rowStatus[i] = CLUSTER_ROW;
+				isCluster = true;
+			} else {
+				m_rowStatus[i] = NOISE_ROW;
+			}
+		}
+		return isCluster;
+	}
+
+	protected boolean hasAttractors() {
+		return m_hasAttractors;
+	}
+
+	private void assignAttractor(final int member, final double[] attractor, final double density,
+			final double xi) {
+		int row = m_attractorOffset + member;
+		for (int dimension = 0; dimension < attractor.length; dimension++) {
+			m_attractorStore.setValue(row, dimension, attractor[dimension]);
+		}
+		m_attractorStore.setValue(row, attractor.length, density);
+		m_rowStatus[member] = density >= xi ? CLUSTER_ROW : NOISE_ROW;
+	}
+
 	public double euclidianDistance(final double[] setOne, final double[] setTwo) {
 		double currSum = 0;
-		System.out.print("SET ONE " + setOne);
 		if (setOne != null && setTwo != null) {
 			for (int i = 0; i < setOne.length; i++) {
 				double diff = (setOne[i] - setTwo[i]);
@@ -295,36 +527,184 @@ public class DENCLUEHyperCube {
 	}
 
 	public boolean clusterHyperCube(final double sigma, final double xi) {
-		createNearXSet(sigma);
-		return findClusterDensityAttractor(xi, sigma);
+		return clusterHyperCube(sigma, xi, DENCLUEAttractorSearch.SEARCH_MEMBER_WALK, 0, 0, false, 0);
 	}
 
-	public Set<RowKey> getClusterRows() {
-		return m_clusterRows;
+	/**
+	 * Clusters the members with the given attractor search, one of the
+	 * {@code DENCLUEAttractorSearch.SEARCH_*} modes.
+	 *
+	 * @param stepSize the hill-climbing step delta, absolute; not used by the
+	 *            mean shift
+	 * @param shareAttractors whether members near a climb share its attractor
+	 *            instead of climbing themselves
+	 * @param densityCutoff the distance beyond which members don't add to the
+	 *            density of a point, absolute; 0 to sum over all members
+	 */
+	public boolean clusterHyperCube(final double sigma, final double xi, final String attractorSearch,
+			final double stepSize, final int maxIterations, final boolean shareAttractors,
+			final double densityCutoff) {
+		boolean result;
+		if (DENCLUEAttractorSearch.SEARCH_MEMBER_WALK.equals(attractorSearch)) {
+			createNearXSet(sigma);
+			result = findClusterDensityAttractor(xi, sigma);
+		} else {
+			m_kernel = new DENCLUEGaussianKernel(sigma);
+			m_rowStatus = new byte[m_numFeatureVectors];
+			// large cubes of members off the heap are climbed from their store
+			boolean fromStore = !m_featureStore.isOnHeap() && m_numFeatureVectors > CLIMB_CHUNK_SIZE;
+			DENCLUEDensityEstimator density;
+			if (fromStore) {
+				density = createDensityEstimator(densityCutoff);
+			} else {
+				m_memberBlock = m_featureStore.readBlock(m_memberOffset, m_numFeatureVectors);
+				if (densityCutoff > 0) {
+					density = new DENCLUEKdTree(m_kernel, m_memberBlock, m_numFeatureVectors, densityCutoff);
+				} else {
+					density = new DENCLUEBlockDensityEstimator(m_kernel, m_memberBlock, m_numFeatureVectors);
+				}
+			}
+			double minInfluence = m_kernel.influence(sigma * sigma / 4);
+			// chunked with or without a pool, so the threads don't change the attractors
+			result = findDensityAttractorsInChunks(xi, density, attractorSearch, stepSize, maxIterations,
+					shareAttractors, minInfluence);
+			density.close();
+		}
+		// the columnar copies are only needed while the cube is clustered
+		m_memberBlock = null;
+		m_nearXBlock = null;
+		return result;
 	}
 
-	public Set<RowKey> getNoiseRows() {
-		return m_noiseRows;
+	/**
+	 * @return an estimator reading the members from their store
+	 */
+	private DENCLUEDensityEstimator createDensityEstimator(final double densityCutoff) {
+		if (densityCutoff <= 0) {
+			return new DENCLUEBlockDensityEstimator(m_kernel, m_featureStore, m_memberOffset, m_numFeatureVectors);
+		}
+		try {
+			return new DENCLUEKdTree(m_kernel, m_featureStore, m_memberOffset, m_numFeatureVectors, densityCutoff);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
-	// TODO
-
-	// override equals and hashcode
+	private DENCLUEAttractorSearch createAttractorSearch(final DENCLUEDensityEstimator density,
+			final String attractorSearch, final double stepSize, final int maxIterations) {
+		if (DENCLUEAttractorSearch.SEARCH_MEAN_SHIFT.equals(attractorSearch)) {
+			return new DENCLUEMeanShiftAttractorSearch(density, m_linearSum.length, maxIterations);
+		}
+		return new DENCLUEGradientAttractorSearch(density, m_linearSum.length, stepSize, maxIterations);
+	}
 
-	// implement highly populated check in addMember(arg1, arg2)
+	/**
+	 * Copies the density attractor of the member at the given index (relative to
+	 * the member offset) into the target array.
+	 */
+	protected void getAttractor(final int member, final double[] target) {
+		for (int i = 0; i < target.length; i++) {
+			target[i] = m_attractorStore.getValue(m_attractorOffset + member, i);
+		}
+	}
 
-	// LIKELY NOT needed unless improvement on performance
+	protected double getAttractorDensity(final int member) {
+		return m_attractorStore.getValue(m_attractorOffset + member, m_linearSum.length);
+	}
 
-	// additional constructor (takes two cubes, makes one cube)
+	/**
+	 * Adds the distinct density attractors of the members to the cluster model,
+	 * merging attractors within sigma/2 of the first one found and weighting
+	 * each with the number of members that climbed to it. Without attractors
+	 * (the member walk) the mean of the cube stands in for all members.
+	 *
+	 * @param isCluster whether the cube holds a cluster, decides the density of
+	 *            the mean
+	 */
+	protected void addAttractors(final DENCLUEClusterModel model, final double sigma, final double xi,
+			final boolean isCluster) {
+		if (!m_hasAttractors) {
+			model.addAttractor(m_meanVector, m_numFeatureVectors, isCluster ? xi : 0);
+			return;
+		}
+		int numDimensions = m_linearSum.length;
+		double mergeDistanceSquared = sigma * sigma / 4;
+		ArrayList<double[]> distinct = new ArrayList<double[]>();
+		ArrayList<Double> densities = new ArrayList<Double>();
+		int[] weights = new int[m_numFeatureVectors];
+		// the attractor of the member, followed by its density
+		double[] memberAttractor = new double[numDimensions + 1];
+		for (int i = 0; i < m_numFeatureVectors; i++) {
+			m_attractorStore.getRow(m_attractorOffset + i, memberAttractor);
+			int match = -1;
+			for (int j = 0; j < distinct.size() && match < 0; j++) {
+				double[] attractor = distinct.get(j);
+				double sum = 0;
+				for (int dimension = 0; dimension < numDimensions; dimension++) {
+					double diff = attractor[dimension] - memberAttractor[dimension];
+					sum += diff * diff;
+				}
+				if (sum <= mergeDistanceSquared) {
+					match = j;
+				}
+			}
+			if (match < 0) {
+				match = distinct.size();
+				distinct.add(Arrays.copyOf(memberAttractor, numDimensions));
+				densities.add(memberAttractor[numDimensions]);
+			}
+			weights[match]++;
+		}
+		for (int j = 0; j < distinct.size(); j++) {
+			model.addAttractor(distinct.get(j), weights[j], densities.get(j));
+		}
+	}
 
-	// method combine cubes
+	/**
+	 * Adds the work of the last clustering of this cube to the diagnostics.
+	 */
+	protected void addDiagnostics(final DENCLUEDiagnostics diagnostics) {
+		diagnostics.add(DENCLUEDiagnostics.Counter.MEMBERS, m_numFeatureVectors);
+		if (!m_hasAttractors) {
+			diagnostics.add(DENCLUEDiagnostics.Counter.NEAR_X, m_nearX == null ? 0 : m_nearX.length);
+			diagnostics.add(DENCLUEDiagnostics.Counter.WALK_STEPS, m_numClimbs);
+		} else if (m_numClimbs > 0) {
+			diagnostics.add(DENCLUEDiagnostics.Counter.CLIMBS, m_numClimbs);
+		} else {
+			diagnostics.add(DENCLUEDiagnostics.Counter.RELABELED_SUPER_CUBES, 1);
+		}
+		diagnostics.add(DENCLUEDiagnostics.Counter.CLIMB_ITERATIONS, m_numClimbIterations);
+		diagnostics.add(DENCLUEDiagnostics.Counter.DENSITY_EVALUATIONS, m_numDensityEvaluations);
+	}
 
-	// VERY LIKELY NOT needed
+	/**
+	 * Sets the cluster id of every cluster row of this cube, at the position of
+	 * the row in the input table. Rows also marked as noise are left out.
+	 *
+	 * @return the number of rows set
+	 */
+	protected int putClusterRows(final DENCLUEClusterIdColumn rowClusterIds, final int clusterId) {
+		int count = 0;
+		for (int i = 0; i < m_rowStatus.length; i++) {
+			if (m_rowStatus[i] == CLUSTER_ROW) {
+				rowClusterIds.setClusterId(m_featureStore.getRowIndex(m_memberOffset + i), clusterId);
+				count++;
+			}
+		}
+		return count;
+	}
 
-	// method find neighbors
-	// search b tree for all cube key +/- 1
-	// if neighbor != null, run check neighbor
-	// if neighbor distance < 4sigma, then set as neighbor
-	// else remove as neighbor
-	// then update neighbor cube to prevent redundant searches
+	/**
+	 * @return the number of cluster rows of this cube, as set by
+	 *         {@link #putClusterRows}
+	 */
+	protected int countClusterRows() {
+		int count = 0;
+		for (int i = 0; i < m_rowStatus.length; i++) {
+			if (m_rowStatus[i] == CLUSTER_ROW) {
+				count++;
+			}
+		}
+		return count;
+	}
 }
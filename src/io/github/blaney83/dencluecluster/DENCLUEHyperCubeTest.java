@@ -2,14 +2,77 @@ package io.github.blaney83.dencluecluster;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.HashSet;
+
 import org.junit.jupiter.api.Test;
 
 class DENCLUEHyperCubeTest {
 
+	private static DENCLUEHyperCube createCube(final int cubeId, final int numFeatureVectors, final double[] mean,
+			final int... keyValues) {
+		DENCLUEIndexKey key = new DENCLUEIndexKey(keyValues.length);
+		for (int i = 0; i < keyValues.length; i++) {
+			key.setValue(i, keyValues[i]);
+		}
+		double[] linearSum = new double[mean.length];
+		for (int i = 0; i < mean.length; i++) {
+			linearSum[i] = mean[i] * numFeatureVectors;
+		}
+		return new DENCLUEHyperCube(key, cubeId, numFeatureVectors, linearSum);
+	}
+
+	@Test
+	void computesMean() {
+		DENCLUEHyperCube cube = createCube(0, 4, new double[] { 1.5, -2 }, 1, 0);
+		assertEquals(1.5, cube.getMean()[0], 1e-12);
+		assertEquals(-2, cube.getMean()[1], 1e-12);
+		assertEquals(4, cube.getNumFeatureVectors());
+	}
+
+	@Test
+	void isHighlyPopulatedFromXiOverTwoD() {
+		// xi / 2d = 2 in two dimensions
+		assertTrue(createCube(0, 2, new double[] { 0, 0 }, 0, 0).isHighlyPopulated(8));
+		assertFalse(createCube(0, 1, new double[] { 0, 0 }, 0, 0).isHighlyPopulated(8));
+	}
+
 	@Test
-	void test() {
-		assertDoubleEquals();
-		
+	void isNeighborAlongOneDimension() {
+		DENCLUEHyperCube cube = createCube(0, 1, new double[] { 0, 0 }, 2, 2);
+		assertTrue(cube.isNeighbor(createCube(1, 1, new double[] { 0, 0 }, 2, 3)));
+		assertTrue(cube.isNeighbor(createCube(1, 1, new double[] { 0, 0 }, 1, 2)));
+		assertFalse(cube.isNeighbor(createCube(1, 1, new double[] { 0, 0 }, 3, 3)));
+		assertFalse(cube.isNeighbor(createCube(1, 1, new double[] { 0, 0 }, 2, 4)));
 	}
 
+	@Test
+	void enumeratesNeighborKeysLikeScan() {
+		DENCLUEHyperCube cube = createCube(0, 1, new double[] { 0, 0 }, 0, 3);
+		// every cell of a fully populated grid around the cube
+		HashSet<DENCLUEIndexKey> scannedKeys = new HashSet<DENCLUEIndexKey>();
+		for (int x = 0; x < 6; x++) {
+			for (int y = 0; y < 6; y++) {
+				DENCLUEHyperCube otherCube = createCube(1, 1, new double[] { 0, 0 }, x, y);
+				if (!otherCube.getCubeKey().equals(cube.getCubeKey()) && cube.isNeighbor(otherCube)) {
+					scannedKeys.add(otherCube.getCubeKey());
+				}
+			}
+		}
+		// no cell left of the first column
+		assertEquals(3, cube.getCandidateNeighborKeys().size());
+		assertEquals(scannedKeys, new HashSet<DENCLUEIndexKey>(cube.getCandidateNeighborKeys()));
+	}
+
+	@Test
+	void isConnectedWithinFourSigma() {
+		DENCLUEHyperCube cube = createCube(0, 1, new double[] { 0, 0 }, 0, 0);
+		assertTrue(cube.isConnected(createCube(1, 1, new double[] { 3, 4 }, 1, 1), 1.25));
+		assertFalse(cube.isConnected(createCube(1, 1, new double[] { 3, 4 }, 1, 1), 1.2));
+	}
+
+	@Test
+	void measuresEuclidianDistance() {
+		DENCLUEHyperCube cube = createCube(0, 1, new double[] { 0, 0 }, 0, 0);
+		assertEquals(5, cube.euclidianDistance(new double[] { 1, 1 }, new double[] { 4, 5 }), 1e-12);
+	}
 }
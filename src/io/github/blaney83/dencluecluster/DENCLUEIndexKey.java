@@ -1,5 +1,7 @@
 package io.github.blaney83.dencluecluster;
 
+import java.util.Arrays;
+
 public class DENCLUEIndexKey implements Comparable<DENCLUEIndexKey>{
 	
 	private int[] m_indexArray;
@@ -7,6 +9,10 @@ public class DENCLUEIndexKey implements Comparable<DENCLUEIndexKey>{
 	public DENCLUEIndexKey(final int size) {
 		m_indexArray = new int[size];
 	}
+
+	public DENCLUEIndexKey(final DENCLUEIndexKey otherKey) {
+		m_indexArray = otherKey.m_indexArray.clone();
+	}
 	
 	public void setValue(final int keyIndex, final int value) {
 		m_indexArray[keyIndex] = value;
@@ -34,6 +40,30 @@ public class DENCLUEIndexKey implements Comparable<DENCLUEIndexKey>{
 		return 0;
 	}
 	
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DENCLUEIndexKey)) {
+			return false;
+		}
+		return Arrays.equals(m_indexArray, ((DENCLUEIndexKey) obj).m_indexArray);
+	}
+
+	@Override
+	public int hashCode() {
+		// the cube indices are small, dense integers; mix the polynomial hash so the low
+		// bits used by open addressing are well distributed
+		int hash = Arrays.hashCode(m_indexArray);
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
 	@Override
 	public String toString() {
 		String strValue = "";
@@ -0,0 +1,165 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import org.knime.core.util.FileUtil;
+
+/**
+ * A column of one {@code int} per row, on the heap or in a memory-mapped temp
+ * file in the workflow's temp directory, in segments of at most
+ * {@code 2^SEGMENT_SHIFT} ints. A new column is all zeros. Rows at distinct
+ * positions can be written from several threads.
+ * <p>
+ * {@link #close()} drops the buffers of a mapped column and then deletes its
+ * temp file; the mapping itself is released once the buffers are collected,
+ * see {@link DENCLUEMappedFeatureStore}.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUEIntColumn {
+
+	private static final int SEGMENT_SHIFT = 27;
+
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	// the temp file of a mapped column, null on the heap
+	private final File m_file;
+
+	private IntBuffer[] m_segments;
+
+	private final int m_numRows;
+
+	private DENCLUEIntColumn(final IntBuffer[] segments, final int numRows, final File file) {
+		m_segments = segments;
+		m_numRows = numRows;
+		m_file = file;
+	}
+
+	/**
+	 * @param onHeap whether the column lives on the heap, or in a mapped file
+	 */
+	static DENCLUEIntColumn create(final int numRows, final boolean onHeap) throws IOException {
+		if (onHeap) {
+			return createHeap(numRows);
+		}
+		File file = FileUtil.createTempFile("denclue_ints_", ".bin");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength((long) numRows * Integer.BYTES);
+			return new DENCLUEIntColumn(map(randomAccessFile.getChannel(), 0, numRows), numRows, file);
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+	}
+
+	static DENCLUEIntColumn createHeap(final int numRows) {
+		IntBuffer[] segments = new IntBuffer[getNumSegments(numRows)];
+		for (int j = 0; j < segments.length; j++) {
+			segments[j] = IntBuffer.wrap(new int[getSegmentRows(numRows, j)]);
+		}
+		return new DENCLUEIntColumn(segments, numRows, null);
+	}
+
+	/**
+	 * Maps {@code numRows} ints of the file from the given byte position on, in
+	 * segments of at most {@code 2^SEGMENT_SHIFT} ints. The mapping stays valid
+	 * after the channel is closed.
+	 */
+	static IntBuffer[] map(final FileChannel channel, final long position, final int numRows)
+			throws IOException {
+		IntBuffer[] segments = new IntBuffer[getNumSegments(numRows)];
+		for (int j = 0; j < segments.length; j++) {
+			segments[j] = channel
+					.map(FileChannel.MapMode.READ_WRITE, position + ((long) j << SEGMENT_SHIFT) * Integer.BYTES,
+							(long) getSegmentRows(numRows, j) * Integer.BYTES)
+					.order(ByteOrder.nativeOrder()).asIntBuffer();
+		}
+		return segments;
+	}
+
+	private static int getNumSegments(final int numRows) {
+		return (numRows + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+	}
+
+	private static int getSegmentRows(final int numRows, final int segment) {
+		return (int) Math.min(SEGMENT_MASK + 1L, numRows - ((long) segment << SEGMENT_SHIFT));
+	}
+
+	/**
+	 * Reads a row of segments as created by {@link #map}.
+	 */
+	static int get(final IntBuffer[] segments, final int row) {
+		return segments[row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+	}
+
+	/**
+	 * Writes a row of segments as created by {@link #map}.
+	 */
+	static void set(final IntBuffer[] segments, final int row, final int value) {
+		segments[row >>> SEGMENT_SHIFT].put(row & SEGMENT_MASK, value);
+	}
+
+	int get(final int row) {
+		return get(m_segments, row);
+	}
+
+	void set(final int row, final int value) {
+		set(m_segments, row, value);
+	}
+
+	int getNumRows() {
+		return m_numRows;
+	}
+
+	/**
+	 * @return the temp file of a mapped column, {@code null} on the heap
+	 */
+	File getFile() {
+		return m_file;
+	}
+
+	/**
+	 * Writes the values of all rows, as read back by {@link #read}.
+	 */
+	void write(final DataOutputStream out) throws IOException {
+		for (IntBuffer segment : m_segments) {
+			for (int i = 0; i < segment.limit(); i++) {
+				out.writeInt(segment.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Copies the values written by {@link #write} from the buffer into this
+	 * column, advancing the buffer past them.
+	 */
+	void read(final ByteBuffer in) {
+		IntBuffer values = in.asIntBuffer();
+		for (IntBuffer segment : m_segments) {
+			IntBuffer target = segment.duplicate();
+			target.clear();
+			values.limit(values.position() + target.remaining());
+			target.put(values);
+		}
+		in.position(in.position() + m_numRows * Integer.BYTES);
+	}
+
+	/**
+	 * Drops the storage of this column and deletes the temp file of a mapped
+	 * column.
+	 */
+	void close() {
+		m_segments = null;
+		if (m_file != null) {
+			// still mapped until the buffers are collected
+			m_file.delete();
+		}
+	}
+}
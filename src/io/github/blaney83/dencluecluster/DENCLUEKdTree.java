@@ -0,0 +1,355 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.IOException;
+
+/**
+ * Kd-tree over the members of one super cube, answering density and gradient
+ * queries with only the members within a cutoff distance of the point. The
+ * tree splits the widest dimension of a node at the median until at most
+ * {@code LEAF_SIZE} members are left; the members are copied into a columnar
+ * block in tree order, so every leaf is a contiguous range that is summed like
+ * the plain block. Subtrees whose bounding box is further away than the cutoff
+ * are skipped. Members beyond the cutoff don't contribute, even if their leaf
+ * is visited.
+ * <p>
+ * A tree over members held outside of the heap is built from their store and
+ * gathers the members in tree order into a new store of the same kind; a
+ * visited leaf is read from it into scratch space.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEKdTree implements DENCLUEDensityEstimator {
+
+	static final int LEAF_SIZE = 64;
+
+	private final DENCLUEGaussianKernel m_kernel;
+
+	private final double m_cutoffSquared;
+
+	// members in tree order, m_block[dimension][treePosition], or in a store for
+	// members not on the heap
+	private double[][] m_block;
+
+	private DENCLUEFeatureStore m_treeStore;
+
+	// the members the tree is built from, block or store from the offset on; only
+	// set while the tree is built
+	private double[][] m_sourceBlock;
+
+	private DENCLUEFeatureStore m_sourceStore;
+
+	private int m_sourceOffset;
+
+	// member index (relative to the cube) of every tree position
+	private final int[] m_members;
+
+	// nodes: tree position range, children (-1 for leaves) and bounding box
+	private int[] m_nodeStart;
+
+	private int[] m_nodeEnd;
+
+	private int[] m_nodeLeft;
+
+	private int[] m_nodeRight;
+
+	private double[][] m_nodeMin;
+
+	private double[][] m_nodeMax;
+
+	private int m_numNodes = 0;
+
+	// leaves of identical points may exceed LEAF_SIZE
+	private int m_maxLeafSize = 0;
+
+	private final int[] m_stack;
+
+	private final double[] m_scratch;
+
+	// the visited leaf, read from the tree store
+	private final double[][] m_leafBlock;
+
+	/**
+	 * @param block the members, block[dimension][member]
+	 * @param cutoff the distance beyond which members are ignored
+	 */
+	public DENCLUEKdTree(final DENCLUEGaussianKernel kernel, final double[][] block, final int count,
+			final double cutoff) {
+		this(kernel, block, null, 0, count, cutoff);
+		m_block = new double[block.length][count];
+		for (int dimension = 0; dimension < block.length; dimension++) {
+			double[] source = block[dimension];
+			double[] target = m_block[dimension];
+			for (int i = 0; i < count; i++) {
+				target[i] = source[m_members[i]];
+			}
+		}
+	}
+
+	/**
+	 * A tree over the members {@code [offset, offset + count)} of the store,
+	 * which stay off the heap; {@link #close()} releases the store of the tree.
+	 *
+	 * @param cutoff the distance beyond which members are ignored
+	 */
+	public DENCLUEKdTree(final DENCLUEGaussianKernel kernel, final DENCLUEFeatureStore featureStore,
+			final int offset, final int count, final double cutoff) throws IOException {
+		this(kernel, null, featureStore, offset, count, cutoff);
+		int[] sourceRows = new int[count];
+		for (int i = 0; i < count; i++) {
+			sourceRows[i] = offset + m_members[i];
+		}
+		m_treeStore = featureStore.gather(sourceRows, true);
+	}
+
+	private DENCLUEKdTree(final DENCLUEGaussianKernel kernel, final double[][] block,
+			final DENCLUEFeatureStore featureStore, final int offset, final int count, final double cutoff) {
+		m_kernel = kernel;
+		m_cutoffSquared = cutoff * cutoff;
+		m_members = new int[count];
+		for (int i = 0; i < count; i++) {
+			m_members[i] = i;
+		}
+		int numDimensions = block != null ? block.length : featureStore.getNumDimensions();
+		// split leaves hold at least LEAF_SIZE / 2 members
+		int maxNodes = 2 * (count / (LEAF_SIZE / 2)) + 1;
+		m_nodeStart = new int[maxNodes];
+		m_nodeEnd = new int[maxNodes];
+		m_nodeLeft = new int[maxNodes];
+		m_nodeRight = new int[maxNodes];
+		m_nodeMin = new double[numDimensions][maxNodes];
+		m_nodeMax = new double[numDimensions][maxNodes];
+		m_sourceBlock = block;
+		m_sourceStore = featureStore;
+		m_sourceOffset = offset;
+		int depth = build(numDimensions, 0, count);
+		m_sourceBlock = null;
+		m_sourceStore = null;
+		m_stack = new int[depth + 2];
+		m_scratch = new double[m_maxLeafSize];
+		m_leafBlock = block != null ? null : new double[numDimensions][m_maxLeafSize];
+	}
+
+	/**
+	 * Shares the tree of the given one, with new scratch space.
+	 */
+	private DENCLUEKdTree(final DENCLUEKdTree tree) {
+		m_kernel = tree.m_kernel;
+		m_cutoffSquared = tree.m_cutoffSquared;
+		m_block = tree.m_block;
+		m_treeStore = tree.m_treeStore;
+		m_members = tree.m_members;
+		m_nodeStart = tree.m_nodeStart;
+		m_nodeEnd = tree.m_nodeEnd;
+		m_nodeLeft = tree.m_nodeLeft;
+		m_nodeRight = tree.m_nodeRight;
+		m_nodeMin = tree.m_nodeMin;
+		m_nodeMax = tree.m_nodeMax;
+		m_numNodes = tree.m_numNodes;
+		m_maxLeafSize = tree.m_maxLeafSize;
+		m_stack = new int[tree.m_stack.length];
+		m_scratch = new double[tree.m_scratch.length];
+		m_leafBlock = tree.m_leafBlock == null ? null : new double[tree.m_leafBlock.length][m_maxLeafSize];
+	}
+
+	@Override
+	public DENCLUEDensityEstimator duplicate() {
+		return new DENCLUEKdTree(this);
+	}
+
+	@Override
+	public void close() {
+		if (m_treeStore != null) {
+			m_treeStore.close();
+			m_treeStore = null;
+		}
+	}
+
+	private double getSourceValue(final int dimension, final int member) {
+		if (m_sourceBlock != null) {
+			return m_sourceBlock[dimension][member];
+		}
+		return m_sourceStore.getValue(m_sourceOffset + member, dimension);
+	}
+
+	/**
+	 * Builds the subtree over the tree positions {@code [start, end)}.
+	 *
+	 * @return the depth of the subtree
+	 */
+	private int build(final int numDimensions, final int start, final int end) {
+		int node = m_numNodes++;
+		m_nodeStart[node] = start;
+		m_nodeEnd[node] = end;
+		m_nodeLeft[node] = -1;
+		m_nodeRight[node] = -1;
+		int widestDimension = 0;
+		double widestExtent = -1;
+		for (int dimension = 0; dimension < numDimensions; dimension++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = start; i < end; i++) {
+				double value = getSourceValue(dimension, m_members[i]);
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			m_nodeMin[dimension][node] = min;
+			m_nodeMax[dimension][node] = max;
+			if (max - min > widestExtent) {
+				widestExtent = max - min;
+				widestDimension = dimension;
+			}
+		}
+		if (end - start <= LEAF_SIZE || widestExtent <= 0) {
+			m_maxLeafSize = Math.max(m_maxLeafSize, end - start);
+			return 1;
+		}
+		int middle = (start + end) >>> 1;
+		select(widestDimension, start, end - 1, middle);
+		m_nodeLeft[node] = m_numNodes;
+		int leftDepth = build(numDimensions, start, middle);
+		m_nodeRight[node] = m_numNodes;
+		int rightDepth = build(numDimensions, middle, end);
+		return 1 + Math.max(leftDepth, rightDepth);
+	}
+
+	/**
+	 * Quickselect on the tree positions {@code [low, high]} so the member at
+	 * {@code nth} has the nth smallest value of the dimension.
+	 */
+	private void select(final int dimension, final int low, final int high, final int nth) {
+		int left = low;
+		int right = high;
+		while (left < right) {
+			double pivot = getSourceValue(dimension, m_members[(left + right) >>> 1]);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (getSourceValue(dimension, m_members[i]) < pivot) {
+					i++;
+				}
+				while (getSourceValue(dimension, m_members[j]) > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = m_members[i];
+					m_members[i] = m_members[j];
+					m_members[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (nth <= j) {
+				right = j;
+			} else if (nth >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public double densityGradient(final double[] point, final double[] gradient, final DENCLUEClimbPath path) {
+		double density = 0.0;
+		for (int dimension = 0; dimension < gradient.length; dimension++) {
+			gradient[dimension] = 0.0;
+		}
+		int stackSize = 0;
+		m_stack[stackSize++] = 0;
+		while (stackSize > 0) {
+			int node = m_stack[--stackSize];
+			if (boxDistanceSquared(node, point) > m_cutoffSquared) {
+				continue;
+			}
+			if (m_nodeLeft[node] >= 0) {
+				m_stack[stackSize++] = m_nodeRight[node];
+				m_stack[stackSize++] = m_nodeLeft[node];
+				continue;
+			}
+			int start = m_nodeStart[node];
+			int count = m_nodeEnd[node] - start;
+			// the leaf is read from the tree store, or summed in place
+			double[][] block = m_block;
+			int blockStart = start;
+			if (m_treeStore != null) {
+				m_treeStore.readBlock(start, count, m_leafBlock);
+				block = m_leafBlock;
+				blockStart = 0;
+			}
+			squaredDistances(block, blockStart, count, point);
+			double leafDensity = 0.0;
+			if (boxFarthestDistanceSquared(node, point) <= m_cutoffSquared) {
+				for (int i = 0; i < count; i++) {
+					double influence = m_kernel.influence(m_scratch[i]);
+					m_scratch[i] = influence;
+					leafDensity += influence;
+				}
+			} else {
+				for (int i = 0; i < count; i++) {
+					double influence = m_scratch[i] > m_cutoffSquared ? 0.0 : m_kernel.influence(m_scratch[i]);
+					m_scratch[i] = influence;
+					leafDensity += influence;
+				}
+			}
+			for (int dimension = 0; dimension < gradient.length; dimension++) {
+				double[] column = block[dimension];
+				double weighted = 0.0;
+				for (int i = 0; i < count; i++) {
+					weighted += m_scratch[i] * column[blockStart + i];
+				}
+				gradient[dimension] += weighted;
+			}
+			density += leafDensity;
+			if (path != null) {
+				path.recordNear(m_scratch, m_members, start, count);
+			}
+		}
+		for (int dimension = 0; dimension < gradient.length; dimension++) {
+			gradient[dimension] -= density * point[dimension];
+		}
+		return density;
+	}
+
+	private void squaredDistances(final double[][] block, final int start, final int count,
+			final double[] point) {
+		double[] column = block[0];
+		double coordinate = point[0];
+		for (int i = 0; i < count; i++) {
+			double diff = column[start + i] - coordinate;
+			m_scratch[i] = diff * diff;
+		}
+		for (int dimension = 1; dimension < block.length; dimension++) {
+			column = block[dimension];
+			coordinate = point[dimension];
+			for (int i = 0; i < count; i++) {
+				double diff = column[start + i] - coordinate;
+				m_scratch[i] += diff * diff;
+			}
+		}
+	}
+
+	private double boxDistanceSquared(final int node, final double[] point) {
+		double sum = 0.0;
+		for (int dimension = 0; dimension < point.length; dimension++) {
+			double value = point[dimension];
+			double diff = m_nodeMin[dimension][node] - value;
+			if (diff <= 0) {
+				diff = value - m_nodeMax[dimension][node];
+			}
+			if (diff > 0) {
+				sum += diff * diff;
+			}
+		}
+		return sum;
+	}
+
+	private double boxFarthestDistanceSquared(final int node, final double[] point) {
+		double sum = 0.0;
+		for (int dimension = 0; dimension < point.length; dimension++) {
+			double value = point[dimension];
+			double diff = Math.max(value - m_nodeMin[dimension][node], m_nodeMax[dimension][node] - value);
+			sum += diff * diff;
+		}
+		return sum;
+	}
+}
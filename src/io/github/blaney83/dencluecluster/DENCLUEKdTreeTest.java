@@ -0,0 +1,151 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEKdTreeTest {
+
+	private static final double SIGMA = 0.4;
+
+	private static final double CUTOFF = 3 * SIGMA;
+
+	private static final int NUM_DIMENSIONS = 3;
+
+	private static final int COUNT = 3000;
+
+	private static double[][] createBlock(final Random random) {
+		double[][] block = new double[NUM_DIMENSIONS][COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+				block[dimension][i] = (i % 2) * 3 + random.nextGaussian();
+			}
+		}
+		// duplicates exceed the leaf size
+		for (int i = 0; i < 2 * DENCLUEKdTree.LEAF_SIZE; i++) {
+			for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+				block[dimension][i] = 1;
+			}
+		}
+		return block;
+	}
+
+	private static double[] createPoint(final Random random) {
+		double[] point = new double[NUM_DIMENSIONS];
+		for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+			point[dimension] = -2 + 7 * random.nextDouble();
+		}
+		return point;
+	}
+
+	/**
+	 * Density and gradient of the block estimator, over the members within the
+	 * cutoff only.
+	 */
+	private static double cutoffDensityGradient(final DENCLUEGaussianKernel kernel, final double[][] block,
+			final double[] point, final double[] gradient) {
+		double[][] near = new double[NUM_DIMENSIONS][COUNT];
+		int count = 0;
+		for (int i = 0; i < COUNT; i++) {
+			double squaredDistance = 0;
+			for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+				double diff = block[dimension][i] - point[dimension];
+				squaredDistance += diff * diff;
+			}
+			if (squaredDistance <= CUTOFF * CUTOFF) {
+				for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+					near[dimension][count] = block[dimension][i];
+				}
+				count++;
+			}
+		}
+		return new DENCLUEBlockDensityEstimator(kernel, near, count).densityGradient(point, gradient, null);
+	}
+
+	@Test
+	void equalsBlockEstimatorWithinCutoff() {
+		Random random = new Random(5);
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock(random);
+		DENCLUEKdTree tree = new DENCLUEKdTree(kernel, block, COUNT, CUTOFF);
+		DENCLUEBlockDensityEstimator blockEstimator = new DENCLUEBlockDensityEstimator(kernel, block, COUNT);
+		// what the members beyond the cutoff may add at most
+		double maxOmitted = COUNT * kernel.influence(CUTOFF * CUTOFF);
+		for (int j = 0; j < 200; j++) {
+			double[] point = createPoint(random);
+			double[] expectedGradient = new double[NUM_DIMENSIONS];
+			double[] gradient = new double[NUM_DIMENSIONS];
+			double expected = cutoffDensityGradient(kernel, block, point, expectedGradient);
+			double density = tree.densityGradient(point, gradient, null);
+			assertEquals(expected, density, 1e-9 * Math.max(1, expected));
+			assertArrayEquals(expectedGradient, gradient, 1e-9 * Math.max(1, expected));
+			double[] fullGradient = new double[NUM_DIMENSIONS];
+			double fullDensity = blockEstimator.densityGradient(point, fullGradient, null);
+			assertTrue(fullDensity - density >= -1e-9);
+			assertTrue(fullDensity - density <= maxOmitted);
+		}
+	}
+
+	@Test
+	void recordsPathLikeBlockEstimator() {
+		Random random = new Random(6);
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock(random);
+		DENCLUEKdTree tree = new DENCLUEKdTree(kernel, block, COUNT, CUTOFF);
+		DENCLUEBlockDensityEstimator blockEstimator = new DENCLUEBlockDensityEstimator(kernel, block, COUNT);
+		double minInfluence = kernel.influence(SIGMA * SIGMA / 4);
+		for (int j = 0; j < 50; j++) {
+			double[] point = createPoint(random);
+			DENCLUEClimbPath treePath = new DENCLUEClimbPath(COUNT, minInfluence);
+			DENCLUEClimbPath blockPath = new DENCLUEClimbPath(COUNT, minInfluence);
+			tree.densityGradient(point, new double[NUM_DIMENSIONS], treePath);
+			blockEstimator.densityGradient(point, new double[NUM_DIMENSIONS], blockPath);
+			assertArrayEquals(getSortedMembers(blockPath), getSortedMembers(treePath));
+		}
+	}
+
+	@Test
+	void equalsTreeOnHeapWhenBuiltFromStore() throws Exception {
+		Random random = new Random(7);
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock(random);
+		// the members from row 10 on
+		DENCLUEHeapFeatureStore store = new DENCLUEHeapFeatureStore(NUM_DIMENSIONS, COUNT + 10);
+		for (int i = 0; i < COUNT; i++) {
+			for (int dimension = 0; dimension < NUM_DIMENSIONS; dimension++) {
+				store.setValue(10 + i, dimension, block[dimension][i]);
+			}
+		}
+		DENCLUEKdTree heapTree = new DENCLUEKdTree(kernel, block, COUNT, CUTOFF);
+		DENCLUEKdTree storeTree = new DENCLUEKdTree(kernel, store, 10, COUNT, CUTOFF);
+		DENCLUEDensityEstimator duplicate = storeTree.duplicate();
+		double minInfluence = kernel.influence(SIGMA * SIGMA / 4);
+		for (int j = 0; j < 50; j++) {
+			double[] point = createPoint(random);
+			double[] heapGradient = new double[NUM_DIMENSIONS];
+			double[] storeGradient = new double[NUM_DIMENSIONS];
+			DENCLUEClimbPath heapPath = new DENCLUEClimbPath(COUNT, minInfluence);
+			DENCLUEClimbPath storePath = new DENCLUEClimbPath(COUNT, minInfluence);
+			double heapDensity = heapTree.densityGradient(point, heapGradient, heapPath);
+			assertEquals(heapDensity, storeTree.densityGradient(point, storeGradient, storePath), 1e-12);
+			assertArrayEquals(heapGradient, storeGradient, 1e-12);
+			assertArrayEquals(getSortedMembers(heapPath), getSortedMembers(storePath));
+			assertEquals(heapDensity, duplicate.densityGradient(point, storeGradient, null), 1e-12);
+		}
+		duplicate.close();
+		storeTree.close();
+		store.close();
+	}
+
+	private static int[] getSortedMembers(final DENCLUEClimbPath path) {
+		int[] members = new int[path.size()];
+		for (int i = 0; i < members.length; i++) {
+			members[i] = path.getMember(i);
+		}
+		Arrays.sort(members);
+		return members;
+	}
+}
@@ -0,0 +1,193 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import org.knime.core.util.FileUtil;
+
+/**
+ * {@link DENCLUEFeatureStore} whose feature vectors and row positions live in a
+ * memory-mapped temp file in the workflow's temp directory, so the heap only
+ * holds whatever block of rows is currently being read. The file is laid out
+ * column by column, followed by the row positions; every column is mapped in
+ * segments of at most {@code 2^SEGMENT_SHIFT} values since a single mapping is
+ * limited to 2 GB.
+ * <p>
+ * Java can't unmap a file explicitly: a mapping is released once its buffers
+ * are collected. {@link #close()} drops the buffers and then deletes the file,
+ * which may still be mapped. Where the platform allows that, the file is gone
+ * right away and its space is freed with the mapping; otherwise it stays in the
+ * workflow's temp directory until KNIME cleans that up. The file is not
+ * registered for deletion on exit, which would keep its path in memory for as
+ * long as KNIME runs.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEMappedFeatureStore implements DENCLUEFeatureStore {
+
+	private static final int SEGMENT_SHIFT = 27;
+
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	private final File m_file;
+
+	private RandomAccessFile m_randomAccessFile;
+
+	// m_segments[dimension][row >>> SEGMENT_SHIFT]
+	private DoubleBuffer[][] m_segments;
+
+	private IntBuffer[] m_rowIndices;
+
+	private final int m_numRows;
+
+	private final int m_numDimensions;
+
+	private final ArrayList<DENCLUEFeatureStore> m_companions = new ArrayList<DENCLUEFeatureStore>();
+
+	public DENCLUEMappedFeatureStore(final int numDimensions, final int numRows) throws IOException {
+		m_numRows = numRows;
+		m_numDimensions = numDimensions;
+		m_file = FileUtil.createTempFile("denclue_features_", ".bin");
+		m_randomAccessFile = new RandomAccessFile(m_file, "rw");
+		long columnBytes = (long) numRows * Double.BYTES;
+		m_randomAccessFile.setLength(columnBytes * numDimensions + (long) numRows * Integer.BYTES);
+		FileChannel channel = m_randomAccessFile.getChannel();
+		int numSegments = (numRows + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+		m_segments = new DoubleBuffer[numDimensions][numSegments];
+		for (int i = 0; i < numDimensions; i++) {
+			for (int j = 0; j < numSegments; j++) {
+				long segmentStart = (long) j << SEGMENT_SHIFT;
+				long segmentRows = Math.min(SEGMENT_MASK + 1L, numRows - segmentStart);
+				m_segments[i][j] = channel
+						.map(FileChannel.MapMode.READ_WRITE, i * columnBytes + segmentStart * Double.BYTES,
+								segmentRows * Double.BYTES)
+						.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			}
+		}
+		m_rowIndices = DENCLUEIntColumn.map(channel, columnBytes * numDimensions, numRows);
+	}
+
+	@Override
+	public void setValue(final int row, final int dimension, final double value) {
+		m_segments[dimension][row >>> SEGMENT_SHIFT].put(row & SEGMENT_MASK, value);
+	}
+
+	@Override
+	public double getValue(final int row, final int dimension) {
+		return m_segments[dimension][row >>> SEGMENT_SHIFT].get(row & SEGMENT_MASK);
+	}
+
+	@Override
+	public void setRowIndex(final int row, final int rowIndex) {
+		DENCLUEIntColumn.set(m_rowIndices, row, rowIndex);
+	}
+
+	@Override
+	public int getRowIndex(final int row) {
+		return DENCLUEIntColumn.get(m_rowIndices, row);
+	}
+
+	@Override
+	public void getRow(final int row, final double[] target) {
+		int segment = row >>> SEGMENT_SHIFT;
+		int position = row & SEGMENT_MASK;
+		for (int i = 0; i < m_numDimensions; i++) {
+			target[i] = m_segments[i][segment].get(position);
+		}
+	}
+
+	@Override
+	public double[][] readBlock(final int offset, final int count) {
+		double[][] block = new double[m_numDimensions][count];
+		readBlock(offset, count, block);
+		return block;
+	}
+
+	@Override
+	public void readBlock(final int offset, final int count, final double[][] target) {
+		for (int i = 0; i < m_numDimensions; i++) {
+			int copied = 0;
+			while (copied < count) {
+				int row = offset + copied;
+				// duplicate so concurrent readers do not share a buffer position
+				DoubleBuffer segment = m_segments[i][row >>> SEGMENT_SHIFT].duplicate();
+				segment.position(row & SEGMENT_MASK);
+				int length = Math.min(count - copied, segment.remaining());
+				segment.get(target[i], copied, length);
+				copied += length;
+			}
+		}
+	}
+
+	@Override
+	public boolean isOnHeap() {
+		return false;
+	}
+
+	@Override
+	public DENCLUEFeatureStore createCompanion(final int numDimensions) throws IOException {
+		DENCLUEFeatureStore companion = new DENCLUEMappedFeatureStore(numDimensions, m_numRows);
+		m_companions.add(companion);
+		return companion;
+	}
+
+	@Override
+	public DENCLUEFeatureStore gather(final int[] sourceRows, final boolean keepSource) throws IOException {
+		DENCLUEMappedFeatureStore gathered = new DENCLUEMappedFeatureStore(m_numDimensions, sourceRows.length);
+		for (int i = 0; i < m_numDimensions; i++) {
+			for (int j = 0; j < sourceRows.length; j++) {
+				gathered.setValue(j, i, getValue(sourceRows[j], i));
+			}
+		}
+		for (int j = 0; j < sourceRows.length; j++) {
+			gathered.setRowIndex(j, getRowIndex(sourceRows[j]));
+		}
+		if (!keepSource) {
+			close();
+		}
+		return gathered;
+	}
+
+	@Override
+	public int getNumRows() {
+		return m_numRows;
+	}
+
+	@Override
+	public int getNumDimensions() {
+		return m_numDimensions;
+	}
+
+	/**
+	 * @return the temp file holding the rows
+	 */
+	File getFile() {
+		return m_file;
+	}
+
+	@Override
+	public void close() {
+		for (DENCLUEFeatureStore companion : m_companions) {
+			companion.close();
+		}
+		m_companions.clear();
+		m_segments = null;
+		m_rowIndices = null;
+		if (m_randomAccessFile != null) {
+			try {
+				m_randomAccessFile.close();
+			} catch (IOException e) {
+				// the file is deleted below all the same
+			}
+			m_randomAccessFile = null;
+		}
+		// still mapped until the buffers are collected, see the class comment
+		m_file.delete();
+	}
+}
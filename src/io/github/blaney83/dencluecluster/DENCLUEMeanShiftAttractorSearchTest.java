@@ -0,0 +1,76 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEMeanShiftAttractorSearchTest {
+
+	private static final double SIGMA = 0.5;
+
+	private static final int COUNT = 400;
+
+	/**
+	 * Two blobs around (0, 0) and (3, 3).
+	 */
+	private static double[][] createBlock() {
+		Random random = new Random(9);
+		double[][] block = new double[2][COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			double center = (i % 2) * 3;
+			block[0][i] = center + 0.4 * random.nextGaussian();
+			block[1][i] = center + 0.4 * random.nextGaussian();
+		}
+		return block;
+	}
+
+	@Test
+	void neverDecreasesDensity() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock();
+		Random random = new Random(10);
+		for (int j = 0; j < 20; j++) {
+			double[] start = { -1 + 5 * random.nextDouble(), -1 + 5 * random.nextDouble() };
+			double[] attractor = new double[2];
+			// the density after 0, 1, 2, ... steps of the same climb
+			double previousDensity = 0;
+			for (int maxIterations = 0; maxIterations < 30; maxIterations++) {
+				double density = new DENCLUEMeanShiftAttractorSearch(
+						new DENCLUEBlockDensityEstimator(kernel, block, COUNT), 2, maxIterations)
+						.climb(start, attractor, null);
+				assertTrue(density >= previousDensity * (1 - 1e-12), "density decreased in step " + maxIterations);
+				previousDensity = density;
+			}
+		}
+	}
+
+	@Test
+	void climbsToNearestBlob() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		double[][] block = createBlock();
+		DENCLUEMeanShiftAttractorSearch search = new DENCLUEMeanShiftAttractorSearch(
+				new DENCLUEBlockDensityEstimator(kernel, block, COUNT), 2, 200);
+		double[] attractor = { 0.6, -0.4 };
+		// the start array may be the attractor
+		search.climb(attractor, attractor, null);
+		assertEquals(0, attractor[0], 0.15);
+		assertEquals(0, attractor[1], 0.15);
+		double[] otherAttractor = new double[2];
+		search.climb(new double[] { 2.5, 3.4 }, otherAttractor, null);
+		assertEquals(3, otherAttractor[0], 0.15);
+		assertEquals(3, otherAttractor[1], 0.15);
+	}
+
+	@Test
+	void stopsWithoutDensity() {
+		DENCLUEGaussianKernel kernel = new DENCLUEGaussianKernel(SIGMA);
+		DENCLUEMeanShiftAttractorSearch search = new DENCLUEMeanShiftAttractorSearch(
+				new DENCLUEBlockDensityEstimator(kernel, createBlock(), COUNT), 2, 100);
+		double[] attractor = new double[2];
+		// far enough that every influence underflows to zero
+		assertEquals(0, search.climb(new double[] { 1000, 1000 }, attractor, null), 0);
+		assertArrayEquals(new double[] { 1000, 1000 }, attractor, 0);
+	}
+}
@@ -0,0 +1,289 @@
+package io.github.blaney83.dencluecluster;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Measures the phases of an execution, one row of the metrics table per phase:
+ * wall time, CPU time and allocated bytes of the thread running the phase and
+ * of the worker threads it ran on, and the counts of what the phase did. Worker
+ * threads only count if their pool was created with one of the thread
+ * factories of the metrics; a worker adds what it did while the phase ran,
+ * also if it ends before the phase. A phase run more than once, such as the
+ * grid of a coarsened grid or the clustering of every batch, adds up its times
+ * and keeps the counts of its last run. Measures the JVM can't take are
+ * missing.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUEPhaseMetrics {
+
+	static final String PHASE_SIGMA = "Sigma estimation";
+
+	static final String PHASE_GRID = "Grid";
+
+	static final String PHASE_CONNECT = "Neighbor connection";
+
+	static final String PHASE_MERGE = "Merging";
+
+	static final String PHASE_CLIMB = "Hill climbing";
+
+	static final String PHASE_SWEEP = "Parameter sweep";
+
+	static final String PHASE_LABEL = "Labeling";
+
+	static final String OUTPUT_METRICS_TABLE_NAME = "Phase Metrics";
+
+	// the count columns of the table, in order
+	private static final DENCLUEDiagnostics.Counter[] COUNTERS = { DENCLUEDiagnostics.Counter.POPULATED_CUBES,
+			DENCLUEDiagnostics.Counter.DENSE_CUBES, DENCLUEDiagnostics.Counter.SUPER_CUBES,
+			DENCLUEDiagnostics.Counter.CLIMBS, DENCLUEDiagnostics.Counter.CLIMB_ITERATIONS,
+			DENCLUEDiagnostics.Counter.DENSITY_EVALUATIONS };
+
+	private static final String[] COUNTER_COLUMNS = { "Populated cubes", "Dense cubes", "Super cubes", "Hill climbs",
+			"Climb iterations", "Density evaluations" };
+
+	private final LinkedHashMap<String, long[]> m_phases = new LinkedHashMap<String, long[]>();
+
+	private String m_phase;
+
+	private long m_wallStart;
+
+	private long m_cpuStart;
+
+	private long m_allocatedStart;
+
+	// live worker threads, with their CPU time and allocated bytes at the start
+	// of the running phase (or 0 if created later); a worker ends on its own
+	// thread, so the workers and the two sums below are guarded by m_workers
+	private final HashMap<Thread, long[]> m_workers = new HashMap<Thread, long[]>();
+
+	// CPU time and allocated bytes of the workers that ended during the running
+	// phase
+	private long m_endedWorkerCpu;
+
+	private long m_endedWorkerAllocated;
+
+	/**
+	 * Starts measuring the phase, ending any phase still running.
+	 */
+	void start(final String phase) {
+		if (m_phase != null) {
+			end();
+		}
+		m_phase = phase;
+		synchronized (m_workers) {
+			for (Map.Entry<Thread, long[]> worker : m_workers.entrySet()) {
+				long id = worker.getKey().getId();
+				worker.setValue(new long[] { threadCpuTime(id), allocatedBytes(id) });
+			}
+			m_endedWorkerCpu = 0;
+			m_endedWorkerAllocated = 0;
+		}
+		m_allocatedStart = allocatedBytes(Thread.currentThread().getId());
+		m_cpuStart = threadCpuTime(Thread.currentThread().getId());
+		m_wallStart = System.nanoTime();
+	}
+
+	/**
+	 * Ends the running phase, which has no counts.
+	 */
+	void end() {
+		end(null);
+	}
+
+	/**
+	 * Ends the running phase with the given counts, only the counts of the given
+	 * counters are reported, all others are missing.
+	 */
+	void end(final DENCLUEDiagnostics counts, final DENCLUEDiagnostics.Counter... reported) {
+		long wallTime = System.nanoTime() - m_wallStart;
+		long cpuEnd = threadCpuTime(Thread.currentThread().getId());
+		long allocatedEnd = allocatedBytes(Thread.currentThread().getId());
+		long workerCpu;
+		long workerAllocated;
+		synchronized (m_workers) {
+			// an ending worker is either still live or already summed up
+			workerCpu = m_endedWorkerCpu;
+			workerAllocated = m_endedWorkerAllocated;
+			for (Map.Entry<Thread, long[]> worker : m_workers.entrySet()) {
+				long id = worker.getKey().getId();
+				workerCpu += since(worker.getValue()[0], threadCpuTime(id));
+				workerAllocated += since(worker.getValue()[1], allocatedBytes(id));
+			}
+		}
+		long[] measures = m_phases.get(m_phase);
+		if (measures == null) {
+			// wall, cpu and allocation, then the counts; -1 if missing
+			measures = new long[3 + COUNTERS.length];
+			Arrays.fill(measures, -1);
+			measures[0] = 0;
+			m_phases.put(m_phase, measures);
+		}
+		measures[0] += wallTime;
+		measures[1] = add(measures[1], m_cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - m_cpuStart + workerCpu);
+		measures[2] = add(measures[2], m_allocatedStart < 0 || allocatedEnd < 0 ? -1
+				: allocatedEnd - m_allocatedStart + workerAllocated);
+		for (DENCLUEDiagnostics.Counter counter : reported) {
+			for (int i = 0; i < COUNTERS.length; i++) {
+				if (COUNTERS[i] == counter) {
+					measures[3 + i] = counts.get(counter);
+				}
+			}
+		}
+		m_phase = null;
+	}
+
+	/**
+	 * @return the measure of a worker since the given start, 0 if not available
+	 */
+	private static long since(final long start, final long measure) {
+		return start < 0 || measure < 0 ? 0 : measure - start;
+	}
+
+	private static long add(final long total, final long measure) {
+		if (measure < 0) {
+			return total;
+		}
+		return total < 0 ? measure : total + measure;
+	}
+
+	static DataTableSpec createTableSpec() {
+		ArrayList<DataColumnSpec> columns = new ArrayList<DataColumnSpec>();
+		columns.add(new DataColumnSpecCreator("Wall time (ms)", DoubleCell.TYPE).createSpec());
+		columns.add(new DataColumnSpecCreator("CPU time (ms)", DoubleCell.TYPE).createSpec());
+		columns.add(new DataColumnSpecCreator("Allocated bytes", LongCell.TYPE).createSpec());
+		for (String counterColumn : COUNTER_COLUMNS) {
+			columns.add(new DataColumnSpecCreator(counterColumn, LongCell.TYPE).createSpec());
+		}
+		return new DataTableSpec(OUTPUT_METRICS_TABLE_NAME, columns.toArray(new DataColumnSpec[columns.size()]));
+	}
+
+	/**
+	 * @return one row per measured phase, keyed by the phase, in the order the
+	 *         phases first ran
+	 */
+	ArrayList<DataRow> createRows() {
+		ArrayList<DataRow> rows = new ArrayList<DataRow>();
+		for (Map.Entry<String, long[]> phase : m_phases.entrySet()) {
+			long[] measures = phase.getValue();
+			DataCell[] cells = new DataCell[measures.length];
+			cells[0] = new DoubleCell(measures[0] / 1e6);
+			cells[1] = measures[1] < 0 ? DataType.getMissingCell() : new DoubleCell(measures[1] / 1e6);
+			for (int i = 2; i < measures.length; i++) {
+				cells[i] = measures[i] < 0 ? DataType.getMissingCell() : new LongCell(measures[i]);
+			}
+			rows.add(new DefaultRow(new RowKey(phase.getKey()), cells));
+		}
+		return rows;
+	}
+
+	/**
+	 * @return threads for an executor whose work counts towards the running
+	 *         phase
+	 */
+	ThreadFactory getWorkerThreadFactory() {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread[] thread = new Thread[1];
+				thread[0] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							runnable.run();
+						} finally {
+							endWorker(thread[0]);
+						}
+					}
+				});
+				synchronized (m_workers) {
+					m_workers.put(thread[0], new long[2]);
+				}
+				return thread[0];
+			}
+		};
+	}
+
+	/**
+	 * @return threads for a fork-join pool whose work counts towards the running
+	 *         phase
+	 */
+	ForkJoinPool.ForkJoinWorkerThreadFactory getForkJoinWorkerThreadFactory() {
+		return new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+					@Override
+					protected void onTermination(final Throwable exception) {
+						endWorker(this);
+						super.onTermination(exception);
+					}
+				};
+				synchronized (m_workers) {
+					m_workers.put(thread, new long[2]);
+				}
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Adds what the ending worker did during the running phase, called from the
+	 * worker itself.
+	 */
+	private void endWorker(final Thread worker) {
+		synchronized (m_workers) {
+			long[] start = m_workers.remove(worker);
+			if (start != null) {
+				m_endedWorkerCpu += since(start[0], threadCpuTime(worker.getId()));
+				m_endedWorkerAllocated += since(start[1], allocatedBytes(worker.getId()));
+			}
+		}
+	}
+
+	/**
+	 * @return the CPU time of the live thread so far in nanoseconds, -1 if not
+	 *         available
+	 */
+	private static long threadCpuTime(final long threadId) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean.isThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled()) {
+			return bean.getThreadCpuTime(threadId);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the bytes allocated by the live thread so far, -1 if not available
+	 */
+	private static long allocatedBytes(final long threadId) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+			if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+				return threadBean.getThreadAllocatedBytes(threadId);
+			}
+		}
+		return -1;
+	}
+}
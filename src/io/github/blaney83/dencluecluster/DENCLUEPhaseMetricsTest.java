@@ -0,0 +1,90 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.def.LongCell;
+
+class DENCLUEPhaseMetricsTest {
+
+	private static final int NUM_WORKERS = 4;
+
+	// bytes every worker allocates
+	private static final int WORKER_BYTES = 16 << 20;
+
+	private static Callable<Long> createAllocatingTask() {
+		return new Callable<Long>() {
+			@Override
+			public Long call() {
+				long sum = 0;
+				for (int i = 0; i < WORKER_BYTES >> 20; i++) {
+					byte[] block = new byte[1 << 20];
+					block[i] = 1;
+					sum += block[i] + block.length;
+				}
+				return sum;
+			}
+		};
+	}
+
+	private static long getAllocatedBytes(final DENCLUEPhaseMetrics metrics) {
+		DataCell cell = metrics.createRows().get(0).getCell(2);
+		assumeFalse(cell.isMissing(), "the JVM doesn't measure allocations per thread");
+		return ((LongCell) cell).getLongValue();
+	}
+
+	@Test
+	void sumsAllocationsOfEndedWorkers() throws Exception {
+		DENCLUEPhaseMetrics metrics = new DENCLUEPhaseMetrics();
+		metrics.start(DENCLUEPhaseMetrics.PHASE_GRID);
+		ExecutorService pool = Executors.newFixedThreadPool(NUM_WORKERS, metrics.getWorkerThreadFactory());
+		ArrayList<Future<Long>> results = new ArrayList<Future<Long>>();
+		for (int i = 0; i < NUM_WORKERS; i++) {
+			results.add(pool.submit(createAllocatingTask()));
+		}
+		for (Future<Long> result : results) {
+			assertTrue(result.get() > 0);
+		}
+		// the workers end before the phase
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		metrics.end();
+		assertTrue(getAllocatedBytes(metrics) >= (long) NUM_WORKERS * WORKER_BYTES);
+	}
+
+	@Test
+	void sumsAllocationsOfLiveWorkersPerPhase() throws Exception {
+		DENCLUEPhaseMetrics metrics = new DENCLUEPhaseMetrics();
+		ForkJoinPool pool = new ForkJoinPool(NUM_WORKERS, metrics.getForkJoinWorkerThreadFactory(), null, false);
+		try {
+			metrics.start(DENCLUEPhaseMetrics.PHASE_CLIMB);
+			ArrayList<Future<Long>> results = new ArrayList<Future<Long>>();
+			for (int i = 0; i < NUM_WORKERS; i++) {
+				results.add(pool.submit(createAllocatingTask()));
+			}
+			for (Future<Long> result : results) {
+				assertTrue(result.get() > 0);
+			}
+			metrics.end();
+			assertTrue(getAllocatedBytes(metrics) >= (long) NUM_WORKERS * WORKER_BYTES);
+
+			// the workers' allocations before a phase don't count towards it
+			metrics.start(DENCLUEPhaseMetrics.PHASE_LABEL);
+			metrics.end();
+			DataCell cell = metrics.createRows().get(1).getCell(2);
+			assertTrue(((LongCell) cell).getLongValue() < WORKER_BYTES);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
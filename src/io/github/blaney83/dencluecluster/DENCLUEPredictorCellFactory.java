@@ -0,0 +1,54 @@
+package io.github.blaney83.dencluecluster;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.SingleCellFactory;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Labels every row with the cluster the {@link DENCLUEClusterModel} assigns
+ * it, rows with missing values with a missing cell.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEPredictorCellFactory extends SingleCellFactory {
+
+	private final DENCLUEClusterModel m_model;
+
+	// the column of every dimension of the model
+	private final int[] m_columnIndices;
+
+	// one shared label cell per cluster id
+	private final DataCell[] m_clusterCells;
+
+	public DENCLUEPredictorCellFactory(final DataColumnSpec newColSpec, final DENCLUEClusterModel model,
+			final int[] columnIndices) {
+		super(newColSpec);
+		m_model = model;
+		m_columnIndices = columnIndices;
+		m_clusterCells = new DataCell[model.getNumClusters()];
+		for (int i = 0; i < m_clusterCells.length; i++) {
+			m_clusterCells[i] = new StringCell("Cluster_" + i);
+		}
+	}
+
+	@Override
+	public DataCell getCell(final DataRow row) {
+		double[] featureVector = new double[m_columnIndices.length];
+		for (int i = 0; i < m_columnIndices.length; i++) {
+			DataCell cell = row.getCell(m_columnIndices[i]);
+			if (cell.isMissing()) {
+				return DataType.getMissingCell();
+			}
+			featureVector[i] = ((DoubleValue) cell).getDoubleValue();
+		}
+		int clusterId = m_model.predict(featureVector);
+		if (clusterId == DENCLUEClusterModel.NOISE) {
+			return DENCLUECellFactory.NOISE_CELL;
+		}
+		return m_clusterCells[clusterId];
+	}
+}
@@ -0,0 +1,58 @@
+package io.github.blaney83.dencluecluster;
+
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeView;
+
+/**
+ * <code>NodeFactory</code> for the "DENCLUEPredictor" Node.
+ * Assigns new rows to the clusters of a DENCLUE cluster model by cube lookup and a short climb to the nearest density attractor.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEPredictorNodeFactory 
+        extends NodeFactory<DENCLUEPredictorNodeModel> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DENCLUEPredictorNodeModel createNodeModel() {
+        return new DENCLUEPredictorNodeModel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNrNodeViews() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NodeView<DENCLUEPredictorNodeModel> createNodeView(final int viewIndex,
+            final DENCLUEPredictorNodeModel nodeModel) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasDialog() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NodeDialogPane createNodeDialogPane() {
+        return null;
+    }
+
+}
+
@@ -0,0 +1,154 @@
+package io.github.blaney83.dencluecluster;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+
+/**
+ * This is the model implementation of DENCLUEPredictor. Assigns the rows of a
+ * table to the clusters of a DENCLUE cluster model: every row is looked up in
+ * the grid of the model and climbs to the nearest density attractor of its
+ * super cube. Rows are scored independently, so the node streams and can be
+ * distributed.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEPredictorNodeModel extends NodeModel {
+
+	static final int MODEL_IN_PORT = 0;
+
+	static final int DATA_IN_PORT = 1;
+
+	/**
+	 * Constructor for the node model.
+	 */
+	protected DENCLUEPredictorNodeModel() {
+		super(new PortType[] { DENCLUEClusterModelPortObject.TYPE, BufferedDataTable.TYPE },
+				new PortType[] { BufferedDataTable.TYPE });
+	}
+
+	@Override
+	protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+		DENCLUEClusterModel model = ((DENCLUEClusterModelPortObject) inObjects[MODEL_IN_PORT]).getModel();
+		BufferedDataTable dataTable = (BufferedDataTable) inObjects[DATA_IN_PORT];
+		return new PortObject[] { exec.createColumnRearrangeTable(dataTable,
+				createColumnRearranger(dataTable.getDataTableSpec(), model), exec) };
+	}
+
+	@Override
+	protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		DENCLUEClusterModelPortObjectSpec modelSpec = (DENCLUEClusterModelPortObjectSpec) inSpecs[MODEL_IN_PORT];
+		DataTableSpec tableSpec = (DataTableSpec) inSpecs[DATA_IN_PORT];
+		findColumnIndices(tableSpec, modelSpec.getColumnNames());
+		return new PortObjectSpec[] { new DataTableSpec(tableSpec, new DataTableSpec(createClusterColumnSpec(tableSpec))) };
+	}
+
+	/**
+	 * Finds the column of every dimension of the model in the table.
+	 */
+	private int[] findColumnIndices(final DataTableSpec tableSpec, final String[] columnNames)
+			throws InvalidSettingsException {
+		int[] columnIndices = new int[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			columnIndices[i] = tableSpec.findColumnIndex(columnNames[i]);
+			if (columnIndices[i] < 0) {
+				throw new InvalidSettingsException(
+						"The column \"" + columnNames[i] + "\" of the cluster model is missing in the data table.");
+			}
+			if (!tableSpec.getColumnSpec(columnIndices[i]).getType().isCompatible(DoubleValue.class)) {
+				throw new InvalidSettingsException("The column \"" + columnNames[i] + "\" is not numeric.");
+			}
+		}
+		return columnIndices;
+	}
+
+	private ColumnRearranger createColumnRearranger(final DataTableSpec tableSpec, final DENCLUEClusterModel model)
+			throws InvalidSettingsException {
+		ColumnRearranger rearranger = new ColumnRearranger(tableSpec);
+		rearranger.append(new DENCLUEPredictorCellFactory(createClusterColumnSpec(tableSpec), model,
+				findColumnIndices(tableSpec, model.getColumnNames())));
+		return rearranger;
+	}
+
+	private DataColumnSpec createClusterColumnSpec(final DataTableSpec tableSpec) {
+		// the scored table may already hold the cluster column of the training run
+		return new DataColumnSpecCreator(DataTableSpec.getUniqueColumnName(tableSpec, "Cluster"), StringCell.TYPE)
+				.createSpec();
+	}
+
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.NONDISTRIBUTED_NONSTREAMABLE, InputPortRole.DISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.DISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+			final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+		return new StreamableOperator() {
+
+			@Override
+			public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+					throws Exception {
+				DENCLUEClusterModel model = ((DENCLUEClusterModelPortObject) ((PortObjectInput) inputs[MODEL_IN_PORT])
+						.getPortObject()).getModel();
+				createColumnRearranger((DataTableSpec) inSpecs[DATA_IN_PORT], model)
+						.createStreamableFunction(DATA_IN_PORT, 0).runFinal(inputs, outputs, exec);
+			}
+		};
+	}
+
+	@Override
+	protected void reset() {
+	}
+
+	@Override
+	protected void saveSettingsTo(final NodeSettingsWO settings) {
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+	}
+
+	@Override
+	protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+	}
+
+	@Override
+	protected void loadInternals(final File internDir, final ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+	}
+
+	@Override
+	protected void saveInternals(final File internDir, final ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+	}
+}
@@ -0,0 +1,92 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
+
+/**
+ * Estimates sigma from a reservoir sample of the rows, before any grid is
+ * built. Sigma is taken as the median, over the sampled rows, of the distance
+ * to their k-th nearest sampled neighbor, with k a fixed share of the sample:
+ * the radius around a typical row that holds that share of all rows. Unlike a
+ * nearest-neighbor distance, this radius doesn't shrink as the table grows, so
+ * the number of cubes per dimension stays bounded by the spread of the data.
+ *
+ * @author Benjamin Laney
+ */
+class DENCLUESigmaEstimator {
+
+	static final int SAMPLE_SIZE = 1000;
+
+	// share of all rows within sigma of a typical row
+	static final double NEIGHBOR_SHARE = .01;
+
+	// fixed, so the same table always gets the same sigma
+	private static final long SAMPLE_SEED = 0x44454e43L;
+
+	private final int[] m_columnIndices;
+
+	private final double[][] m_sample;
+
+	private final Random m_random = new Random(SAMPLE_SEED);
+
+	private long m_numRows = 0;
+
+	DENCLUESigmaEstimator(final int[] columnIndices) {
+		m_columnIndices = columnIndices;
+		m_sample = new double[SAMPLE_SIZE][columnIndices.length];
+	}
+
+	/**
+	 * Offers the row to the sample; every row seen so far is in the sample with
+	 * the same probability.
+	 */
+	void addRow(final DataRow row) {
+		long slot = m_numRows < SAMPLE_SIZE ? m_numRows : (long) (m_random.nextDouble() * (m_numRows + 1));
+		m_numRows++;
+		if (slot < SAMPLE_SIZE) {
+			double[] featureVector = m_sample[(int) slot];
+			for (int i = 0; i < m_columnIndices.length; i++) {
+				featureVector[i] = ((DoubleValue) row.getCell(m_columnIndices[i])).getDoubleValue();
+			}
+		}
+	}
+
+	/**
+	 * @return the estimated sigma, {@code NaN} if there are less than two rows or
+	 *         the sampled rows are (nearly) all equal
+	 */
+	double estimate() {
+		int sampleSize = (int) Math.min(m_numRows, SAMPLE_SIZE);
+		if (sampleSize < 2) {
+			return Double.NaN;
+		}
+		int k = Math.max(1, (int) Math.round(NEIGHBOR_SHARE * (sampleSize - 1)));
+		double[] distances = new double[sampleSize - 1];
+		double[] neighborDistances = new double[sampleSize];
+		for (int i = 0; i < sampleSize; i++) {
+			int count = 0;
+			for (int j = 0; j < sampleSize; j++) {
+				if (i != j) {
+					distances[count++] = squaredDistance(m_sample[i], m_sample[j]);
+				}
+			}
+			Arrays.sort(distances);
+			neighborDistances[i] = distances[k - 1];
+		}
+		Arrays.sort(neighborDistances);
+		double sigma = Math.sqrt(neighborDistances[sampleSize / 2]);
+		return sigma > 0 ? sigma : Double.NaN;
+	}
+
+	private static double squaredDistance(final double[] first, final double[] second) {
+		double sum = 0;
+		for (int i = 0; i < first.length; i++) {
+			double diff = first[i] - second[i];
+			sum += diff * diff;
+		}
+		return sum;
+	}
+}
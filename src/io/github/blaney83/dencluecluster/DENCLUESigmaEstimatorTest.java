@@ -0,0 +1,73 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+
+class DENCLUESigmaEstimatorTest {
+
+	private static DataRow createRow(final int index, final double... values) {
+		DoubleCell[] cells = new DoubleCell[values.length];
+		for (int i = 0; i < values.length; i++) {
+			cells[i] = new DoubleCell(values[i]);
+		}
+		return new DefaultRow(new RowKey("Row" + index), cells);
+	}
+
+	/**
+	 * Estimates sigma of the columns 0 and 2 of rows drawn with the given seed.
+	 */
+	private static double estimate(final int numRows, final long seed, final double scale) {
+		DENCLUESigmaEstimator estimator = new DENCLUESigmaEstimator(new int[] { 0, 2 });
+		Random random = new Random(seed);
+		for (int i = 0; i < numRows; i++) {
+			estimator.addRow(createRow(i, scale * random.nextGaussian(), random.nextDouble(),
+					scale * random.nextGaussian()));
+		}
+		return estimator.estimate();
+	}
+
+	@Test
+	void estimatesSameSigmaForSameRows() {
+		// several times the sample, so rows are replaced at random
+		int numRows = 5 * DENCLUESigmaEstimator.SAMPLE_SIZE;
+		double sigma = estimate(numRows, 1, 1);
+		assertTrue(sigma > 0);
+		assertEquals(sigma, estimate(numRows, 1, 1), 0);
+	}
+
+	@Test
+	void scalesWithData() {
+		int numRows = 3 * DENCLUESigmaEstimator.SAMPLE_SIZE;
+		assertEquals(4 * estimate(numRows, 2, 1), estimate(numRows, 2, 4), 1e-9);
+	}
+
+	@Test
+	void takesMedianNeighborDistanceOfSmallTable() {
+		DENCLUESigmaEstimator estimator = new DENCLUESigmaEstimator(new int[] { 0 });
+		double[] values = { 0, 1, 3, 6 };
+		for (int i = 0; i < values.length; i++) {
+			estimator.addRow(createRow(i, values[i]));
+		}
+		// nearest neighbor distances 1, 1, 2, 3
+		assertEquals(2, estimator.estimate(), 0);
+	}
+
+	@Test
+	void estimatesNoSigmaWithoutSpread() {
+		DENCLUESigmaEstimator estimator = new DENCLUESigmaEstimator(new int[] { 0 });
+		assertTrue(Double.isNaN(estimator.estimate()));
+		estimator.addRow(createRow(0, 1));
+		assertTrue(Double.isNaN(estimator.estimate()));
+		for (int i = 1; i < 10; i++) {
+			estimator.addRow(createRow(i, 1));
+		}
+		assertTrue(Double.isNaN(estimator.estimate()));
+	}
+}
@@ -0,0 +1,44 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.Arrays;
+
+/**
+ * Identifies a super cube by the ids of the cubes it is made of, in ascending
+ * order, so a later run can find a super cube it clustered before. Unlike a
+ * {@link DENCLUEIndexKey}, which addresses a cell of the grid, it can't be
+ * changed once built.
+ *
+ * @author Benjamin Laney
+ */
+final class DENCLUESuperCubeKey {
+
+	private final int[] m_cubeIds;
+
+	/**
+	 * @param cubeIds the ascending cube ids, owned by the key from now on
+	 */
+	DENCLUESuperCubeKey(final int[] cubeIds) {
+		m_cubeIds = cubeIds;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DENCLUESuperCubeKey)) {
+			return false;
+		}
+		return Arrays.equals(m_cubeIds, ((DENCLUESuperCubeKey) obj).m_cubeIds);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(m_cubeIds);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(m_cubeIds);
+	}
+}
@@ -0,0 +1,120 @@
+package io.github.blaney83.dencluecluster;
+
+import java.util.Random;
+
+import org.knime.core.data.DataColumnDomainCreator;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.workflow.SingleNodeContainer;
+
+/**
+ * Builds execution contexts and numeric input tables for the tests of the
+ * DENCLUE nodes.
+ *
+ * @author Benjamin Laney
+ */
+final class DENCLUETestTables {
+
+	private DENCLUETestTables() {
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static ExecutionContext createExecutionContext() {
+		NodeFactory<NodeModel> factory = (NodeFactory) new DENCLUEClusterNodeFactory();
+		return new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(factory),
+				SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+	}
+
+	/**
+	 * Creates a table of the given feature vectors, one row per vector, with the
+	 * bounds of every column set in its domain.
+	 */
+	static BufferedDataTable createTable(final ExecutionContext exec, final double[][] featureVectors) {
+		int numColumns = featureVectors[0].length;
+		DataColumnSpec[] columnSpecs = new DataColumnSpec[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			double lowerBound = Double.POSITIVE_INFINITY;
+			double upperBound = Double.NEGATIVE_INFINITY;
+			for (double[] featureVector : featureVectors) {
+				lowerBound = Math.min(lowerBound, featureVector[column]);
+				upperBound = Math.max(upperBound, featureVector[column]);
+			}
+			DataColumnSpecCreator creator = new DataColumnSpecCreator("x" + column, DoubleCell.TYPE);
+			creator.setDomain(
+					new DataColumnDomainCreator(new DoubleCell(lowerBound), new DoubleCell(upperBound)).createDomain());
+			columnSpecs[column] = creator.createSpec();
+		}
+		BufferedDataContainer container = exec.createDataContainer(new DataTableSpec(columnSpecs));
+		for (int i = 0; i < featureVectors.length; i++) {
+			DoubleCell[] cells = new DoubleCell[numColumns];
+			for (int column = 0; column < numColumns; column++) {
+				cells[column] = new DoubleCell(featureVectors[i][column]);
+			}
+			container.addRowToTable(new DefaultRow(new RowKey("Row" + i), cells));
+		}
+		container.close();
+		return container.getTable();
+	}
+
+	/**
+	 * Creates a table of integer columns from the given feature vectors, which
+	 * must hold whole numbers, with the bounds of every column set in its domain.
+	 */
+	static BufferedDataTable createIntTable(final ExecutionContext exec, final double[][] featureVectors) {
+		int numColumns = featureVectors[0].length;
+		DataColumnSpec[] columnSpecs = new DataColumnSpec[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			int lowerBound = Integer.MAX_VALUE;
+			int upperBound = Integer.MIN_VALUE;
+			for (double[] featureVector : featureVectors) {
+				lowerBound = Math.min(lowerBound, (int) featureVector[column]);
+				upperBound = Math.max(upperBound, (int) featureVector[column]);
+			}
+			DataColumnSpecCreator creator = new DataColumnSpecCreator("x" + column, IntCell.TYPE);
+			creator.setDomain(
+					new DataColumnDomainCreator(new IntCell(lowerBound), new IntCell(upperBound)).createDomain());
+			columnSpecs[column] = creator.createSpec();
+		}
+		BufferedDataContainer container = exec.createDataContainer(new DataTableSpec(columnSpecs));
+		for (int i = 0; i < featureVectors.length; i++) {
+			IntCell[] cells = new IntCell[numColumns];
+			for (int column = 0; column < numColumns; column++) {
+				cells[column] = new IntCell((int) featureVectors[i][column]);
+			}
+			container.addRowToTable(new DefaultRow(new RowKey("Row" + i), cells));
+		}
+		container.close();
+		return container.getTable();
+	}
+
+	/**
+	 * Creates feature vectors spread normally around the given centers, taking
+	 * the centers in turn.
+	 */
+	static double[][] createBlobs(final double[][] centers, final double spread, final int numRows,
+			final long seed) {
+		Random random = new Random(seed);
+		double[][] featureVectors = new double[numRows][];
+		for (int i = 0; i < numRows; i++) {
+			double[] center = centers[i % centers.length];
+			featureVectors[i] = new double[center.length];
+			for (int column = 0; column < center.length; column++) {
+				featureVectors[i][column] = center[column] + spread * random.nextGaussian();
+			}
+		}
+		return featureVectors;
+	}
+}
@@ -0,0 +1,47 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * {@link DENCLUECubeIndex} backed by the {@link DENCLUEBPlusTree}.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUETreeCubeIndex implements DENCLUECubeIndex {
+
+	private final DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUECubeBuilder> m_tree;
+
+	private int m_size = 0;
+
+	public DENCLUETreeCubeIndex(final int branchingFactor) {
+		m_tree = new DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUECubeBuilder>(branchingFactor);
+	}
+
+	@Override
+	public DENCLUECubeBuilder search(final DENCLUEIndexKey key) {
+		return m_tree.search(key);
+	}
+
+	@Override
+	public void insert(final DENCLUEIndexKey key, final DENCLUECubeBuilder cube) {
+		if (m_tree.search(key) == null) {
+			m_size++;
+		}
+		m_tree.insert(key, cube);
+	}
+
+	@Override
+	public void delete(final DENCLUEIndexKey key) {
+		if (m_tree.search(key) != null) {
+			m_size--;
+			m_tree.delete(key);
+		}
+	}
+
+	@Override
+	public int size() {
+		return m_size;
+	}
+
+	protected DENCLUEBPlusTree<DENCLUEIndexKey, DENCLUECubeBuilder> getTree() {
+		return m_tree;
+	}
+}
@@ -0,0 +1,72 @@
+package io.github.blaney83.dencluecluster;
+
+/**
+ * Disjoint-set forest over the ids {@code 0..size-1} of the populated cubes,
+ * with path compression and union by rank. Used to resolve the connected
+ * components of cubes before any cluster members are copied.
+ *
+ * @author Benjamin Laney
+ */
+public class DENCLUEUnionFind {
+
+	private final int[] m_parent;
+
+	private final byte[] m_rank;
+
+	private int m_numComponents;
+
+	public DENCLUEUnionFind(final int size) {
+		m_parent = new int[size];
+		m_rank = new byte[size];
+		for (int i = 0; i < size; i++) {
+			m_parent[i] = i;
+		}
+		m_numComponents = size;
+	}
+
+	public int find(final int id) {
+		int root = id;
+		while (m_parent[root] != root) {
+			root = m_parent[root];
+		}
+		// path compression: point every node on the path straight at the root
+		int current = id;
+		while (m_parent[current] != root) {
+			int next = m_parent[current];
+			m_parent[current] = root;
+			current = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Joins the components of both ids.
+	 *
+	 * @return {@code true} if the ids were in different components
+	 */
+	public boolean union(final int idOne, final int idTwo) {
+		int rootOne = find(idOne);
+		int rootTwo = find(idTwo);
+		if (rootOne == rootTwo) {
+			return false;
+		}
+		if (m_rank[rootOne] < m_rank[rootTwo]) {
+			m_parent[rootOne] = rootTwo;
+		} else if (m_rank[rootOne] > m_rank[rootTwo]) {
+			m_parent[rootTwo] = rootOne;
+		} else {
+			m_parent[rootTwo] = rootOne;
+			m_rank[rootOne]++;
+		}
+		m_numComponents--;
+		return true;
+	}
+
+	public int size() {
+		return m_parent.length;
+	}
+
+	public int getNumComponents() {
+		return m_numComponents;
+	}
+}
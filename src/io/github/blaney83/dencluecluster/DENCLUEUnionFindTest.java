@@ -0,0 +1,69 @@
+package io.github.blaney83.dencluecluster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DENCLUEUnionFindTest {
+
+	@Test
+	void startsWithSingletons() {
+		DENCLUEUnionFind unionFind = new DENCLUEUnionFind(5);
+		assertEquals(5, unionFind.size());
+		assertEquals(5, unionFind.getNumComponents());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, unionFind.find(i));
+		}
+	}
+
+	@Test
+	void joinsComponents() {
+		DENCLUEUnionFind unionFind = new DENCLUEUnionFind(6);
+		assertTrue(unionFind.union(0, 1));
+		assertTrue(unionFind.union(2, 3));
+		assertTrue(unionFind.union(1, 3));
+		// already joined
+		assertFalse(unionFind.union(0, 2));
+		assertFalse(unionFind.union(4, 4));
+		assertEquals(3, unionFind.getNumComponents());
+		assertEquals(unionFind.find(0), unionFind.find(3));
+		assertNotEquals(unionFind.find(0), unionFind.find(4));
+		assertNotEquals(unionFind.find(4), unionFind.find(5));
+	}
+
+	@Test
+	void findsLikeLabelPropagation() {
+		int size = 500;
+		DENCLUEUnionFind unionFind = new DENCLUEUnionFind(size);
+		// reference: relabel every member of the smaller label on each join
+		int[] labels = new int[size];
+		for (int i = 0; i < size; i++) {
+			labels[i] = i;
+		}
+		Random random = new Random(3);
+		for (int j = 0; j < 300; j++) {
+			int one = random.nextInt(size);
+			int two = random.nextInt(size);
+			boolean joined = labels[one] != labels[two];
+			assertEquals(joined, unionFind.union(one, two));
+			int from = labels[two];
+			for (int i = 0; i < size; i++) {
+				if (labels[i] == from) {
+					labels[i] = labels[one];
+				}
+			}
+		}
+		int numComponents = 0;
+		for (int i = 0; i < size; i++) {
+			if (labels[i] == i) {
+				numComponents++;
+			}
+			for (int k = i + 1; k < size; k++) {
+				assertEquals(labels[i] == labels[k], unionFind.find(i) == unionFind.find(k));
+			}
+		}
+		assertEquals(numComponents, unionFind.getNumComponents());
+	}
+}